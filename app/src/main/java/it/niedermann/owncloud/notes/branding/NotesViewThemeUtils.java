@@ -29,6 +29,7 @@ import androidx.appcompat.widget.AppCompatAutoCompleteTextView;
 import androidx.appcompat.widget.SearchView;
 import androidx.appcompat.widget.Toolbar;
 import androidx.core.content.ContextCompat;
+import androidx.core.graphics.ColorUtils;
 import androidx.core.graphics.drawable.DrawableCompat;
 
 import com.google.android.material.appbar.AppBarLayout;
@@ -41,6 +42,7 @@ import com.nextcloud.android.common.ui.theme.utils.MaterialViewThemeUtils;
 import dynamiccolor.MaterialDynamicColors;
 import it.niedermann.android.util.ColorUtil;
 import it.niedermann.owncloud.notes.R;
+import it.niedermann.owncloud.notes.main.items.NoteItemStyle;
 import it.niedermann.owncloud.notes.main.navigation.NavigationItem;
 import it.niedermann.owncloud.notes.shared.util.NotesColorUtil;
 import kotlin.Pair;
@@ -49,6 +51,11 @@ public class NotesViewThemeUtils extends ViewThemeUtilsBase {
 
     private static final String TAG = NotesViewThemeUtils.class.getSimpleName();
 
+    /**
+     * Alpha of disabled content according to the Material guidelines
+     */
+    private static final int DISABLED_ALPHA = 97;
+
     private final MaterialDynamicColors dynamicColor = new MaterialDynamicColors();
 
     public NotesViewThemeUtils(@NonNull MaterialSchemes schemes) {
@@ -278,4 +285,41 @@ public class NotesViewThemeUtils extends ViewThemeUtilsBase {
             return view;
         });
     }
+
+    /**
+     * Resolves all colors needed by the items of the notes list at once, so they can be reused for every bound item.
+     * Matches {@link #themeCard(MaterialCardView)} and the color roles previously applied per item.
+     */
+    @NonNull
+    public NoteItemStyle createNoteItemStyle(@NonNull Context context, @ColorInt int color) {
+        final var scheme = getScheme(context);
+        final boolean darkMode = isDarkMode(context);
+        final int primary = dynamicColor.primary().getArgb(scheme);
+        final int disabled = ColorUtils.setAlphaComponent(dynamicColor.onSurface().getArgb(scheme), DISABLED_ALPHA);
+        return new NoteItemStyle(
+                color,
+                darkMode,
+                buildColorStateList(
+                        new Pair<>(android.R.attr.state_activated, dynamicColor.secondaryContainer().getArgb(scheme)),
+                        new Pair<>(-android.R.attr.state_activated, dynamicColor.surface().getArgb(scheme))),
+                buildColorStateList(
+                        new Pair<>(android.R.attr.state_activated, dynamicColor.onSecondaryContainer().getArgb(scheme)),
+                        new Pair<>(-android.R.attr.state_activated, dynamicColor.outlineVariant().getArgb(scheme))),
+                context.getResources().getDimensionPixelSize(R.dimen.card_stroke_width),
+                context.getResources().getDimensionPixelSize(R.dimen.card_stroke_width_selected),
+                dynamicColor.onSurface().getArgb(scheme),
+                dynamicColor.onSurfaceVariant().getArgb(scheme),
+                primary,
+                primary,
+                primary,
+                buildColorStateList(
+                        new Pair<>(android.R.attr.state_enabled, primary),
+                        new Pair<>(-android.R.attr.state_enabled, disabled)),
+                ColorStateList.valueOf(primary),
+                ColorStateList.valueOf(primary),
+                dynamicColor.onPrimary().getArgb(scheme),
+                ColorStateList.valueOf(darkMode ? dynamicColor.secondaryContainer().getArgb(scheme) : primary),
+                darkMode ? dynamicColor.onSecondaryContainer().getArgb(scheme) : dynamicColor.onPrimaryContainer().getArgb(scheme)
+        );
+    }
 }
@@ -22,12 +22,15 @@ import android.view.View;
 import android.widget.ScrollView;
 
 import androidx.annotation.CallSuper;
+import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
 import androidx.core.content.pm.ShortcutInfoCompat;
 import androidx.core.content.pm.ShortcutManagerCompat;
 import androidx.core.graphics.drawable.IconCompat;
 
+import com.google.android.material.snackbar.Snackbar;
 import com.nextcloud.android.sso.exceptions.NextcloudFilesAppAccountNotFoundException;
 import com.nextcloud.android.sso.exceptions.NoCurrentAccountSelectedException;
 import com.nextcloud.android.sso.helper.SingleAccountHelper;
@@ -37,15 +40,18 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 import it.niedermann.owncloud.notes.R;
 import it.niedermann.owncloud.notes.accountpicker.AccountPickerDialogFragment;
 import it.niedermann.owncloud.notes.branding.BrandedFragment;
+import it.niedermann.owncloud.notes.branding.BrandedSnackbar;
 import it.niedermann.owncloud.notes.branding.BrandingUtil;
 import it.niedermann.owncloud.notes.edit.category.CategoryDialogFragment;
 import it.niedermann.owncloud.notes.edit.category.CategoryDialogFragment.CategoryDialogListener;
 import it.niedermann.owncloud.notes.edit.title.EditTitleDialogFragment;
 import it.niedermann.owncloud.notes.edit.title.EditTitleDialogFragment.EditTitleListener;
+import it.niedermann.owncloud.notes.persistence.NoteSaveQueue;
 import it.niedermann.owncloud.notes.persistence.NotesRepository;
 import it.niedermann.owncloud.notes.persistence.entity.Account;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
@@ -68,6 +74,7 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
     public static final String PARAM_NEWNOTE = "newNote";
     private static final String SAVEDKEY_NOTE = "note";
     private static final String SAVEDKEY_ORIGINAL_NOTE = "original_note";
+    private static final String SAVEDKEY_SAVE_PENDING = "save_pending";
 
     private Account localAccount;
 
@@ -75,8 +82,13 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
     // TODO do we really need this? The reference to note is currently the same
     @Nullable
     private Note originalNote;
-    private int originalScrollY;
     protected NotesRepository repo;
+    private NoteSaveQueue saveQueue;
+    /**
+     * Latest content which has been handed to the {@link #saveQueue} but is not yet reflected by {@link #note}
+     */
+    @Nullable
+    private Supplier<String> unsavedContent;
     @Nullable
     protected NoteFragmentListener listener;
     private boolean titleModified = false;
@@ -92,6 +104,7 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
             throw new ClassCastException(context.getClass() + " must implement " + NoteFragmentListener.class);
         }
         repo = NotesRepository.getInstance(context);
+        saveQueue = repo.createNoteSaveQueue();
     }
 
     @Override
@@ -108,15 +121,9 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
                 } else {
                     loadFromArguments();
                 }
+                fetchStaleContent();
 
-                requireActivity().runOnUiThread(() -> {
-                    onNoteLoaded(note);
-                    requireActivity().invalidateOptionsMenu();
-
-                    if (listener != null) {
-                        listener.onNoteUpdated(note);
-                    }
-                });
+                requireActivity().runOnUiThread(this::showNote);
             } catch (NextcloudFilesAppAccountNotFoundException | NoCurrentAccountSelectedException e) {
                Log_OC.e(TAG, e.getLocalizedMessage());
             }
@@ -131,6 +138,19 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
     private void loadFromSavedState(Bundle savedInstanceState) {
         note = (Note) savedInstanceState.getSerializable(SAVEDKEY_NOTE);
         originalNote = (Note) savedInstanceState.getSerializable(SAVEDKEY_ORIGINAL_NOTE);
+        if (note != null && savedInstanceState.getBoolean(SAVEDKEY_SAVE_PENDING)) {
+            // The save has been requested before, note has just not been updated yet
+            try {
+                saveQueue.awaitPendingSaves();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            final var savedNote = repo.getNoteById(note.getId());
+            if (savedNote != null) {
+                note.setContent(savedNote.getContent());
+            }
+        }
     }
 
     private void loadFromArguments() {
@@ -159,6 +179,65 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
         }
     }
 
+    /**
+     * Fetches the content of the {@link #note} in case only its metadata has been synchronized yet.
+     * As long as this did not succeed, the {@link #note} must not be saved, otherwise its empty content would replace the one on the server.
+     */
+    @WorkerThread
+    private void fetchStaleContent() {
+        if (note == null || !note.isContentStale()) {
+            return;
+        }
+        try {
+            repo.fetchStaleContent(localAccount, note);
+        } catch (Throwable t) {
+            Log_OC.e(TAG, "Could not fetch content of note #" + note.getId() + ": " + t.getMessage());
+            return;
+        }
+        if (originalNote != null && originalNote != note && originalNote.isContentStale() && !note.isContentStale()) {
+            originalNote.setContent(note.getContent());
+            originalNote.setExcerpt(note.getExcerpt());
+            originalNote.setContentStale(false);
+        }
+    }
+
+    @MainThread
+    private void showNote() {
+        if (!isAdded()) {
+            return;
+        }
+        onNoteLoaded(note);
+        requireActivity().invalidateOptionsMenu();
+
+        if (listener != null) {
+            listener.onNoteUpdated(note);
+        }
+
+        if (note != null && note.isContentStale()) {
+            showContentNotAvailable();
+        }
+    }
+
+    /**
+     * Editing is not possible until the content has been fetched, so the user is offered to try it again.
+     */
+    @MainThread
+    private void showContentNotAvailable() {
+        final var view = getView();
+        if (view == null) {
+            return;
+        }
+        BrandedSnackbar.make(view, R.string.note_content_not_available, Snackbar.LENGTH_INDEFINITE)
+                .setAction(R.string.action_retry, v -> executor.execute(() -> {
+                    fetchStaleContent();
+                    final var activity = getActivity();
+                    if (activity != null) {
+                        activity.runOnUiThread(this::showNote);
+                    }
+                }))
+                .show();
+    }
+
     private void createNewNote() {
         final var paramNote = (Note) requireArguments().getSerializable(PARAM_NEWNOTE);
         final var content = requireArguments().getString(PARAM_CONTENT);
@@ -220,6 +299,7 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
         saveNote(null);
         outState.putSerializable(SAVEDKEY_NOTE, note);
         outState.putSerializable(SAVEDKEY_ORIGINAL_NOTE, originalNote);
+        outState.putBoolean(SAVEDKEY_SAVE_PENDING, unsavedContent != null);
     }
 
     @Override
@@ -265,11 +345,13 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
     public boolean onOptionsItemSelected(MenuItem item) {
         final int itemId = item.getItemId();
         if (itemId == R.id.menu_cancel) {
-            executor.submit(() -> {
-                if (originalNote == null) {
-                    repo.deleteNoteAndSync(localAccount, note.getId());
-                } else {
-                    repo.updateNoteAndSync(localAccount, originalNote, null, null, null);
+            final var noteId = note.getId();
+            final var noteToRestore = originalNote;
+            saveQueue.afterPendingSaves(() -> {
+                if (noteToRestore == null) {
+                    repo.deleteNoteAndSync(localAccount, noteId);
+                } else if (!noteToRestore.isContentStale()) {
+                    repo.updateNoteAndSync(localAccount, noteToRestore, null, null, null);
                 }
             });
 
@@ -278,7 +360,8 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
             }
             return true;
         } else if (itemId == R.id.menu_delete) {
-            repo.deleteNoteAndSync(localAccount, note.getId());
+            final var noteId = note.getId();
+            saveQueue.afterPendingSaves(() -> repo.deleteNoteAndSync(localAccount, noteId));
 
             if (listener != null) {
                 listener.close();
@@ -286,7 +369,9 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
             return true;
         } else if (itemId == R.id.menu_favorite) {
             note.setFavorite(!note.getFavorite());
-            repo.toggleFavoriteAndSync(localAccount, note);
+            final var noteId = note.getId();
+            final boolean favorite = note.getFavorite();
+            saveQueue.afterPendingSaves(() -> repo.setFavoriteAndSync(localAccount, noteId, favorite));
 
             if (listener != null) {
                 listener.onNoteUpdated(note);
@@ -362,20 +447,25 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
             return;
         }
 
-        this.originalScrollY = note.getScrollY();
-        scrollToY(originalScrollY);
+        saveQueue.setSaved(note);
+        scrollToY(note.getScrollY());
         final var scrollView = getScrollView();
         if (scrollView == null) {
             Log_OC.w(TAG, "Scroll view is null, onNoteLoaded");
             return;
         }
 
-        scrollView.setOnScrollChangeListener((View v, int scrollX, int scrollY, int oldScrollX, int oldScrollY) -> {
-            if (scrollY > 0) {
-                note.setScrollY(scrollY);
-            }
-            onScroll(scrollY, oldScrollY);
-        });
+        scrollView.setOnScrollChangeListener((View v, int scrollX, int scrollY, int oldScrollX, int oldScrollY) -> onScrollChanged(scrollY, oldScrollY));
+    }
+
+    /**
+     * Must be called whenever the content got scrolled, so the position can be restored when the note gets opened again.
+     */
+    protected void onScrollChanged(int scrollY, int oldScrollY) {
+        if (scrollY > 0 && note != null) {
+            note.setScrollY(scrollY);
+        }
+        onScroll(scrollY, oldScrollY);
     }
 
     /**
@@ -395,12 +485,14 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
         }
 
         if (!titleModified && originalNote == null && getContent().isEmpty()) {
-            repo.deleteNoteAndSync(localAccount, note.getId());
+            final var noteId = note.getId();
+            saveQueue.afterPendingSaves(() -> repo.deleteNoteAndSync(localAccount, noteId));
         }
     }
 
     /**
      * Save the current state in the database and schedule synchronization if needed.
+     * The database is accessed on the writer thread of the {@link NoteSaveQueue}, so this is cheap enough to be called on every autosave.
      *
      * @param callback Observer which is called after save/synchronization
      */
@@ -416,17 +508,23 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
             return;
         }
 
-        final var newContent = getContent();
-        if (note.getContent().equals(newContent)) {
-            if (note.getScrollY() != originalScrollY) {
-                Log.v(TAG, "... only saving new scroll state, since content did not change");
-                repo.updateScrollY(note.getId(), note.getScrollY());
-            } else {
-                Log.v(TAG, "... not saving, since nothing has changed");
+        if (note.isContentStale()) {
+            Log.w(TAG, "Content of note #" + note.getId() + " has not been fetched yet, saveNote");
+            if (callback != null) {
+                callback.onFinish();
             }
-        } else {
-            // FIXME requires database queries on main thread!
-            note = repo.updateNoteAndSync(localAccount, note, newContent, null, callback);
+            return;
+        }
+
+        unsavedContent = getContentSnapshot();
+        saveQueue.save(localAccount, note, unsavedContent, null, callback, this::onNoteSaved);
+    }
+
+    private void onNoteSaved(@NonNull Note savedNote) {
+        final boolean changed = savedNote != note;
+        note = savedNote;
+        unsavedContent = null;
+        if (changed && listener != null && isAdded()) {
             listener.onNoteUpdated(note);
             requireActivity().invalidateOptionsMenu();
         }
@@ -434,6 +532,15 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
 
     protected abstract String getContent();
 
+    /**
+     * @return a snapshot of the current content, which might only get resolved later on the writer thread of the {@link NoteSaveQueue}
+     */
+    @NonNull
+    protected Supplier<String> getContentSnapshot() {
+        final var content = getContent();
+        return () -> content;
+    }
+
     /**
      * Opens a dialog in order to chose a category
      */
@@ -504,12 +611,19 @@ public abstract class BaseNoteFragment extends BrandedFragment implements Catego
             return;
         }
 
+        if (note.isContentStale()) {
+            Log.w(TAG, "Content of note #" + note.getId() + " has not been fetched yet, onTitleEdited");
+            return;
+        }
+
         titleModified = true;
         note.setTitle(newTitle);
-        executor.submit(() -> {
-            note = repo.updateNoteAndSync(localAccount, note, note.getContent(), newTitle, null);
-            requireActivity().runOnUiThread(() -> listener.onNoteUpdated(note));
-        });
+        // Queued behind the content saves, so neither of them overwrites the other one
+        if (unsavedContent == null) {
+            saveQueue.save(localAccount, note, note.getContent(), newTitle, null, this::onNoteSaved);
+        } else {
+            saveQueue.save(localAccount, note, unsavedContent, newTitle, null, this::onNoteSaved);
+        }
     }
 
     public void moveNote(Account account) {
@@ -30,15 +30,20 @@ import android.widget.ScrollView;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.preference.PreferenceManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.floatingactionbutton.ExtendedFloatingActionButton;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.nextcloud.android.sso.helper.SingleAccountHelper;
 import com.owncloud.android.lib.common.utils.Log_OC;
 
+import java.util.function.Supplier;
+
 import it.niedermann.owncloud.notes.R;
 import it.niedermann.owncloud.notes.branding.BrandingUtil;
 import it.niedermann.owncloud.notes.databinding.FragmentNoteEditBinding;
+import it.niedermann.owncloud.notes.edit.paged.PagedContent;
+import it.niedermann.owncloud.notes.edit.paged.PagedContentAdapter;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
 import it.niedermann.owncloud.notes.shared.model.ISyncCallback;
 import it.niedermann.owncloud.notes.shared.util.DisplayUtils;
@@ -72,6 +77,15 @@ public class NoteEditFragment extends SearchableBaseNoteFragment {
     private TextWatcher textWatcher;
     private boolean keyboardShown = false;
     private int lastSelection = -1;
+    /**
+     * Content of huge notes, which are edited page by page instead of in {@link FragmentNoteEditBinding#editContent}
+     */
+    @Nullable
+    private PagedContent pagedContent;
+    /**
+     * Vertical scroll position of {@link FragmentNoteEditBinding#pagedContent}, which is used instead of {@link FragmentNoteEditBinding#scrollView} for paged content
+     */
+    private int pagedContentScrollY = 0;
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -93,13 +107,22 @@ public class NoteEditFragment extends SearchableBaseNoteFragment {
 
     @Override
     protected void scrollToY(int y) {
-        if (binding != null) {
+        if (binding == null) {
+            return;
+        }
+        if (pagedContent != null) {
+            binding.pagedContent.post(() -> binding.pagedContent.scrollBy(0, y - pagedContentScrollY));
+        } else {
             binding.scrollView.post(() -> binding.scrollView.setScrollY(y));
         }
     }
 
     @Override
     protected Layout getLayout() {
+        if (pagedContent != null) {
+            // Jumping to occurrences is not supported for paged content
+            return null;
+        }
         binding.editContent.onPreDraw();
         return binding.editContent.getLayout();
     }
@@ -143,16 +166,12 @@ public class NoteEditFragment extends SearchableBaseNoteFragment {
 
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
-                // Nothing to do here...
+                onContentChanged(s, start, before, count);
             }
 
             @Override
             public void afterTextChanged(final Editable s) {
-                unsavedEdit = true;
-                if (!saveActive) {
-                    handler.removeCallbacks(runAutoSave);
-                    handler.postDelayed(runAutoSave, DELAY);
-                }
+                onContentEdited();
             }
         };
 
@@ -161,6 +180,14 @@ public class NoteEditFragment extends SearchableBaseNoteFragment {
         }
     }
 
+    private void onContentEdited() {
+        unsavedEdit = true;
+        if (!saveActive) {
+            handler.removeCallbacks(runAutoSave);
+            handler.postDelayed(runAutoSave, DELAY);
+        }
+    }
+
     @Override
     public void onSaveInstanceState(@NonNull Bundle outState) {
         super.onSaveInstanceState(outState);
@@ -188,7 +215,7 @@ public class NoteEditFragment extends SearchableBaseNoteFragment {
             return;
         }
 
-        if (TextUtils.isEmpty(note.getContent())) {
+        if (TextUtils.isEmpty(note.getContent()) && !note.isContentStale()) {
             openSoftKeyboard();
         }
 
@@ -196,14 +223,28 @@ public class NoteEditFragment extends SearchableBaseNoteFragment {
             // load potential big note on IO Dispatchers
             final String content = note.getContent();
             final var sp = PreferenceManager.getDefaultSharedPreferences(requireContext().getApplicationContext());
+            // Laying out and rendering huge notes at once would block the UI for seconds
+            final var paged = content.length() > PagedContent.LARGE_NOTE_THRESHOLD
+                    ? PagedContent.of(content, PagedContent.PAGE_LENGTH)
+                    : null;
 
             onMainThread(() -> {
+                final float textSize = getFontSizeFromPreferences(requireContext(), sp);
+                final var typeface = sp.getBoolean(getString(R.string.pref_key_font), false) ? Typeface.MONOSPACE : null;
+                if (paged != null) {
+                    Log.i(TAG, "Editing note with " + content.length() + " characters in " + paged.getPageCount() + " pages");
+                    showPagedContent(paged, textSize, typeface);
+                    return Unit.INSTANCE;
+                }
+
+                pagedContent = null;
                 binding.editContent.setMarkdownString(content);
-                binding.editContent.setEnabled(true);
-                binding.editContent.setTextSize(TypedValue.COMPLEX_UNIT_PX, getFontSizeFromPreferences(requireContext(), sp));
+                // Stays disabled until the content has been fetched
+                binding.editContent.setEnabled(!note.isContentStale());
+                binding.editContent.setTextSize(TypedValue.COMPLEX_UNIT_PX, textSize);
 
-                if (sp.getBoolean(getString(R.string.pref_key_font), false)) {
-                    binding.editContent.setTypeface(Typeface.MONOSPACE);
+                if (typeface != null) {
+                    binding.editContent.setTypeface(typeface);
                 }
 
                 if (lastSelection > 0 && binding.editContent.length() >= lastSelection) {
@@ -215,6 +256,34 @@ public class NoteEditFragment extends SearchableBaseNoteFragment {
         });
     }
 
+    /**
+     * Replaces the Markdown editor by a list of plain text fields, one per page, so only the visible pages get laid out.
+     * Markdown highlighting, formatting actions and search highlighting are not available for paged content.
+     */
+    private void showPagedContent(@NonNull PagedContent paged, float textSize, @Nullable Typeface typeface) {
+        pagedContent = paged;
+        binding.pagedContent.setAdapter(new PagedContentAdapter(paged, textSize, typeface, () -> {
+            // Offsets within a page are not known here
+            invalidateOccurrences();
+            onContentEdited();
+        }));
+        pagedContentScrollY = 0;
+        binding.pagedContent.clearOnScrollListeners();
+        binding.pagedContent.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                pagedContentScrollY += dy;
+                onScrollChanged(pagedContentScrollY, pagedContentScrollY - dy);
+            }
+        });
+        binding.pagedContent.setVisibility(View.VISIBLE);
+        // Keep it laid out as anchor for the direct editing button
+        binding.scrollView.setVisibility(View.INVISIBLE);
+        if (note != null) {
+            scrollToY(note.getScrollY());
+        }
+    }
+
     private void openSoftKeyboard() {
         binding.editContent.postDelayed(() -> {
             binding.editContent.requestFocus();
@@ -254,10 +323,28 @@ public class NoteEditFragment extends SearchableBaseNoteFragment {
      */
     @Override
     protected String getContent() {
+        if (pagedContent != null) {
+            return pagedContent.snapshot().get();
+        }
         final var editable = binding.editContent.getText();
         return editable == null ? "" : editable.toString();
     }
 
+    /**
+     * Paged content is only assembled on the writer thread, and not at all if no page has changed since the last snapshot.
+     */
+    @NonNull
+    @Override
+    protected Supplier<String> getContentSnapshot() {
+        if (pagedContent != null) {
+            if (pagedContent.isDirty()) {
+                Log.v(TAG, "Pages " + pagedContent.getDirtyFrom() + " to " + pagedContent.getDirtyTo() + " have been edited");
+            }
+            return pagedContent.snapshot();
+        }
+        return super.getContentSnapshot();
+    }
+
     @Override
     protected void saveNote(@Nullable ISyncCallback callback) {
         super.saveNote(callback);
@@ -295,7 +382,7 @@ public class NoteEditFragment extends SearchableBaseNoteFragment {
 
     @Override
     protected void colorWithText(@NonNull String newText, @Nullable Integer current, int color) {
-        if (binding != null && isAttachedToWindow(binding.editContent)) {
+        if (binding != null && pagedContent == null && isAttachedToWindow(binding.editContent)) {
             binding.editContent.clearFocus();
             binding.editContent.setSearchText(newText, current);
         }
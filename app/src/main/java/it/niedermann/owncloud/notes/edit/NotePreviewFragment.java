@@ -149,12 +149,14 @@ public class NotePreviewFragment extends SearchableBaseNoteFragment implements O
                 binding.singleNoteContent.setMarkdownString(content, setScrollY);
 
                 final var activity = getActivity();
-                if (activity == null) {
+                if (activity == null || note.isContentStale()) {
+                    // Toggling checkboxes is not possible until the content has been fetched
                     return Unit.INSTANCE;
                 }
 
                 binding.singleNoteContent.getMarkdownString().observe(activity, (newContent) -> {
                     changedText = newContent.toString();
+                    invalidateOccurrences();
                     saveNote(null);
                 });
                 return Unit.INSTANCE;
@@ -206,6 +208,7 @@ public class NotePreviewFragment extends SearchableBaseNoteFragment implements O
                         changedText = content;
 
                         onMainThread(() -> {
+                            invalidateOccurrences();
                             binding.singleNoteContent.setMarkdownString(content);
                             binding.swiperefreshlayout.setRefreshing(false);
                             return Unit.INSTANCE;
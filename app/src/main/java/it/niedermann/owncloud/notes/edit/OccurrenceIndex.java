@@ -0,0 +1,145 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.edit;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Offsets of all case insensitive, non overlapping occurrences of a search query in one version of a content.
+ * Computed once per query, so jumping to the next or previous occurrence does not need to scan the content again.
+ * Edits of the content can be applied by only scanning the edited region.
+ */
+public class OccurrenceIndex {
+
+    public static final OccurrenceIndex EMPTY = new OccurrenceIndex("", null, new int[0], 0);
+
+    @NonNull
+    private final String query;
+    @Nullable
+    private final Pattern pattern;
+    @NonNull
+    private final int[] offsets;
+    private final int size;
+
+    private OccurrenceIndex(@NonNull String query, @Nullable Pattern pattern, @NonNull int[] offsets, int size) {
+        this.query = query;
+        this.pattern = pattern;
+        this.offsets = offsets;
+        this.size = size;
+    }
+
+    @NonNull
+    @WorkerThread
+    public static OccurrenceIndex of(@NonNull CharSequence content, @NonNull String query) {
+        if (query.isEmpty()) {
+            return EMPTY;
+        }
+        final var pattern = compile(query);
+        final var offsets = new Builder();
+        final var matcher = pattern.matcher(content);
+        while (matcher.find()) {
+            offsets.add(matcher.start());
+        }
+        return offsets.build(query, pattern);
+    }
+
+    @NonNull
+    private static Pattern compile(@NonNull String query) {
+        return Pattern.compile(query, Pattern.CASE_INSENSITIVE | Pattern.LITERAL);
+    }
+
+    /**
+     * @return the amount of occurrences
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index zero based index of the occurrence
+     * @return the offset of the occurrence within the content
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for " + size + " occurrences");
+        }
+        return offsets[index];
+    }
+
+    /**
+     * Applies an edit which replaced <code>before</code> characters at <code>start</code> by <code>count</code> characters,
+     * like reported by {@link android.text.TextWatcher#onTextChanged(CharSequence, int, int, int)}.
+     * Occurrences in front of the edit are kept, occurrences behind it get shifted and only the edited region is scanned again.
+     *
+     * @param content the content after the edit
+     */
+    @NonNull
+    @MainThread
+    public OccurrenceIndex applyEdit(@NonNull CharSequence content, int start, int before, int count) {
+        if (pattern == null) {
+            return this;
+        }
+        final int delta = count - before;
+        final var result = new Builder();
+        int scanFrom = Math.max(0, start - query.length() + 1);
+        int i = 0;
+        // Occurrences which end in front of the edit are not affected
+        for (; i < size && offsets[i] + query.length() <= start; i++) {
+            result.add(offsets[i]);
+            scanFrom = Math.max(scanFrom, offsets[i] + query.length());
+        }
+        // Skip occurrences which overlapped the edited region
+        while (i < size && offsets[i] < start + before) {
+            i++;
+        }
+        // Behind the edit, a new occurrence can only start where a previous one overlapped it before,
+        // so without further occurrences behind the edit only its overlapping surrounding needs to be scanned
+        final int lastEnd = size == 0 ? 0 : offsets[size - 1] + query.length() + Math.max(delta, 0);
+        final int scanTo = Math.min(content.length(), Math.max(start + count, lastEnd) + query.length() - 1);
+        final var matcher = pattern.matcher(content);
+        matcher.region(Math.min(scanFrom, scanTo), scanTo);
+        while (matcher.find()) {
+            final int offset = matcher.start();
+            // Skip occurrences behind the edit which have not been found yet
+            while (i < size && offsets[i] + delta < offset) {
+                i++;
+            }
+            if (offset >= start + count && i < size && offsets[i] + delta == offset) {
+                // Behind the edit, the content and therefore all following occurrences are the same as before
+                for (; i < size; i++) {
+                    result.add(offsets[i] + delta);
+                }
+                break;
+            }
+            result.add(offset);
+        }
+        return result.build(query, pattern);
+    }
+
+    private static class Builder {
+        private int[] offsets = new int[16];
+        private int size = 0;
+
+        private void add(int offset) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            offsets[size++] = offset;
+        }
+
+        @NonNull
+        private OccurrenceIndex build(@NonNull String query, @NonNull Pattern pattern) {
+            return new OccurrenceIndex(query, pattern, offsets, size);
+        }
+    }
+}
@@ -8,6 +8,7 @@ package it.niedermann.owncloud.notes.edit;
 
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.Looper;
 import android.text.Layout;
 import android.text.TextUtils;
 import android.util.Log;
@@ -17,6 +18,7 @@ import android.view.ViewTreeObserver;
 
 import androidx.annotation.CallSuper;
 import androidx.annotation.ColorInt;
+import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.widget.SearchView;
@@ -30,11 +32,10 @@ import com.nextcloud.android.sso.exceptions.NoCurrentAccountSelectedException;
 import com.nextcloud.android.sso.helper.SingleAccountHelper;
 import com.nextcloud.android.sso.model.SingleSignOnAccount;
 
-import java.util.regex.Pattern;
-
 import it.niedermann.owncloud.notes.R;
 import it.niedermann.owncloud.notes.branding.BrandingUtil;
 import it.niedermann.owncloud.notes.persistence.entity.Account;
+import it.niedermann.owncloud.notes.persistence.entity.Note;
 import it.niedermann.owncloud.notes.shared.util.ExtendedFabUtil;
 
 public abstract class SearchableBaseNoteFragment extends BaseNoteFragment {
@@ -44,7 +45,16 @@ public abstract class SearchableBaseNoteFragment extends BaseNoteFragment {
     private static final String saved_instance_key_currentOccurrence = "currentOccurrence";
 
     private int currentOccurrence = 1;
-    private int occurrenceCount = 0;
+    /**
+     * Occurrences of the {@link #searchQuery} in the current content or <code>null</code> while they are being indexed or need to be indexed again
+     */
+    @Nullable
+    private OccurrenceIndex occurrences = OccurrenceIndex.EMPTY;
+    /**
+     * Incremented whenever a pending indexing of {@link #occurrences} got outdated
+     */
+    private long occurrencesGeneration = 0;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     private SearchView searchView;
     private String searchQuery = null;
     private static final int delay = 50; // If the search string does not change after $delay ms, then the search task starts.
@@ -162,12 +172,12 @@ public abstract class SearchableBaseNoteFragment extends BaseNoteFragment {
                     if (currentVisibility != View.VISIBLE) {
                         colorWithText("", null, color);
                         searchQuery = "";
+                        invalidateOccurrences();
                         hideSearchFabs();
                     } else {
-                        jumpToOccurrence();
                         colorWithText(searchQuery, null, color);
-                        occurrenceCount = countOccurrences(getContent(), searchQuery);
                         showSearchFabs();
+                        indexOccurrences(SearchableBaseNoteFragment.this::jumpToOccurrence);
                     }
 
                     oldVisibility = currentVisibility;
@@ -189,7 +199,6 @@ public abstract class SearchableBaseNoteFragment extends BaseNoteFragment {
 
         if (prev != null) {
             prev.setOnClickListener(v -> {
-                occurrenceCount = countOccurrences(getContent(), searchView.getQuery().toString());
                 currentOccurrence--;
                 jumpToOccurrence();
                 colorWithText(searchView.getQuery().toString(), currentOccurrence, color);
@@ -216,15 +225,16 @@ public abstract class SearchableBaseNoteFragment extends BaseNoteFragment {
 
             private void queryMatch(@NonNull String newText) {
                 searchQuery = newText;
-                occurrenceCount = countOccurrences(getContent(), searchQuery);
-                if (occurrenceCount > 1) {
-                    showSearchFabs();
-                } else {
-                    hideSearchFabs();
-                }
                 currentOccurrence = 1;
-                jumpToOccurrence();
                 colorWithText(searchQuery, currentOccurrence, color);
+                indexOccurrences(() -> {
+                    if (occurrences != null && occurrences.size() > 1) {
+                        showSearchFabs();
+                    } else {
+                        hideSearchFabs();
+                    }
+                    jumpToOccurrence();
+                });
             }
 
             private void queryWithHandler(@NonNull String newText) {
@@ -306,66 +316,96 @@ public abstract class SearchableBaseNoteFragment extends BaseNoteFragment {
         }
     }
 
+    @MainThread
     private void jumpToOccurrence() {
+        if (occurrences == null) {
+            // The content has changed in a way which could not be applied to the index
+            indexOccurrences(this::jumpToOccurrence);
+            return;
+        }
+        final int occurrenceCount = occurrences.size();
+        if (occurrenceCount == 0) {
+            return;
+        }
+        if (currentOccurrence < 1) {
+            // if currentOccurrence is lower than 1, jump to last occurrence
+            currentOccurrence = occurrenceCount;
+        } else if (currentOccurrence > occurrenceCount) {
+            // Go back to first search result
+            currentOccurrence = 1;
+        }
         final var layout = getLayout();
         if (layout == null) {
             Log.w(TAG, "getLayout() is null");
-        } else if (getContent() == null || getContent().isEmpty()) {
-            Log.w(TAG, "getContent is null or empty");
-        } else if (currentOccurrence < 1) {
-            // if currentOccurrence is lower than 1, jump to last occurrence
-            currentOccurrence = occurrenceCount;
-            jumpToOccurrence();
-        } else if (searchQuery != null && !searchQuery.isEmpty()) {
-            final String currentContent = getContent().toLowerCase();
-            final int indexOfNewText = indexOfNth(currentContent, searchQuery.toLowerCase(), 0, currentOccurrence);
-            if (indexOfNewText <= 0) {
-                // Search term is not n times in text
-                // Go back to first search result
-                if (currentOccurrence != 1) {
-                    currentOccurrence = 1;
-                    jumpToOccurrence();
-                }
-                return;
-            }
-            final String textUntilFirstOccurrence = currentContent.substring(0, indexOfNewText);
-            final int numberLine = layout.getLineForOffset(textUntilFirstOccurrence.length());
-
-            if (numberLine >= 0) {
-                final var scrollView = getScrollView();
-                if (scrollView != null) {
-                    scrollView.post(() -> scrollView.smoothScrollTo(0, layout.getLineTop(numberLine)));
-                }
+            return;
+        }
+        final int numberLine = layout.getLineForOffset(occurrences.get(currentOccurrence - 1));
+        if (numberLine >= 0) {
+            final var scrollView = getScrollView();
+            if (scrollView != null) {
+                scrollView.post(() -> scrollView.smoothScrollTo(0, layout.getLineTop(numberLine)));
             }
         }
     }
 
-    private static int indexOfNth(String input, String value, int startIndex, int nth) {
-        if (nth < 1)
-            throw new IllegalArgumentException("Param 'nth' must be greater than 0!");
-        if (nth == 1)
-            return input.indexOf(value, startIndex);
-        final int idx = input.indexOf(value, startIndex);
-        if (idx == -1)
-            return -1;
-        return indexOfNth(input, value, idx + 1, nth - 1);
+    /**
+     * Indexes the occurrences of the current {@link #searchQuery} in a background thread.
+     *
+     * @param then will be called on the main thread once the {@link #occurrences} are available, unless the index got outdated meanwhile
+     */
+    @MainThread
+    private void indexOccurrences(@NonNull Runnable then) {
+        final long generation = ++occurrencesGeneration;
+        final var query = searchQuery;
+        if (TextUtils.isEmpty(query)) {
+            occurrences = OccurrenceIndex.EMPTY;
+            then.run();
+            return;
+        }
+        // Occurrences of a previous query must neither be used nor edited meanwhile
+        occurrences = null;
+        final var content = getContentSnapshot();
+        executor.execute(() -> {
+            final var index = OccurrenceIndex.of(content.get(), query);
+            mainHandler.post(() -> {
+                if (generation == occurrencesGeneration && isAdded()) {
+                    occurrences = index;
+                    then.run();
+                }
+            });
+        });
     }
 
-    private static int countOccurrences(String haystack, String needle) {
-        if (haystack == null || haystack.isEmpty() || needle == null || needle.isEmpty()) {
-            return 0;
+    /**
+     * Must be called on every edit of the content, like {@link android.text.TextWatcher#onTextChanged(CharSequence, int, int, int)}.
+     * Only the edited region gets searched for occurrences again.
+     */
+    @MainThread
+    protected void onContentChanged(@NonNull CharSequence content, int start, int before, int count) {
+        if (occurrences == null) {
+            // A pending indexing does not know about this edit
+            invalidateOccurrences();
+            return;
         }
-        // Use regrex which is faster before.
-        // Such that the main thread will not stop for a long tilme
-        // And so there will not an ANR problem
-        final var matcher = Pattern.compile(needle, Pattern.CASE_INSENSITIVE | Pattern.LITERAL)
-                .matcher(haystack);
-
-        int count = 0;
-        while (matcher.find()) {
-            count++;
+        if (occurrences == OccurrenceIndex.EMPTY && TextUtils.isEmpty(searchQuery)) {
+            return;
         }
-        return count;
+        occurrences = occurrences.applyEdit(content, start, before, count);
+    }
+
+    /**
+     * Must be called whenever the content changed without knowing the edited region.
+     */
+    @MainThread
+    protected void invalidateOccurrences() {
+        occurrencesGeneration++;
+        occurrences = null;
+    }
+
+    @Override
+    protected void onNoteLoaded(Note note) {
+        super.onNoteLoaded(note);
+        invalidateOccurrences();
     }
 
     @CallSuper
@@ -0,0 +1,181 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.edit.paged;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Content of a huge note, split into pages which can be edited independently of each other.
+ * Editing one page only replaces this page, so the whole content does not need to be copied on every key stroke.
+ * The pages which have been changed since the last {@link #snapshot()} are tracked as dirty range.
+ */
+public class PagedContent {
+
+    /**
+     * Notes which are longer than this are edited page by page.
+     */
+    public static final int LARGE_NOTE_THRESHOLD = 256 * 1024;
+
+    /**
+     * Maximum length of a page, unless a single line is longer.
+     */
+    public static final int PAGE_LENGTH = 8 * 1024;
+
+    @NonNull
+    private final List<String> pages;
+    private int dirtyFrom = -1;
+    private int dirtyTo = -1;
+    @Nullable
+    private Snapshot lastSnapshot;
+
+    private PagedContent(@NonNull List<String> pages) {
+        this.pages = pages;
+    }
+
+    /**
+     * Splits the <code>content</code> preferably after line breaks, so each page is at most <code>pageLength</code> long.
+     * Lines which are longer than <code>pageLength</code> are split without regard to the line break.
+     */
+    @NonNull
+    @WorkerThread
+    public static PagedContent of(@NonNull String content, int pageLength) {
+        final int length = content.length();
+        final var pages = new ArrayList<String>(length / pageLength + 1);
+        int start = 0;
+        while (length - start > pageLength) {
+            int end = content.lastIndexOf('\n', start + pageLength - 1) + 1;
+            if (end <= start) {
+                end = start + pageLength;
+                if (Character.isHighSurrogate(content.charAt(end - 1))) {
+                    end--;
+                }
+            }
+            pages.add(content.substring(start, end));
+            start = end;
+        }
+        pages.add(content.substring(start));
+        final var pagedContent = new PagedContent(pages);
+        pagedContent.lastSnapshot = new Snapshot(pages.toArray(new String[0]), length, content);
+        return pagedContent;
+    }
+
+    @MainThread
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    @NonNull
+    @MainThread
+    public String getPage(int index) {
+        return pages.get(index);
+    }
+
+    /**
+     * Replaces the page at <code>index</code> and adds it to the dirty range.
+     */
+    @MainThread
+    public void setPage(int index, @NonNull String page) {
+        if (page.equals(pages.get(index))) {
+            return;
+        }
+        pages.set(index, page);
+        if (dirtyFrom < 0) {
+            dirtyFrom = index;
+            dirtyTo = index;
+        } else {
+            dirtyFrom = Math.min(dirtyFrom, index);
+            dirtyTo = Math.max(dirtyTo, index);
+        }
+    }
+
+    @MainThread
+    public boolean isDirty() {
+        return dirtyFrom >= 0;
+    }
+
+    /**
+     * @return index of the first changed page since the last {@link #snapshot()} or <code>-1</code> if nothing changed
+     */
+    @MainThread
+    public int getDirtyFrom() {
+        return dirtyFrom;
+    }
+
+    /**
+     * @return index of the last changed page since the last {@link #snapshot()} or <code>-1</code> if nothing changed
+     */
+    @MainThread
+    public int getDirtyTo() {
+        return dirtyTo;
+    }
+
+    /**
+     * Only copies the page references, the content itself is assembled when {@link Snapshot#get()} gets called, e.g. on a writer thread.
+     * If nothing changed since the last snapshot, the last snapshot is returned, so the assembled content can be reused.
+     */
+    @NonNull
+    @MainThread
+    public Snapshot snapshot() {
+        if (lastSnapshot == null || isDirty()) {
+            final var pageArray = pages.toArray(new String[0]);
+            int length = 0;
+            for (final var page : pageArray) {
+                length += page.length();
+            }
+            lastSnapshot = new Snapshot(pageArray, length, null);
+            dirtyFrom = -1;
+            dirtyTo = -1;
+        }
+        return lastSnapshot;
+    }
+
+    /**
+     * Immutable state of a {@link PagedContent}, which assembles the whole content only once when needed.
+     */
+    public static class Snapshot implements Supplier<String> {
+
+        @NonNull
+        private final String[] pages;
+        private final int length;
+        @Nullable
+        private volatile String content;
+
+        private Snapshot(@NonNull String[] pages, int length, @Nullable String content) {
+            this.pages = pages;
+            this.length = length;
+            this.content = content;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        @NonNull
+        @Override
+        @AnyThread
+        public String get() {
+            var result = content;
+            if (result == null) {
+                final var builder = new StringBuilder(length);
+                for (final var page : pages) {
+                    builder.append(page);
+                }
+                result = builder.toString();
+                content = result;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.edit.paged;
+
+import android.graphics.Typeface;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.util.TypedValue;
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import it.niedermann.owncloud.notes.databinding.ItemNotePageBinding;
+
+/**
+ * Shows each page of a {@link PagedContent} in its own plain text field, so only the visible pages need to be laid out.
+ */
+public class PagedContentAdapter extends RecyclerView.Adapter<PagedContentAdapter.PageViewHolder> {
+
+    @NonNull
+    private final PagedContent content;
+    private final float textSizePx;
+    @Nullable
+    private final Typeface typeface;
+    @NonNull
+    private final Runnable onPageEdited;
+
+    public PagedContentAdapter(@NonNull PagedContent content, float textSizePx, @Nullable Typeface typeface, @NonNull Runnable onPageEdited) {
+        this.content = content;
+        this.textSizePx = textSizePx;
+        this.typeface = typeface;
+        this.onPageEdited = onPageEdited;
+    }
+
+    @NonNull
+    @Override
+    public PageViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        final var holder = new PageViewHolder(ItemNotePageBinding.inflate(LayoutInflater.from(parent.getContext()), parent, false));
+        holder.binding.page.setTextSize(TypedValue.COMPLEX_UNIT_PX, textSizePx);
+        if (typeface != null) {
+            holder.binding.page.setTypeface(typeface);
+        }
+        holder.binding.page.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+                // Nothing to do here...
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+                // Nothing to do here...
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                final int position = holder.getBindingAdapterPosition();
+                if (!holder.bindingInProgress && position != RecyclerView.NO_POSITION) {
+                    // Only copies this one page
+                    content.setPage(position, s.toString());
+                    onPageEdited.run();
+                }
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull PageViewHolder holder, int position) {
+        holder.bindingInProgress = true;
+        holder.binding.page.setText(content.getPage(position));
+        holder.bindingInProgress = false;
+    }
+
+    @Override
+    public int getItemCount() {
+        return content.getPageCount();
+    }
+
+    public static class PageViewHolder extends RecyclerView.ViewHolder {
+
+        @NonNull
+        private final ItemNotePageBinding binding;
+        /**
+         * Suppresses change events while the text of a recycled view gets replaced
+         */
+        private boolean bindingInProgress = false;
+
+        private PageViewHolder(@NonNull ItemNotePageBinding binding) {
+            super(binding.getRoot());
+            this.binding = binding;
+        }
+    }
+}
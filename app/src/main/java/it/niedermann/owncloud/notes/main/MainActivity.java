@@ -49,6 +49,7 @@ import androidx.core.splashscreen.SplashScreen;
 import androidx.core.view.GravityCompat;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.LoadState;
 import androidx.preference.PreferenceManager;
 import androidx.recyclerview.selection.SelectionTracker;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -79,6 +80,7 @@ import com.owncloud.android.lib.common.utils.Log_OC;
 import org.jetbrains.annotations.NotNull;
 
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -101,6 +103,7 @@ import it.niedermann.owncloud.notes.exception.ExceptionDialogFragment;
 import it.niedermann.owncloud.notes.exception.IntendedOfflineException;
 import it.niedermann.owncloud.notes.importaccount.ImportAccountActivity;
 import it.niedermann.owncloud.notes.main.items.ItemAdapter;
+import it.niedermann.owncloud.notes.main.items.ItemViewPool;
 import it.niedermann.owncloud.notes.main.items.grid.GridItemDecoration;
 import it.niedermann.owncloud.notes.main.items.list.NotesListViewItemTouchHelper;
 import it.niedermann.owncloud.notes.main.items.section.SectionItemDecoration;
@@ -144,6 +147,7 @@ public class MainActivity extends LockedActivity implements NoteClickListener, A
     private static final int REQUEST_CODE_SERVER_SETTINGS = 1;
 
     protected ItemAdapter adapter;
+    private final ItemViewPool itemViewPool = new ItemViewPool();
     private NavigationAdapter adapterCategories;
     @Nullable
     private MenuAdapter menuAdapter;
@@ -256,31 +260,30 @@ public class MainActivity extends LockedActivity implements NoteClickListener, A
                 startActivityForResult(createIntent, REQUEST_CODE_CREATE_NOTE);
             });
         });
-        mainViewModel.getNotesListLiveData().observe(this, notes -> {
-            // https://stackoverflow.com/a/37342327
-            itemTouchHelper.attachToRecyclerView(null);
-            itemTouchHelper.attachToRecyclerView(listView);
-            adapter.setItemList(notes);
+        mainViewModel.getNotesListLiveData().observe(this, notes -> adapter.setItemList(getLifecycle(), notes));
+        adapter.addLoadStateListener(loadStates -> {
+            if (loadStates.getRefresh() instanceof LoadState.Loading) {
+                return;
+            }
             binding.activityNotesListView.progressCircular.setVisibility(GONE);
-            binding.activityNotesListView.emptyContentView.getRoot().setVisibility(notes.size() > 0 ? GONE : VISIBLE);
-            // Remove deleted notes from the selection
+            binding.activityNotesListView.emptyContentView.getRoot().setVisibility(adapter.getItemCount() > 0 ? GONE : VISIBLE);
+            // Remove deleted notes from the selection, the loaded pages do not necessarily contain all selected notes
             if (tracker.hasSelection()) {
-                final var deletedNotes = new LinkedList<Long>();
+                final var selection = new ArrayList<Long>(tracker.getSelection().size());
                 for (final var id : tracker.getSelection()) {
-                    if (notes
-                            .stream()
-                            .filter(item -> !item.isSection())
-                            .map(item -> (Note) item)
-                            .noneMatch(item -> item.getId() == id)) {
-                        deletedNotes.add(id);
-                    }
-                }
-                for (final var id : deletedNotes) {
-                    tracker.deselect(id);
+                    selection.add(id);
                 }
+                final var existingIds$ = mainViewModel.getExistingNoteIds(selection);
+                existingIds$.observe(this, existingIds -> {
+                    existingIds$.removeObservers(this);
+                    for (final var id : selection) {
+                        if (!existingIds.contains(id)) {
+                            tracker.deselect(id);
+                        }
+                    }
+                });
             }
         });
-        mainViewModel.getSearchTerm().observe(this, adapter::setHighlightSearchQuery);
         mainViewModel.getCategorySortingMethodOfSelectedCategory().observe(this, methodOfCategory -> {
             updateSortMethodIcon(methodOfCategory.second);
             activityBinding.searchBar.sortingMethod.setOnClickListener((v) -> {
@@ -458,6 +461,18 @@ public class MainActivity extends LockedActivity implements NoteClickListener, A
         alertDialogBuilder.show();
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        itemViewPool.prewarm(listView);
+    }
+
+    @Override
+    protected void onStop() {
+        itemViewPool.cancelPrewarm();
+        super.onStop();
+    }
+
     @Override
     protected void onResume() {
         final var accountLiveData = mainViewModel.getCurrentAccount();
@@ -548,6 +563,7 @@ public class MainActivity extends LockedActivity implements NoteClickListener, A
 
     private void setupNotesList() {
         adapter = new ItemAdapter(this, gridView);
+        listView.setRecycledViewPool(itemViewPool);
         listView.setAdapter(adapter);
         listView.setItemAnimator(null);
         if (gridView) {
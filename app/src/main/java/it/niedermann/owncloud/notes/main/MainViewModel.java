@@ -9,13 +9,11 @@ package it.niedermann.owncloud.notes.main;
 import static androidx.lifecycle.Transformations.distinctUntilChanged;
 import static androidx.lifecycle.Transformations.map;
 import static androidx.lifecycle.Transformations.switchMap;
-import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 import static it.niedermann.owncloud.notes.main.MainActivity.ADAPTER_KEY_RECENT;
 import static it.niedermann.owncloud.notes.main.MainActivity.ADAPTER_KEY_STARRED;
-import static it.niedermann.owncloud.notes.main.slots.SlotterUtil.fillListByCategory;
-import static it.niedermann.owncloud.notes.main.slots.SlotterUtil.fillListByInitials;
-import static it.niedermann.owncloud.notes.main.slots.SlotterUtil.fillListByTime;
-import static it.niedermann.owncloud.notes.shared.model.CategorySortingMethod.SORT_LEXICOGRAPHICAL_DESC;
+import static it.niedermann.owncloud.notes.main.slots.SlotterUtil.getSectionByCategory;
+import static it.niedermann.owncloud.notes.main.slots.SlotterUtil.getSectionByInitials;
+import static it.niedermann.owncloud.notes.main.slots.SlotterUtil.getSectionByTime;
 import static it.niedermann.owncloud.notes.shared.model.CategorySortingMethod.SORT_MODIFIED_DESC;
 import static it.niedermann.owncloud.notes.shared.model.ENavigationCategoryType.DEFAULT_CATEGORY;
 import static it.niedermann.owncloud.notes.shared.model.ENavigationCategoryType.FAVORITES;
@@ -38,10 +36,14 @@ import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.SavedStateHandle;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingDataTransforms;
+import androidx.paging.PagingLiveData;
 
 import com.nextcloud.android.sso.AccountImporter;
 import com.nextcloud.android.sso.exceptions.NextcloudFilesAppAccountNotFoundException;
-import com.nextcloud.android.sso.exceptions.NextcloudHttpRequestFailedException;
 import com.nextcloud.android.sso.exceptions.UnknownErrorException;
 import com.nextcloud.android.sso.helper.SingleAccountHelper;
 import com.owncloud.android.lib.common.utils.Log_OC;
@@ -60,7 +62,9 @@ import it.niedermann.owncloud.notes.R;
 import it.niedermann.owncloud.notes.branding.BrandingUtil;
 import it.niedermann.owncloud.notes.exception.IntendedOfflineException;
 import it.niedermann.owncloud.notes.main.navigation.NavigationAdapter;
+import it.niedermann.owncloud.notes.main.items.section.SectionItem;
 import it.niedermann.owncloud.notes.main.navigation.NavigationItem;
+import it.niedermann.owncloud.notes.main.slots.Timeslotter;
 import it.niedermann.owncloud.notes.persistence.ApiProvider;
 import it.niedermann.owncloud.notes.persistence.CapabilitiesClient;
 import it.niedermann.owncloud.notes.persistence.NotesRepository;
@@ -74,11 +78,17 @@ import it.niedermann.owncloud.notes.shared.model.IResponseCallback;
 import it.niedermann.owncloud.notes.shared.model.ImportStatus;
 import it.niedermann.owncloud.notes.shared.model.Item;
 import it.niedermann.owncloud.notes.shared.model.NavigationCategory;
+import it.niedermann.owncloud.notes.shared.model.SearchHighlights;
 
 public class MainViewModel extends AndroidViewModel {
 
     private static final String TAG = MainViewModel.class.getSimpleName();
 
+    /**
+     * Number of {@link Note}s which are loaded at once, also used as prefetch distance.
+     */
+    private static final int NOTES_LIST_PAGE_SIZE = 50;
+
     private final ExecutorService executor = Executors.newCachedThreadPool();
 
     private final SavedStateHandle state;
@@ -215,11 +225,15 @@ public class MainViewModel extends AndroidViewModel {
         return distinctUntilChanged(expandedCategory);
     }
 
+    /**
+     * Emits a new {@link PagingData} whenever the account, the category, the search term or the sorting method changes.
+     * Only the currently needed pages of {@link Note}s are loaded from the database, the {@link SectionItem}s get inserted as separators between them.
+     */
     @NonNull
     @MainThread
-    public LiveData<List<Item>> getNotesListLiveData() {
-        final var insufficientInformation = new MutableLiveData<List<Item>>();
-        return distinctUntilChanged(switchMap(getCurrentAccount(), currentAccount -> {
+    public LiveData<PagingData<Item>> getNotesListLiveData() {
+        final var insufficientInformation = new MutableLiveData<PagingData<Item>>();
+        return PagingLiveData.cachedIn(switchMap(getCurrentAccount(), currentAccount -> {
             Log.v(TAG, "[getNotesListLiveData] - currentAccount: " + currentAccount);
             if (currentAccount == null) {
                 return insufficientInformation;
@@ -233,66 +247,49 @@ public class MainViewModel extends AndroidViewModel {
                             Log.v(TAG, "[getNotesListLiveData] - searchTerm: " + (BuildConfig.DEBUG ? "******" : searchTerm));
                             return switchMap(getCategorySortingMethodOfSelectedCategory(), sortingMethod -> {
                                 final long accountId = currentAccount.getId();
-                                final String searchQueryOrWildcard = searchTerm == null ? "%" : "%" + searchTerm.trim() + "%";
                                 Log.v(TAG, "[getNotesListLiveData] - sortMethod: " + sortingMethod.second);
-                                final LiveData<List<Note>> fromDatabase;
-                                switch (selectedCategory.getType()) {
-                                    case RECENT -> {
-                                        Log.v(TAG, "[getNotesListLiveData] - category: " + RECENT);
-                                        fromDatabase = sortingMethod.second == SORT_MODIFIED_DESC
-                                                ? repo.searchRecentByModified$(accountId, searchQueryOrWildcard)
-                                                : repo.searchRecentLexicographically$(accountId, searchQueryOrWildcard);
-                                    }
-                                    case FAVORITES -> {
-                                        Log.v(TAG, "[getNotesListLiveData] - category: " + FAVORITES);
-                                        fromDatabase = sortingMethod.second == SORT_MODIFIED_DESC
-                                                ? repo.searchFavoritesByModified$(accountId, searchQueryOrWildcard)
-                                                : repo.searchFavoritesLexicographically$(accountId, searchQueryOrWildcard);
-                                    }
-                                    case UNCATEGORIZED -> {
-                                        Log.v(TAG, "[getNotesListLiveData] - category: " + UNCATEGORIZED);
-                                        fromDatabase = sortingMethod.second == SORT_MODIFIED_DESC
-                                                ? repo.searchUncategorizedByModified$(accountId, searchQueryOrWildcard)
-                                                : repo.searchUncategorizedLexicographically$(accountId, searchQueryOrWildcard);
-                                    }
-                                    default -> {
-                                        final String category = selectedCategory.getCategory();
-                                        if (category == null) {
-                                            throw new IllegalStateException(NavigationCategory.class.getSimpleName() + " type is " + DEFAULT_CATEGORY + ", but category is null.");
-                                        }
-                                        Log.v(TAG, "[getNotesListLiveData] - category: " + category);
-                                        fromDatabase = sortingMethod.second == SORT_MODIFIED_DESC
-                                                ? repo.searchCategoryByModified$(accountId, searchQueryOrWildcard, category)
-                                                : repo.searchCategoryLexicographically$(accountId, searchQueryOrWildcard, category);
-                                    }
-                                }
-
                                 Log.v(TAG, "[getNotesListLiveData] - -------------------------------------");
-                                return distinctUntilChanged(map(fromDatabase, noteList -> fromNotes(noteList, selectedCategory, sortingMethod.second)));
+                                final var pager = new Pager<>(
+                                        new PagingConfig(NOTES_LIST_PAGE_SIZE, NOTES_LIST_PAGE_SIZE, false),
+                                        () -> repo.searchNotesPaged(accountId, selectedCategory, sortingMethod.second, searchTerm));
+                                return map(PagingLiveData.getLiveData(pager), notes -> insertSections(highlight(notes, searchTerm), selectedCategory, sortingMethod.second));
                             });
                         });
                     }
                 });
             }
-        }));
+        }), this);
     }
 
-    private List<Item> fromNotes(List<Note> noteList, @NonNull NavigationCategory selectedCategory, @Nullable CategorySortingMethod sortingMethod) {
-        if(sortingMethod == SORT_LEXICOGRAPHICAL_DESC){
-            Collections.reverse(noteList);
+    /**
+     * Calculates the matches of the <code>searchTerm</code> in the background, so the list does not need to search them again whenever an item is bound.
+     */
+    @NonNull
+    private PagingData<Note> highlight(@NonNull PagingData<Note> notes, @Nullable String searchTerm) {
+        if (TextUtils.isEmpty(searchTerm)) {
+            return notes;
         }
+        return PagingDataTransforms.map(notes, executor, note -> {
+            note.setSearchHighlights(SearchHighlights.of(note, searchTerm));
+            return note;
+        });
+    }
+
+    @NonNull
+    private PagingData<Item> insertSections(@NonNull PagingData<Note> notes, @NonNull NavigationCategory selectedCategory, @Nullable CategorySortingMethod sortingMethod) {
         if (selectedCategory.getType() == DEFAULT_CATEGORY) {
             final String category = selectedCategory.getCategory();
             if (category != null) {
-                return fillListByCategory(noteList, category);
+                return PagingDataTransforms.insertSeparators(notes, executor, (before, after) -> getSectionByCategory(before, after, category));
             } else {
                 throw new IllegalStateException(NavigationCategory.class.getSimpleName() + " type is " + DEFAULT_CATEGORY + ", but category is null.");
             }
         }
         if (sortingMethod == SORT_MODIFIED_DESC) {
-            return fillListByTime(getApplication(), noteList);
+            final var timeslotter = new Timeslotter(getApplication());
+            return PagingDataTransforms.insertSeparators(notes, executor, (before, after) -> getSectionByTime(timeslotter, before, after));
         }
-        return fillListByInitials(getApplication(), noteList);
+        return PagingDataTransforms.insertSeparators(notes, executor, (before, after) -> getSectionByInitials(getApplication(), before, after));
     }
 
     @NonNull
@@ -306,15 +303,10 @@ public class MainViewModel extends AndroidViewModel {
                 Log.v(TAG, "[getNavigationCategories] - currentAccount: " + currentAccount.getAccountName());
                 return switchMap(getExpandedCategory(), expandedCategory -> {
                     Log.v(TAG, "[getNavigationCategories] - expandedCategory: " + expandedCategory);
-                    return switchMap(repo.count$(currentAccount.getId()), (count) -> {
-                        Log.v(TAG, "[getNavigationCategories] - count: " + count);
-                        return switchMap(repo.countFavorites$(currentAccount.getId()), (favoritesCount) -> {
-                            Log.v(TAG, "[getNavigationCategories] - favoritesCount: " + favoritesCount);
-                            return distinctUntilChanged(map(repo.getCategories$(currentAccount.getId()), fromDatabase ->
-                                    fromCategoriesWithNotesCount(getApplication(), expandedCategory, fromDatabase, count, favoritesCount)
-                            ));
-                        });
-                    });
+                    return distinctUntilChanged(map(repo.getNavigationCounts$(currentAccount.getId()), counts -> {
+                        Log.v(TAG, "[getNavigationCategories] - count: " + counts.getTotal() + ", favoritesCount: " + counts.getFavorites());
+                        return fromCategoriesWithNotesCount(getApplication(), expandedCategory, counts.getCategories(), counts.getTotal(), counts.getFavorites());
+                    }));
                 });
             }
         });
@@ -412,7 +404,12 @@ public class MainViewModel extends AndroidViewModel {
                 try {
                     final var ssoAccount = AccountImporter.getSingleSignOnAccount(getApplication(), localAccount.getAccountName());
                     try {
-                        final var capabilities = CapabilitiesClient.getCapabilities(getApplication(), ssoAccount, localAccount.getCapabilitiesETag(), ApiProvider.getInstance());
+                        final var capabilities = CapabilitiesClient.getCapabilitiesIfModified(getApplication(), ssoAccount, localAccount.getCapabilitiesETag(), ApiProvider.getInstance());
+                        if (capabilities == null) {
+                            Log.d(TAG, "Capabilities not modified.");
+                            callback.onSuccess(null);
+                            return;
+                        }
                         repo.updateCapabilitiesETag(localAccount.getId(), capabilities.getETag());
                         repo.updateBrand(localAccount.getId(), capabilities.getColor());
                         localAccount.setColor(capabilities.getColor());
@@ -421,13 +418,6 @@ public class MainViewModel extends AndroidViewModel {
                         repo.updateDirectEditingAvailable(localAccount.getId(), capabilities.isDirectEditingAvailable());
                         callback.onSuccess(null);
                     } catch (Throwable t) {
-                        if (t.getClass() == NextcloudHttpRequestFailedException.class || t instanceof NextcloudHttpRequestFailedException) {
-                            if (((NextcloudHttpRequestFailedException) t).getStatusCode() == HTTP_NOT_MODIFIED) {
-                                Log.d(TAG, "Server returned HTTP Status Code " + ((NextcloudHttpRequestFailedException) t).getStatusCode() + " - Capabilities not modified.");
-                                callback.onSuccess(null);
-                                return;
-                            }
-                        }
                         callback.onError(t);
                     }
                 } catch (NextcloudFilesAppAccountNotFoundException e) {
@@ -458,7 +448,8 @@ public class MainViewModel extends AndroidViewModel {
 
                 try {
                     final var ssoAccount = AccountImporter.getSingleSignOnAccount(context, currentAccount.getAccountName());
-                    CapabilitiesClient.getCapabilities(context, ssoAccount, null, ApiProvider.getInstance());
+                    // Usually answered from the cache, since synchronizeCapabilities() just asked the server
+                    CapabilitiesClient.getCapabilitiesIfModified(context, ssoAccount, currentAccount.getCapabilitiesETag(), ApiProvider.getInstance());
                 } catch (Throwable t) {
                     Log_OC.e(TAG, t.getMessage());
                 }
@@ -502,9 +493,9 @@ public class MainViewModel extends AndroidViewModel {
                 return new MutableLiveData<>(null);
             } else {
                 Log.v(TAG, "[setCategory] - currentAccount: " + currentAccount.getAccountName());
-                for (Long noteId : noteIds) {
-                    repo.setCategory(currentAccount, noteId, category);
-                }
+                final var ids = new ArrayList<Long>();
+                noteIds.forEach(ids::add);
+                repo.setCategory(currentAccount, ids, category);
                 return new MutableLiveData<>(null);
             }
         });
@@ -522,12 +513,27 @@ public class MainViewModel extends AndroidViewModel {
 
         if (currentAccount != null) {
             Log.v(TAG, "[toggleFavoriteAndSync] - currentAccount: " + currentAccount.getAccountName());
-            repo.toggleFavoriteAndSync(currentAccount, note);
+            repo.setFavoriteAndSync(currentAccount, note.getId(), !note.getFavorite());
         }
 
         return new MutableLiveData<>(null);
     }
 
+    /**
+     * Marks all {@param ids} as favorite, or removes them from the favorites in case all of them are favorites already.
+     */
+    public LiveData<Void> toggleFavoritesAndSync(@NonNull Collection<Long> ids) {
+        return switchMap(getCurrentAccount(), currentAccount -> {
+            if (currentAccount == null) {
+                return new MutableLiveData<>(null);
+            } else {
+                Log.v(TAG, "[toggleFavoritesAndSync] - currentAccount: " + currentAccount.getAccountName());
+                executor.submit(() -> repo.setFavoriteAndSync(currentAccount, ids, !repo.areFavorites(ids)));
+                return new MutableLiveData<>(null);
+            }
+        });
+    }
+
     public LiveData<Void> deleteNoteAndSync(long id) {
         return switchMap(getCurrentAccount(), currentAccount -> {
             if (currentAccount == null) {
@@ -546,14 +552,23 @@ public class MainViewModel extends AndroidViewModel {
                 return new MutableLiveData<>(null);
             } else {
                 Log.v(TAG, "[deleteNotesAndSync] - currentAccount: " + currentAccount.getAccountName());
-                for (final var id : ids) {
-                    repo.deleteNoteAndSync(currentAccount, id);
-                }
+                repo.deleteNotesAndSync(currentAccount, ids);
                 return new MutableLiveData<>(null);
             }
         });
     }
 
+    public LiveData<List<Long>> restoreNotesAndSync(@NonNull List<Note> notes) {
+        return switchMap(getCurrentAccount(), currentAccount -> {
+            if (currentAccount == null) {
+                return new MutableLiveData<>();
+            } else {
+                Log.v(TAG, "[restoreNotesAndSync] - currentAccount: " + currentAccount.getAccountName());
+                return repo.restoreNotesAndSync(currentAccount, notes);
+            }
+        });
+    }
+
     public LiveData<ImportStatus> addAccount(@NonNull String url, @NonNull String username, @NonNull String accountName, @NonNull Capabilities capabilities, @Nullable String displayName, @NonNull IResponseCallback<Account> callback) {
         return repo.addAccount(url, username, accountName, capabilities, displayName, callback);
     }
@@ -567,6 +582,12 @@ public class MainViewModel extends AndroidViewModel {
         return repo.getNoteById(id);
     }
 
+    public LiveData<List<Long>> getExistingNoteIds(@NonNull Collection<Long> ids) {
+        final var existingIds = new MutableLiveData<List<Long>>();
+        executor.submit(() -> existingIds.postValue(repo.getExistingNoteIds(ids)));
+        return existingIds;
+    }
+
     public LiveData<List<Note>> getFullNotesWithCategory(@NonNull Collection<Long> ids) {
         return switchMap(getCurrentAccount(), currentAccount -> {
             if (currentAccount == null) {
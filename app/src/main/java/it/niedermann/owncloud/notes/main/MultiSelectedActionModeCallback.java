@@ -130,10 +130,8 @@ public class MultiSelectedActionModeCallback implements Callback {
                 BrandedSnackbar.make(view, deletedSnackbarTitle, Snackbar.LENGTH_LONG)
                         .setAnchorView(anchorView)
                         .setAction(R.string.action_undo, (View v) -> {
-                            for (final var deletedNote : fullNotes) {
-                                final var undoLiveData = mainViewModel.addNoteAndSync(deletedNote);
-                                undoLiveData.observe(lifecycleOwner, (o) -> undoLiveData.removeObservers(lifecycleOwner));
-                            }
+                            final var undoLiveData = mainViewModel.restoreNotesAndSync(fullNotes);
+                            undoLiveData.observe(lifecycleOwner, (o) -> undoLiveData.removeObservers(lifecycleOwner));
                             String restoreSnackbarTitle = fullNotes.size() == 1
                                     ? context.getString(R.string.action_note_restored, fullNotes.get(0).getTitle())
                                     : context.getResources().getQuantityString(R.plurals.bulk_notes_restored, fullNotes.size(), fullNotes.size());
@@ -144,6 +142,15 @@ public class MultiSelectedActionModeCallback implements Callback {
                         .show();
             });
             return true;
+        } else if (itemId == R.id.menu_favorite) {
+            final var selection = new ArrayList<Long>(tracker.getSelection().size());
+            for (final var sel : tracker.getSelection()) {
+                selection.add(sel);
+            }
+            tracker.clearSelection();
+            final var toggleLiveData = mainViewModel.toggleFavoritesAndSync(selection);
+            toggleLiveData.observe(lifecycleOwner, (next) -> toggleLiveData.removeObservers(lifecycleOwner));
+            return true;
         } else if (itemId == R.id.menu_move) {
             final var currentAccount$ = mainViewModel.getCurrentAccount();
             currentAccount$.observe(lifecycleOwner, account -> {
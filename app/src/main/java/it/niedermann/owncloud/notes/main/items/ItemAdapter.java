@@ -6,9 +6,9 @@
  */
 package it.niedermann.owncloud.notes.main.items;
 
+import static com.nextcloud.android.common.ui.util.PlatformThemeUtil.isDarkMode;
 import static it.niedermann.owncloud.notes.shared.util.NoteUtil.getFontSizeFromPreferences;
 
-import android.annotation.SuppressLint;
 import android.content.Context;
 import android.os.Handler;
 import android.os.Looper;
@@ -24,15 +24,17 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.Px;
 import androidx.core.content.ContextCompat;
+import androidx.core.util.Consumer;
+import androidx.lifecycle.Lifecycle;
+import androidx.paging.AsyncPagingDataDiffer;
+import androidx.paging.CombinedLoadStates;
+import androidx.paging.PagingData;
 import androidx.preference.PreferenceManager;
 import androidx.recyclerview.selection.SelectionTracker;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.card.MaterialCardView;
-import com.nextcloud.android.common.ui.theme.utils.ColorRole;
-
-import java.util.ArrayList;
-import java.util.List;
 
 import it.niedermann.owncloud.notes.R;
 import it.niedermann.owncloud.notes.branding.Branded;
@@ -49,6 +51,7 @@ import it.niedermann.owncloud.notes.main.items.section.SectionViewHolder;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
 import it.niedermann.owncloud.notes.shared.model.Item;
 import it.niedermann.owncloud.notes.shared.model.NoteClickListener;
+import kotlin.Unit;
 
 public class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> implements Branded {
 
@@ -59,16 +62,25 @@ public class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> i
 
     private final NoteClickListener noteClickListener;
     private final boolean gridView;
+    /**
+     * Payload for {@link #notifyItemRangeChanged(int, int, Object)} when only the presentation of the {@link Item}s changed, so the {@link RecyclerView} rebinds without running change animations.
+     */
+    private static final Object PAYLOAD_PRESENTATION = new Object();
+
     @NonNull
-    private final List<Item> itemList = new ArrayList<>();
+    private final AsyncPagingDataDiffer<Item> differ = new AsyncPagingDataDiffer<>(new ItemDiffCallback(), new AdapterListUpdateCallback(this));
     private boolean showCategory = true;
-    private CharSequence searchQuery;
     private SelectionTracker<Long> tracker = null;
     @Px
     private final float fontSize;
     private final boolean monospace;
     @ColorInt
     private int color;
+    /**
+     * Resolved colors for the current {@link #color}, lazily created and reset by {@link #applyBrand(int)}
+     */
+    @Nullable
+    private NoteItemStyle style;
     @Nullable
     private Integer swipedPosition;
 
@@ -94,17 +106,30 @@ public class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> i
     }
 
     /**
-     * Updates the item list and notifies respective view to update.
+     * Updates the item list. The difference to the current list is calculated on a background thread, afterwards only the changed {@link Item}s get notified.
      *
-     * @param itemList List of items to be set
+     * @param lifecycle the {@link Lifecycle} of the list, the pages are only loaded while it is at least started
+     * @param itemList  Paged items to be set
      */
-    public void setItemList(@NonNull List<Item> itemList) {
-        this.itemList.clear();
-        this.itemList.addAll(itemList);
+    public void setItemList(@NonNull Lifecycle lifecycle, @NonNull PagingData<Item> itemList) {
         this.swipedPosition = null;
-        notifyDataSetChanged();
+        differ.submitData(lifecycle, itemList);
+    }
+
+    /**
+     * @param listener gets notified whenever the loading state of the paged item list changes
+     */
+    public void addLoadStateListener(@NonNull Consumer<CombinedLoadStates> listener) {
+        differ.addLoadStateListener(loadStates -> {
+            listener.accept(loadStates);
+            return Unit.INSTANCE;
+        });
     }
 
+    /**
+     * Inflates the layout for the given <code>viewType</code>.
+     * The color dependent theming is applied when the {@link RecyclerView.ViewHolder} gets bound, so also pre-inflated and recycled ones match the current brand.
+     */
     @NonNull
     @Override
     public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -113,35 +138,17 @@ public class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> i
             switch (viewType) {
                 case TYPE_SECTION -> {
                     ItemNotesListSectionItemBinding binding = ItemNotesListSectionItemBinding.inflate(inflater);
-                    BrandingUtil.of(color, parent.getContext()).platform.colorTextView(binding.sectionTitle);
                     return new SectionViewHolder(binding);
                 }
                 case TYPE_NOTE_ONLY_TITLE -> {
                     ItemNotesListNoteItemGridOnlyTitleBinding binding = ItemNotesListNoteItemGridOnlyTitleBinding
                         .inflate(inflater, parent, false);
-                    BrandingUtil.of(color, parent.getContext()).notes.themeCard(binding.noteCard);
-                    BrandingUtil.of(color, parent.getContext()).platform.colorTextView(
-                        binding.noteTitle, ColorRole.ON_SURFACE
-                    );
-                    BrandingUtil.of(color, parent.getContext()).platform.colorTextView(
-                        binding.noteModified, ColorRole.ON_SURFACE_VARIANT
-                    );
                     return new NoteViewGridHolderOnlyTitle(binding, noteClickListener, monospace, fontSize);
                 }
                 case TYPE_NOTE_WITH_EXCERPT, TYPE_NOTE_WITHOUT_EXCERPT -> {
                     ItemNotesListNoteItemGridBinding binding = ItemNotesListNoteItemGridBinding.inflate(
                         inflater, parent, false
                     );
-                    BrandingUtil.of(color, parent.getContext()).notes.themeCard(binding.noteCard);
-                    BrandingUtil.of(color, parent.getContext()).platform.colorTextView(
-                        binding.noteTitle, ColorRole.ON_SURFACE
-                    );
-                    BrandingUtil.of(color, parent.getContext()).platform.colorTextView(
-                        binding.noteExcerpt, ColorRole.ON_SURFACE_VARIANT
-                    );
-                    BrandingUtil.of(color, parent.getContext()).platform.colorTextView(
-                        binding.noteModified, ColorRole.ON_SURFACE_VARIANT
-                    );
                     return new NoteViewGridHolder(binding, noteClickListener, monospace, fontSize);
                 }
                 default -> {
@@ -152,22 +159,11 @@ public class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> i
             switch (viewType) {
                 case TYPE_SECTION -> {
                     ItemNotesListSectionItemBinding binding = ItemNotesListSectionItemBinding.inflate(inflater);
-                    BrandingUtil.of(color, parent.getContext()).platform.colorTextView(binding.sectionTitle);
                     return new SectionViewHolder(binding);
                 }
                 case TYPE_NOTE_WITH_EXCERPT, TYPE_NOTE_ONLY_TITLE, TYPE_NOTE_WITHOUT_EXCERPT -> {
                     ItemNotesListNoteItemWithExcerptBinding binding = ItemNotesListNoteItemWithExcerptBinding
                         .inflate(inflater, parent, false);
-                    BrandingUtil.of(color, parent.getContext()).notes.themeCard(binding.noteCard);
-                    BrandingUtil.of(color, parent.getContext()).platform.colorTextView(
-                        binding.noteTitle, ColorRole.ON_SURFACE
-                    );
-                    BrandingUtil.of(color, parent.getContext()).platform.colorTextView(
-                        binding.noteExcerpt, ColorRole.ON_SURFACE_VARIANT
-                    );
-                    BrandingUtil.of(color, parent.getContext()).platform.colorTextView(
-                        binding.noteModified, ColorRole.ON_SURFACE_VARIANT
-                    );
                     return new NoteViewListHolder(binding, noteClickListener);
                 }
                 default -> {
@@ -177,6 +173,14 @@ public class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> i
         }
     }
 
+    @Override
+    public void onViewRecycled(@NonNull RecyclerView.ViewHolder holder) {
+        super.onViewRecycled(holder);
+        if (holder instanceof NoteViewHolder noteViewHolder) {
+            noteViewHolder.unbind();
+        }
+    }
+
     @Override
     public void onBindViewHolder(@NonNull final RecyclerView.ViewHolder holder, int position) {
         boolean isSelected = false;
@@ -189,33 +193,32 @@ public class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> i
                 tracker.deselect(itemId);
             }
         }
+        final var style = getStyle(holder.itemView.getContext());
         switch (getItemViewType(position)) {
             case TYPE_SECTION ->
-                    ((SectionViewHolder) holder).bind((SectionItem) itemList.get(position));
+                    ((SectionViewHolder) holder).bind((SectionItem) differ.getItem(position), style);
             case TYPE_NOTE_WITH_EXCERPT, TYPE_NOTE_WITHOUT_EXCERPT, TYPE_NOTE_ONLY_TITLE -> {
-                holder.itemView.findViewById(R.id.custom_checkbox).setVisibility(tracker != null &&
+                final ImageView checkbox = holder.itemView.findViewById(R.id.custom_checkbox);
+                checkbox.setVisibility(tracker != null &&
                     tracker.hasSelection() ? View.VISIBLE : View.GONE);
                 holder.itemView.setSelected(isSelected);
                 if (isSelected) {
-                    ((MaterialCardView) holder.itemView.findViewById(R.id.noteCard)).setStrokeWidth((int) holder.itemView.getResources().getDimension(R.dimen.card_stroke_width_selected));
-                    ((ImageView) holder.itemView.findViewById(R.id.custom_checkbox)).setImageDrawable(
-                        BrandingUtil.getInstance(holder.itemView.getContext()).platform.tintDrawable(
-                            holder.itemView.getContext(), R.drawable.ic_checkbox_marked, ColorRole.PRIMARY)
-                    );
+                    ((MaterialCardView) holder.itemView.findViewById(R.id.noteCard)).setStrokeWidth(style.cardStrokeWidthSelected);
+                    checkbox.setImageResource(R.drawable.ic_checkbox_marked);
+                    checkbox.setImageTintList(style.checkboxTint);
                 } else {
-                    ((MaterialCardView) holder.itemView.findViewById(R.id.noteCard)).setStrokeWidth((int) holder.itemView.getResources().getDimension(R.dimen.card_stroke_width));
-                    ((ImageView) holder.itemView.findViewById(R.id.custom_checkbox)).setImageResource(
-                        R.drawable.ic_checkbox_blank_outline
-                    );
+                    ((MaterialCardView) holder.itemView.findViewById(R.id.noteCard)).setStrokeWidth(style.cardStrokeWidth);
+                    checkbox.setImageResource(R.drawable.ic_checkbox_blank_outline);
+                    checkbox.setImageTintList(null);
                 }
-                holder.itemView.findViewById(R.id.custom_checkbox).setVisibility(
+                checkbox.setVisibility(
                     isMultiSelect ? View.VISIBLE : View.GONE
                 );
                 holder.itemView.findViewById(R.id.noteFavorite).setVisibility(
                     isMultiSelect ? View.GONE : View.VISIBLE
                 );
                 ((NoteViewHolder) holder).bind(
-                    isSelected, (Note) itemList.get(position), showCategory, color, searchQuery
+                    isSelected, (Note) differ.getItem(position), showCategory, style
                 );
             }
         }
@@ -225,11 +228,10 @@ public class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> i
         this.tracker = tracker;
     }
 
-    @SuppressLint("NotifyDataSetChanged")
     public void setMultiSelect(boolean bool) {
         if (isMultiSelect != bool) {
             isMultiSelect = bool;
-            new Handler(Looper.getMainLooper()).post(this::notifyDataSetChanged);
+            new Handler(Looper.getMainLooper()).post(this::notifyPresentationChanged);
         }
     }
 
@@ -237,17 +239,15 @@ public class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> i
         return this.isMultiSelect;
     }
 
+    /**
+     * Does not trigger loading further pages, which only happens when the {@link Item} actually gets bound.
+     */
     public Item getItem(int notePosition) {
-        return itemList.get(notePosition);
+        return differ.peek(notePosition);
     }
 
     public boolean hasItemPosition(int notePosition) {
-        return notePosition >= 0 && notePosition < itemList.size();
-    }
-
-    public void remove(@NonNull Item item) {
-        itemList.remove(item);
-        notifyDataSetChanged();
+        return notePosition >= 0 && notePosition < getItemCount();
     }
 
     public void setShowCategory(boolean showCategory) {
@@ -256,7 +256,7 @@ public class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> i
 
     @Override
     public int getItemCount() {
-        return itemList.size();
+        return differ.getItemCount();
     }
 
     @IntRange(from = 0, to = 3)
@@ -268,7 +268,8 @@ public class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> i
         }
         if (getItem(position).isSection()) return TYPE_SECTION;
         final var note = (Note) getItem(position);
-        if (TextUtils.isEmpty(note.getExcerpt())) {
+        // Notes whose content has not been fetched yet show a loading excerpt
+        if (TextUtils.isEmpty(note.getExcerpt()) && !note.isContentStale()) {
             if (TextUtils.isEmpty(note.getCategory())) {
                 return TYPE_NOTE_ONLY_TITLE;
             } else {
@@ -280,20 +281,36 @@ public class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> i
 
     @Override
     public void applyBrand(int color) {
-        this.color = color;
-        notifyDataSetChanged();
+        if (this.color != color) {
+            this.color = color;
+            this.style = null;
+        }
+        notifyPresentationChanged();
+    }
+
+    /**
+     * @return the {@link NoteItemStyle} for the current brand color and dark mode, which is only resolved once and then shared by all bound {@link Item}s
+     */
+    @NonNull
+    private NoteItemStyle getStyle(@NonNull Context context) {
+        if (style == null || style.darkMode != isDarkMode(context)) {
+            style = BrandingUtil.of(color, context).notes.createNoteItemStyle(context, color);
+        }
+        return style;
     }
 
-    public void setHighlightSearchQuery(CharSequence searchQuery) {
-        this.searchQuery = searchQuery;
-        notifyDataSetChanged();
+    /**
+     * Rebinds all {@link Item}s in place while keeping their {@link RecyclerView.ViewHolder}s, scroll position and running animations.
+     */
+    private void notifyPresentationChanged() {
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_PRESENTATION);
     }
 
     /**
      * @return the position of the first {@link Item} which matches the given viewtype, -1 if not available
      */
     public int getFirstPositionOfViewType(@IntRange(from = 0, to = 3) int viewType) {
-        for (int i = 0; i < itemList.size(); i++) {
+        for (int i = 0; i < getItemCount(); i++) {
             if (getItemViewType(i) == viewType) {
                 return i;
             }
@@ -0,0 +1,51 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.main.items;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+import java.util.Objects;
+
+import it.niedermann.owncloud.notes.main.items.section.SectionItem;
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.shared.model.Item;
+
+/**
+ * Identifies {@link Note}s by their local id and {@link SectionItem}s by their title.
+ * Contents are only compared by the columns which are actually displayed in the list, so changes of e.g. the content or the scroll position do not cause a rebind.
+ */
+public class ItemDiffCallback extends DiffUtil.ItemCallback<Item> {
+
+    @Override
+    public boolean areItemsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+        if (oldItem instanceof SectionItem oldSection && newItem instanceof SectionItem newSection) {
+            return Objects.equals(oldSection.getTitle(), newSection.getTitle());
+        }
+        if (oldItem instanceof Note oldNote && newItem instanceof Note newNote) {
+            return oldNote.getId() == newNote.getId();
+        }
+        return false;
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+        if (oldItem instanceof Note oldNote && newItem instanceof Note newNote) {
+            return oldNote.getFavorite() == newNote.getFavorite()
+                    && oldNote.isShared() == newNote.isShared()
+                    && oldNote.getStatus() == newNote.getStatus()
+                    && oldNote.isContentStale() == newNote.isContentStale()
+                    && Objects.equals(oldNote.getTitle(), newNote.getTitle())
+                    && Objects.equals(oldNote.getCategory(), newNote.getCategory())
+                    && Objects.equals(oldNote.getExcerpt(), newNote.getExcerpt())
+                    && Objects.equals(oldNote.getModified(), newNote.getModified())
+                    && oldNote.getSearchHighlights().equals(newNote.getSearchHighlights());
+        }
+        // Sections only consist of their title which has already been compared by areItemsTheSame
+        return true;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.main.items;
+
+import static it.niedermann.owncloud.notes.main.items.ItemAdapter.TYPE_NOTE_ONLY_TITLE;
+import static it.niedermann.owncloud.notes.main.items.ItemAdapter.TYPE_NOTE_WITHOUT_EXCERPT;
+import static it.niedermann.owncloud.notes.main.items.ItemAdapter.TYPE_NOTE_WITH_EXCERPT;
+import static it.niedermann.owncloud.notes.main.items.ItemAdapter.TYPE_SECTION;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+
+/**
+ * {@link RecyclerView.RecycledViewPool} for the notes list which keeps enough {@link RecyclerView.ViewHolder}s per view type to fill a screen
+ * and can be pre-warmed while the main thread is idle, so scrolling does not need to inflate new layouts.
+ */
+public class ItemViewPool extends RecyclerView.RecycledViewPool {
+
+    private static final String TAG = ItemViewPool.class.getSimpleName();
+
+    /**
+     * Maximum number of recycled {@link RecyclerView.ViewHolder}s per view type. Notes with excerpt are by far the most common ones.
+     */
+    private static final Map<Integer, Integer> MAX_RECYCLED_VIEWS = Map.of(
+            TYPE_SECTION, 6,
+            TYPE_NOTE_WITH_EXCERPT, 16,
+            TYPE_NOTE_WITHOUT_EXCERPT, 8,
+            TYPE_NOTE_ONLY_TITLE, 8
+    );
+
+    /**
+     * Number of {@link RecyclerView.ViewHolder}s per view type which get inflated by {@link #prewarm(RecyclerView)}.
+     */
+    private static final Map<Integer, Integer> PREWARM_VIEWS = Map.of(
+            TYPE_SECTION, 2,
+            TYPE_NOTE_WITH_EXCERPT, 8
+    );
+
+    @Nullable
+    private MessageQueue.IdleHandler prewarmHandler;
+
+    public ItemViewPool() {
+        for (final var entry : MAX_RECYCLED_VIEWS.entrySet()) {
+            setMaxRecycledViews(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Inflates {@link RecyclerView.ViewHolder}s using the {@link RecyclerView.Adapter} of the given {@link RecyclerView} and puts them into this pool.
+     * Only one {@link RecyclerView.ViewHolder} is inflated each time the main thread is idle, so it never delays drawing a frame.
+     */
+    @UiThread
+    public void prewarm(@NonNull RecyclerView recyclerView) {
+        cancelPrewarm();
+        final var adapter = recyclerView.getAdapter();
+        if (adapter == null) {
+            Log.w(TAG, "Can not prewarm, " + RecyclerView.class.getSimpleName() + " has no adapter");
+            return;
+        }
+        final var pending = new ArrayDeque<Integer>();
+        for (final var entry : PREWARM_VIEWS.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                pending.add(entry.getKey());
+            }
+        }
+        prewarmHandler = () -> {
+            final Integer viewType = pending.poll();
+            if (viewType == null) {
+                prewarmHandler = null;
+                return false;
+            }
+            // The list might already have been laid out and scrolled meanwhile
+            if (getRecycledViewCount(viewType) < PREWARM_VIEWS.getOrDefault(viewType, 0)) {
+                putRecycledView(adapter.createViewHolder(recyclerView, viewType));
+            }
+            return true;
+        };
+        Looper.myQueue().addIdleHandler(prewarmHandler);
+    }
+
+    @UiThread
+    public void cancelPrewarm() {
+        if (prewarmHandler != null) {
+            Looper.myQueue().removeIdleHandler(prewarmHandler);
+            prewarmHandler = null;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.main.items;
+
+import android.content.res.ColorStateList;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.Px;
+
+import it.niedermann.owncloud.notes.branding.NotesViewThemeUtils;
+
+/**
+ * Immutable colors and dimensions for the items of the notes list, resolved once per brand color and dark mode by
+ * {@link NotesViewThemeUtils#createNoteItemStyle(android.content.Context, int)}.
+ * {@link NoteViewHolder}s only need to assign them to their views instead of resolving the color roles on every bind.
+ */
+public class NoteItemStyle {
+
+    @ColorInt
+    public final int color;
+    public final boolean darkMode;
+
+    @NonNull
+    public final ColorStateList cardBackground;
+    @NonNull
+    public final ColorStateList cardStroke;
+    @Px
+    public final int cardStrokeWidth;
+    @Px
+    public final int cardStrokeWidthSelected;
+
+    @ColorInt
+    public final int titleTextColor;
+    @ColorInt
+    public final int secondaryTextColor;
+    @ColorInt
+    public final int sectionTextColor;
+    @ColorInt
+    public final int highlightTextColor;
+
+    @ColorInt
+    public final int syncIndicatorColor;
+    @NonNull
+    public final ColorStateList sharedIconTint;
+    @NonNull
+    public final ColorStateList checkboxTint;
+
+    @NonNull
+    public final ColorStateList categoryChipBackground;
+    @ColorInt
+    public final int categoryChipTextColor;
+    @NonNull
+    public final ColorStateList categoryBackgroundTint;
+    @ColorInt
+    public final int categoryTextColor;
+
+    public NoteItemStyle(@ColorInt int color,
+                         boolean darkMode,
+                         @NonNull ColorStateList cardBackground,
+                         @NonNull ColorStateList cardStroke,
+                         @Px int cardStrokeWidth,
+                         @Px int cardStrokeWidthSelected,
+                         @ColorInt int titleTextColor,
+                         @ColorInt int secondaryTextColor,
+                         @ColorInt int sectionTextColor,
+                         @ColorInt int highlightTextColor,
+                         @ColorInt int syncIndicatorColor,
+                         @NonNull ColorStateList sharedIconTint,
+                         @NonNull ColorStateList checkboxTint,
+                         @NonNull ColorStateList categoryChipBackground,
+                         @ColorInt int categoryChipTextColor,
+                         @NonNull ColorStateList categoryBackgroundTint,
+                         @ColorInt int categoryTextColor) {
+        this.color = color;
+        this.darkMode = darkMode;
+        this.cardBackground = cardBackground;
+        this.cardStroke = cardStroke;
+        this.cardStrokeWidth = cardStrokeWidth;
+        this.cardStrokeWidthSelected = cardStrokeWidthSelected;
+        this.titleTextColor = titleTextColor;
+        this.secondaryTextColor = secondaryTextColor;
+        this.sectionTextColor = sectionTextColor;
+        this.highlightTextColor = highlightTextColor;
+        this.syncIndicatorColor = syncIndicatorColor;
+        this.sharedIconTint = sharedIconTint;
+        this.checkboxTint = checkboxTint;
+        this.categoryChipBackground = categoryChipBackground;
+        this.categoryChipTextColor = categoryChipTextColor;
+        this.categoryBackgroundTint = categoryBackgroundTint;
+        this.categoryTextColor = categoryTextColor;
+    }
+}
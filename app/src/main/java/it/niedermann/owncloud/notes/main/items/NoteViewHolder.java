@@ -9,31 +9,31 @@ package it.niedermann.owncloud.notes.main.items;
 import static android.view.View.GONE;
 import static android.view.View.INVISIBLE;
 import static android.view.View.VISIBLE;
-import static com.nextcloud.android.common.ui.util.PlatformThemeUtil.isDarkMode;
 
-import android.content.Context;
-import android.text.TextUtils;
+import android.graphics.Typeface;
+import android.text.SpannableString;
+import android.text.Spanned;
+import android.text.style.ForegroundColorSpan;
+import android.text.style.StyleSpan;
 import android.view.View;
 import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.CallSuper;
-import androidx.annotation.ColorInt;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.recyclerview.selection.ItemDetailsLookup;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.button.MaterialButton;
+import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.progressindicator.CircularProgressIndicator;
 import com.nextcloud.android.common.core.utils.DateFormatter;
-import com.nextcloud.android.common.ui.theme.utils.ColorRole;
 
 import java.util.Calendar;
 
 import it.niedermann.owncloud.notes.R;
-import it.niedermann.owncloud.notes.branding.BrandingUtil;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
 import it.niedermann.owncloud.notes.shared.model.DBStatus;
 import it.niedermann.owncloud.notes.shared.model.NoteClickListener;
@@ -45,15 +45,25 @@ public abstract class NoteViewHolder extends RecyclerView.ViewHolder {
     @NonNull
     private final DateFormatter dateFormatter;
 
+    /**
+     * The {@link NoteItemStyle} this {@link NoteViewHolder} has been themed with, <code>null</code> if it has not been themed yet
+     */
+    @Nullable
+    private NoteItemStyle appliedStyle;
+
     public NoteViewHolder(@NonNull View v, @NonNull NoteClickListener noteClickListener) {
         super(v);
         this.noteClickListener = noteClickListener;
-        this.setIsRecyclable(false);
         this.dateFormatter = new DateFormatter(v.getContext());
     }
 
     @CallSuper
-    public void bind(boolean isSelected, @NonNull Note note, boolean showCategory, @ColorInt int color, @Nullable CharSequence searchQuery) {
+    public void bind(boolean isSelected, @NonNull Note note, boolean showCategory, @NonNull NoteItemStyle style) {
+        // Recycled holders keep their theme, so it only needs to be applied again if the brand color or dark mode changed meanwhile
+        if (appliedStyle != style) {
+            applyStyle(style);
+            appliedStyle = style;
+        }
         itemView.setActivated(isSelected);
         itemView.setSelected(isSelected);
         itemView.setOnClickListener((view) -> noteClickListener.onNoteClick(getLayoutPosition(), view));
@@ -68,34 +78,43 @@ public abstract class NoteViewHolder extends RecyclerView.ViewHolder {
         }
     }
 
-    protected void bindStatus(CircularProgressIndicator noteSyncStatus, DBStatus status, int color) {
-        noteSyncStatus.setVisibility(DBStatus.VOID.equals(status) ? INVISIBLE : VISIBLE);
+    /**
+     * Assigns the colors of the given {@link NoteItemStyle} to all views of this {@link NoteViewHolder} which do not depend on the bound {@link Note}.
+     */
+    protected abstract void applyStyle(@NonNull NoteItemStyle style);
+
+    protected void applyStyle(@NonNull NoteItemStyle style,
+                              @NonNull MaterialCardView noteCard,
+                              @NonNull TextView noteTitle,
+                              @NonNull TextView noteModified,
+                              @NonNull CircularProgressIndicator noteSyncStatus,
+                              @NonNull MaterialButton noteShareIcon,
+                              @NonNull TextView noteCategory) {
+        noteCard.setCardBackgroundColor(style.cardBackground);
+        noteCard.setStrokeColor(style.cardStroke);
+        noteTitle.setTextColor(style.titleTextColor);
+        noteModified.setTextColor(style.secondaryTextColor);
+        noteSyncStatus.setIndicatorColor(style.syncIndicatorColor);
+        noteShareIcon.setTextColor(style.sharedIconTint);
+        noteShareIcon.setIconTint(style.sharedIconTint);
+        if (noteCategory instanceof Chip chip) {
+            chip.setChipBackgroundColor(style.categoryChipBackground);
+            chip.setTextColor(style.categoryChipTextColor);
+        } else {
+            noteCategory.setBackgroundTintList(style.categoryBackgroundTint);
+            noteCategory.setTextColor(style.categoryTextColor);
+        }
+    }
 
-        final var context = noteSyncStatus.getContext();
-        final var util = BrandingUtil.of(color, context);
-        util.material.colorProgressBar(noteSyncStatus, ColorRole.PRIMARY);
+    protected void bindStatus(@NonNull CircularProgressIndicator noteSyncStatus, @NonNull DBStatus status) {
+        noteSyncStatus.setVisibility(DBStatus.VOID.equals(status) ? INVISIBLE : VISIBLE);
     }
 
-    protected void bindCategory(@NonNull Context context, @NonNull TextView noteCategory, boolean showCategory, @NonNull String category, int color) {
+    protected void bindCategory(@NonNull TextView noteCategory, boolean showCategory, @NonNull String category) {
         if (!showCategory || category.isEmpty()) {
             noteCategory.setVisibility(GONE);
         } else {
             noteCategory.setText(category);
-
-            final var util = BrandingUtil.of(color, context);
-
-            if (noteCategory instanceof Chip) {
-                util.material.colorChipBackground((Chip) noteCategory);
-            } else {
-                if (isDarkMode(context)) {
-                    util.platform.tintDrawable(context, noteCategory.getBackground(), ColorRole.SECONDARY_CONTAINER);
-                    util.platform.colorTextView(noteCategory, ColorRole.ON_SECONDARY_CONTAINER);
-                } else {
-                    util.platform.tintDrawable(context, noteCategory.getBackground(), ColorRole.PRIMARY);
-                    util.platform.colorTextView(noteCategory, ColorRole.ON_PRIMARY_CONTAINER);
-                }
-            }
-
             noteCategory.setVisibility(View.VISIBLE);
         }
     }
@@ -105,25 +124,44 @@ public abstract class NoteViewHolder extends RecyclerView.ViewHolder {
         noteFavorite.setOnClickListener(view -> noteClickListener.onNoteFavoriteClick(getLayoutPosition(), view));
     }
 
-    protected void bindSearchableContent(@NonNull Context context, @NonNull TextView textView, @Nullable CharSequence searchQuery, @NonNull String content, int color) {
-        textView.setText(content);
-
-        if (!TextUtils.isEmpty(searchQuery)) {
-            final var util = BrandingUtil.of(color, context);
-            util.platform.highlightText(textView, content, searchQuery.toString());
+    /**
+     * @param highlights precalculated ranges of the search term in the <code>content</code>, see {@link it.niedermann.owncloud.notes.shared.model.SearchHighlights}
+     */
+    protected void bindSearchableContent(@NonNull TextView textView, @NonNull String content, @NonNull int[] highlights, @NonNull NoteItemStyle style) {
+        if (highlights.length == 0) {
+            textView.setText(content);
+            return;
         }
+        final var spannable = new SpannableString(content);
+        for (int i = 0; i + 1 < highlights.length && highlights[i + 1] <= content.length(); i += 2) {
+            spannable.setSpan(new ForegroundColorSpan(style.highlightTextColor), highlights[i], highlights[i + 1], Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            spannable.setSpan(new StyleSpan(Typeface.BOLD), highlights[i], highlights[i + 1], Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
+        textView.setText(spannable);
     }
 
-    protected void bindNoteSharedIcon(@NonNull Context context, boolean shared, @NonNull MaterialButton noteShareIcon, int color) {
+    protected void bindNoteSharedIcon(boolean shared, @NonNull MaterialButton noteShareIcon) {
         if (shared) {
             noteShareIcon.setVisibility(VISIBLE);
             noteShareIcon.setOnClickListener(view -> noteClickListener.openShare(getLayoutPosition()));
         } else {
             noteShareIcon.setVisibility(GONE);
         }
+    }
 
-        final var util = BrandingUtil.of(color, context);
-        util.material.colorMaterialButtonContent(noteShareIcon, ColorRole.PRIMARY);
+    /**
+     * Resets the state which has been set while this {@link NoteViewHolder} was bound or swiped, so it can be reused for another {@link Note}.
+     */
+    @CallSuper
+    public void unbind() {
+        itemView.setOnClickListener(null);
+        itemView.setActivated(false);
+        itemView.setSelected(false);
+        final var swipeable = getNoteSwipeable();
+        if (swipeable != null) {
+            showSwipe(0);
+            swipeable.setTranslationX(0);
+        }
     }
 
     public abstract void showSwipe(float dX);
@@ -10,18 +10,18 @@ import static android.view.View.GONE;
 import static android.view.View.VISIBLE;
 import static it.niedermann.owncloud.notes.shared.util.NoteUtil.EXCERPT_LINE_SEPARATOR;
 
-import android.content.Context;
 import android.graphics.Typeface;
 import android.text.TextUtils;
 import android.util.TypedValue;
 import android.view.View;
 
-import androidx.annotation.ColorInt;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.Px;
 
+import it.niedermann.owncloud.notes.R;
 import it.niedermann.owncloud.notes.databinding.ItemNotesListNoteItemGridBinding;
+import it.niedermann.owncloud.notes.main.items.NoteItemStyle;
 import it.niedermann.owncloud.notes.main.items.NoteViewHolder;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
 import it.niedermann.owncloud.notes.shared.model.NoteClickListener;
@@ -42,21 +42,30 @@ public class NoteViewGridHolder extends NoteViewHolder {
         }
     }
 
+    @Override
+    protected void applyStyle(@NonNull NoteItemStyle style) {
+        applyStyle(style, binding.noteCard, binding.noteTitle, binding.noteModified, binding.noteSyncStatus, binding.noteShared, binding.noteCategory);
+        binding.noteExcerpt.setTextColor(style.secondaryTextColor);
+    }
+
     public void showSwipe(float dX) {
         throw new UnsupportedOperationException(NoteViewGridHolder.class.getSimpleName() + " does not support swiping");
     }
 
-    public void bind(boolean isSelected, @NonNull Note note, boolean showCategory, @ColorInt int color, @Nullable CharSequence searchQuery) {
-        super.bind(isSelected, note, showCategory, color, searchQuery);
-        @NonNull final Context context = itemView.getContext();
-        bindCategory(context, binding.noteCategory, showCategory, note.getCategory(), color);
-        bindStatus(binding.noteSyncStatus, note.getStatus(), color);
+    public void bind(boolean isSelected, @NonNull Note note, boolean showCategory, @NonNull NoteItemStyle style) {
+        super.bind(isSelected, note, showCategory, style);
+        bindCategory(binding.noteCategory, showCategory, note.getCategory());
+        bindStatus(binding.noteSyncStatus, note.getStatus());
         bindFavorite(binding.noteFavorite, note.getFavorite());
         bindModified(binding.noteModified, note.getModified());
-        bindSearchableContent(context, binding.noteTitle, searchQuery, note.getTitle(), color);
-        bindSearchableContent(context, binding.noteExcerpt, searchQuery, note.getExcerpt().replace(EXCERPT_LINE_SEPARATOR, "\n"), color);
-        bindNoteSharedIcon(context, note.isShared(), binding.noteShared, color);
-        binding.noteExcerpt.setVisibility(TextUtils.isEmpty(note.getExcerpt()) ? GONE : VISIBLE);
+        bindSearchableContent(binding.noteTitle, note.getTitle(), note.getSearchHighlights().getTitle(), style);
+        if (note.isContentStale()) {
+            binding.noteExcerpt.setText(R.string.common_loading);
+        } else {
+            bindSearchableContent(binding.noteExcerpt, note.getExcerpt().replace(EXCERPT_LINE_SEPARATOR, "\n"), note.getSearchHighlights().getMultilineExcerpt(), style);
+        }
+        bindNoteSharedIcon(note.isShared(), binding.noteShared);
+        binding.noteExcerpt.setVisibility(TextUtils.isEmpty(note.getExcerpt()) && !note.isContentStale() ? GONE : VISIBLE);
     }
 
     @Nullable
@@ -6,7 +6,6 @@
  */
 package it.niedermann.owncloud.notes.main.items.grid;
 
-import android.content.Context;
 import android.graphics.Typeface;
 import android.util.TypedValue;
 import android.view.View;
@@ -16,6 +15,7 @@ import androidx.annotation.Nullable;
 import androidx.annotation.Px;
 
 import it.niedermann.owncloud.notes.databinding.ItemNotesListNoteItemGridOnlyTitleBinding;
+import it.niedermann.owncloud.notes.main.items.NoteItemStyle;
 import it.niedermann.owncloud.notes.main.items.NoteViewHolder;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
 import it.niedermann.owncloud.notes.shared.model.NoteClickListener;
@@ -34,19 +34,23 @@ public class NoteViewGridHolderOnlyTitle extends NoteViewHolder {
         }
     }
 
+    @Override
+    protected void applyStyle(@NonNull NoteItemStyle style) {
+        applyStyle(style, binding.noteCard, binding.noteTitle, binding.noteModified, binding.noteSyncStatus, binding.noteShared, binding.noteCategory);
+    }
+
     public void showSwipe(float dX) {
         throw new UnsupportedOperationException(NoteViewGridHolderOnlyTitle.class.getSimpleName() + " does not support swiping");
     }
 
-    public void bind(boolean isSelected, @NonNull Note note, boolean showCategory, int color, @Nullable CharSequence searchQuery) {
-        super.bind(isSelected, note, showCategory, color, searchQuery);
-        @NonNull final Context context = itemView.getContext();
-        bindCategory(context, binding.noteCategory, showCategory, note.getCategory(), color);
-        bindStatus(binding.noteSyncStatus, note.getStatus(), color);
+    public void bind(boolean isSelected, @NonNull Note note, boolean showCategory, @NonNull NoteItemStyle style) {
+        super.bind(isSelected, note, showCategory, style);
+        bindCategory(binding.noteCategory, showCategory, note.getCategory());
+        bindStatus(binding.noteSyncStatus, note.getStatus());
         bindFavorite(binding.noteFavorite, note.getFavorite());
         bindModified(binding.noteModified, note.getModified());
-        bindSearchableContent(context, binding.noteTitle, searchQuery, note.getTitle(), color);
-        bindNoteSharedIcon(context, note.isShared(), binding.noteShared, color);
+        bindSearchableContent(binding.noteTitle, note.getTitle(), note.getSearchHighlights().getTitle(), style);
+        bindNoteSharedIcon(note.isShared(), binding.noteShared);
     }
 
     @Nullable
@@ -9,13 +9,12 @@ package it.niedermann.owncloud.notes.main.items.list;
 import android.content.res.Resources;
 import android.view.View;
 
-import androidx.annotation.ColorInt;
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
 import androidx.core.content.res.ResourcesCompat;
 
 import it.niedermann.owncloud.notes.R;
 import it.niedermann.owncloud.notes.databinding.ItemNotesListNoteItemWithExcerptBinding;
+import it.niedermann.owncloud.notes.main.items.NoteItemStyle;
 import it.niedermann.owncloud.notes.main.items.NoteViewHolder;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
 import it.niedermann.owncloud.notes.shared.model.DBStatus;
@@ -39,6 +38,12 @@ public class NoteViewListHolder extends NoteViewHolder {
         this.deleteSwipeBackgroundColor = ResourcesCompat.getColor(resources, R.color.bg_attention, null);
     }
 
+    @Override
+    protected void applyStyle(@NonNull NoteItemStyle style) {
+        applyStyle(style, binding.noteCard, binding.noteTitle, binding.noteModified, binding.noteSyncStatus, binding.noteShared, binding.noteCategory);
+        binding.noteExcerpt.setTextColor(style.secondaryTextColor);
+    }
+
     public void showSwipe(float dX) {
         if (dX == 0.0f) {
             binding.noteFavoriteLeft.setVisibility(View.INVISIBLE);
@@ -52,29 +57,24 @@ public class NoteViewListHolder extends NoteViewHolder {
         }
     }
 
-    public void bind(boolean isSelected, @NonNull Note note, boolean showCategory, @ColorInt int color, @Nullable CharSequence searchQuery) {
-        super.bind(isSelected, note, showCategory, color, searchQuery);
-        @NonNull final var context = itemView.getContext();
+    public void bind(boolean isSelected, @NonNull Note note, boolean showCategory, @NonNull NoteItemStyle style) {
+        super.bind(isSelected, note, showCategory, style);
         binding.noteCard.setAlpha(DBStatus.LOCAL_DELETED.equals(note.getStatus()) ? 0.5f : 1.0f);
-        bindCategory(context, binding.noteCategory, showCategory, note.getCategory(), color);
-        bindStatus(binding.noteSyncStatus, note.getStatus(), color);
+        bindCategory(binding.noteCategory, showCategory, note.getCategory());
+        bindStatus(binding.noteSyncStatus, note.getStatus());
         bindFavorite(binding.noteFavorite, note.getFavorite());
         bindModified(binding.noteModified, note.getModified());
 
-        bindSearchableContent(context, binding.noteTitle, searchQuery, note.getTitle(), color);
-        if (note.getExcerpt().isEmpty()) {
-            bindSearchableContent(
-                    context,
-                    binding.noteExcerpt,
-                    searchQuery,
-                    context.getString(R.string.listview_no_content),
-                    color
-            );
+        bindSearchableContent(binding.noteTitle, note.getTitle(), note.getSearchHighlights().getTitle(), style);
+        if (note.isContentStale()) {
+            binding.noteExcerpt.setText(R.string.common_loading);
+        } else if (note.getExcerpt().isEmpty()) {
+            binding.noteExcerpt.setText(R.string.listview_no_content);
         } else {
-            bindSearchableContent(context, binding.noteExcerpt, searchQuery, note.getExcerpt(), color);
+            bindSearchableContent(binding.noteExcerpt, note.getExcerpt(), note.getSearchHighlights().getExcerpt(), style);
         }
 
-        bindNoteSharedIcon(context, note.isShared(), binding.noteShared, color);
+        bindNoteSharedIcon(note.isShared(), binding.noteShared);
     }
 
     @NonNull
@@ -23,6 +23,8 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.google.android.material.snackbar.Snackbar;
 
+import java.util.Collections;
+
 import it.niedermann.owncloud.notes.R;
 import it.niedermann.owncloud.notes.NotesApplication;
 import it.niedermann.owncloud.notes.branding.BrandedSnackbar;
@@ -91,7 +93,7 @@ public class NotesListViewItemTouchHelper extends ItemTouchHelper {
                             BrandedSnackbar.make(view, context.getString(R.string.action_note_deleted, dbNote.getTitle()), UNDO_DURATION)
                                     .setAnchorView(anchorView)
                                     .setAction(R.string.action_undo, (View v) -> {
-                                        final var undoLiveData = mainViewModel.addNoteAndSync(dbNote);
+                                        final var undoLiveData = mainViewModel.restoreNotesAndSync(Collections.singletonList(dbNote));
                                         undoLiveData.observe(lifecycleOwner, (o) -> undoLiveData.removeObservers(lifecycleOwner));
                                         BrandedSnackbar.make(view, context.getString(R.string.action_note_restored, dbNote.getTitle()), Snackbar.LENGTH_SHORT)
                                                 .setAnchorView(anchorView)
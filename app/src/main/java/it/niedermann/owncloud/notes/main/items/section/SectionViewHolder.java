@@ -6,9 +6,11 @@
  */
 package it.niedermann.owncloud.notes.main.items.section;
 
+import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import it.niedermann.owncloud.notes.databinding.ItemNotesListSectionItemBinding;
+import it.niedermann.owncloud.notes.main.items.NoteItemStyle;
 
 public class SectionViewHolder extends RecyclerView.ViewHolder {
     private final ItemNotesListSectionItemBinding binding;
@@ -18,7 +20,8 @@ public class SectionViewHolder extends RecyclerView.ViewHolder {
         this.binding = binding;
     }
 
-    public void bind(SectionItem item) {
+    public void bind(SectionItem item, @NonNull NoteItemStyle style) {
+        binding.sectionTitle.setTextColor(style.sectionTextColor);
         binding.sectionTitle.setText(item.getTitle());
     }
 }
\ No newline at end of file
@@ -14,7 +14,6 @@ import androidx.annotation.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 import it.niedermann.owncloud.notes.R;
 import it.niedermann.owncloud.notes.main.items.section.SectionItem;
@@ -31,13 +30,13 @@ public class SlotterUtil {
     @NonNull
     public static List<Item> fillListByCategory(@NonNull List<Note> noteList, @Nullable String currentCategory) {
         final var itemList = new ArrayList<Item>();
-        for (final var note : noteList) {
-            if (currentCategory != null && !currentCategory.equals(note.getCategory())) {
-                itemList.add(new SectionItem(NoteUtil.extendCategory(note.getCategory())));
+        for (int i = 0; i < noteList.size(); i++) {
+            final var currentNote = noteList.get(i);
+            final var section = getSectionByCategory(i > 0 ? noteList.get(i - 1) : null, currentNote, currentCategory);
+            if (section != null) {
+                itemList.add(section);
             }
-
-            itemList.add(note);
-            currentCategory = note.getCategory();
+            itemList.add(currentNote);
         }
         return itemList;
     }
@@ -46,15 +45,13 @@ public class SlotterUtil {
     public static List<Item> fillListByTime(@NonNull Context context, @NonNull List<Note> noteList) {
         final var itemList = new ArrayList<Item>();
         final var timeslotter = new Timeslotter(context);
-        String lastTimeslot = null;
         for (int i = 0; i < noteList.size(); i++) {
             final var currentNote = noteList.get(i);
-            String timeslot = timeslotter.getTimeslot(currentNote);
-            if (i > 0 && !timeslot.equals(lastTimeslot)) {
-                itemList.add(new SectionItem(timeslot));
+            final var section = getSectionByTime(timeslotter, i > 0 ? noteList.get(i - 1) : null, currentNote);
+            if (section != null) {
+                itemList.add(section);
             }
             itemList.add(currentNote);
-            lastTimeslot = timeslot;
         }
 
         return itemList;
@@ -63,24 +60,71 @@ public class SlotterUtil {
     @NonNull
     public static List<Item> fillListByInitials(@NonNull Context context, @NonNull List<Note> noteList) {
         final var itemList = new ArrayList<Item>();
-        String lastInitials = null;
         for (int i = 0; i < noteList.size(); i++) {
             final var currentNote = noteList.get(i);
-            final var title = currentNote.getTitle();
-            String initials = "";
-            if(!TextUtils.isEmpty(title)) {
-                initials = title.substring(0, 1).toUpperCase();
-                if (!initials.matches("[A-Z\\u00C0-\\u00DF]")) {
-                    initials = initials.matches("[\\u0250-\\uFFFF]") ? context.getString(R.string.simple_other) : "#";
-                }
-            }
-            if (i > 0 && !initials.equals(lastInitials)) {
-                itemList.add(new SectionItem(initials));
+            final var section = getSectionByInitials(context, i > 0 ? noteList.get(i - 1) : null, currentNote);
+            if (section != null) {
+                itemList.add(section);
             }
             itemList.add(currentNote);
-            lastInitials = initials;
         }
 
         return itemList;
     }
+
+    /**
+     * The <code>getSectionBy…</code> methods only look at two adjacent {@link Note}s, so they can also be used to insert separators into paged lists.
+     *
+     * @param before the previous {@link Note} or <code>null</code> if <code>after</code> is the first one
+     * @param after  the next {@link Note} or <code>null</code> if <code>before</code> is the last one
+     * @return the {@link SectionItem} which needs to be inserted between <code>before</code> and <code>after</code>, <code>null</code> if none
+     */
+    @Nullable
+    public static SectionItem getSectionByCategory(@Nullable Note before, @Nullable Note after, @Nullable String selectedCategory) {
+        if (after == null) {
+            return null;
+        }
+        final String currentCategory = before == null ? selectedCategory : before.getCategory();
+        if (currentCategory != null && !currentCategory.equals(after.getCategory())) {
+            return new SectionItem(NoteUtil.extendCategory(after.getCategory()));
+        }
+        return null;
+    }
+
+    /**
+     * @see #getSectionByCategory(Note, Note, String)
+     */
+    @Nullable
+    public static SectionItem getSectionByTime(@NonNull Timeslotter timeslotter, @Nullable Note before, @Nullable Note after) {
+        if (before == null || after == null) {
+            return null;
+        }
+        final String timeslot = timeslotter.getTimeslot(after);
+        return timeslot.equals(timeslotter.getTimeslot(before)) ? null : new SectionItem(timeslot);
+    }
+
+    /**
+     * @see #getSectionByCategory(Note, Note, String)
+     */
+    @Nullable
+    public static SectionItem getSectionByInitials(@NonNull Context context, @Nullable Note before, @Nullable Note after) {
+        if (before == null || after == null) {
+            return null;
+        }
+        final String initials = getInitials(context, after);
+        return initials.equals(getInitials(context, before)) ? null : new SectionItem(initials);
+    }
+
+    @NonNull
+    private static String getInitials(@NonNull Context context, @NonNull Note note) {
+        final var title = note.getTitle();
+        String initials = "";
+        if(!TextUtils.isEmpty(title)) {
+            initials = title.substring(0, 1).toUpperCase();
+            if (!initials.matches("[A-Z\\u00C0-\\u00DF]")) {
+                initials = initials.matches("[\\u0250-\\uFFFF]") ? context.getString(R.string.simple_other) : "#";
+            }
+        }
+        return initials;
+    }
 }
@@ -53,6 +53,20 @@ public class ApiProvider {
     private static final String API_ENDPOINT_FILES ="/ocs/v2.php/apps/files/api/v1/";
     private static final String API_ENDPOINT_FILES_SHARING ="/ocs/v2.php/apps/files_sharing/api/v1/";
 
+    /**
+     * Shared by all {@link NextcloudAPI}s and by {@link NotesAPI#getNotesStreamed(Calendar, String)}, which parses the response itself.
+     */
+    static final Gson GSON = new GsonBuilder()
+            .setStrictness(Strictness.LENIENT)
+            .registerTypeHierarchyAdapter(Calendar.class, (JsonSerializer<Calendar>) (src, typeOfSrc, ctx) -> new JsonPrimitive(src.getTimeInMillis() / 1_000))
+            .registerTypeHierarchyAdapter(Calendar.class, (JsonDeserializer<Calendar>) (src, typeOfSrc, ctx) -> {
+                final var calendar = Calendar.getInstance();
+                calendar.setTimeInMillis(src.getAsLong() * 1_000);
+                return calendar;
+            })
+            .registerTypeAdapter(Capabilities.class, new CapabilitiesDeserializer())
+            .create();
+
     private static final Map<String, NextcloudAPI> API_CACHE = new ConcurrentHashMap<>();
 
     private static final Map<String, OcsAPI> API_CACHE_OCS = new ConcurrentHashMap<>();
@@ -98,7 +112,7 @@ public class ApiProvider {
         if (API_CACHE_NOTES.containsKey(ssoAccount.name)) {
             return API_CACHE_NOTES.get(ssoAccount.name);
         }
-        final var notesAPI = new NotesAPI(getNextcloudAPI(context, ssoAccount), preferredApiVersion);
+        final var notesAPI = new NotesAPI(getNextcloudAPI(context, ssoAccount), GSON, preferredApiVersion);
         API_CACHE_NOTES.put(ssoAccount.name, notesAPI);
         return notesAPI;
     }
@@ -126,17 +140,7 @@ public class ApiProvider {
             return API_CACHE.get(ssoAccount.name);
         } else {
             Log.v(TAG, "NextcloudRequest account: " + ssoAccount.name);
-            final var nextcloudAPI = new NextcloudAPI(context.getApplicationContext(), ssoAccount,
-                    new GsonBuilder()
-                            .setStrictness(Strictness.LENIENT)
-                            .registerTypeHierarchyAdapter(Calendar.class, (JsonSerializer<Calendar>) (src, typeOfSrc, ctx) -> new JsonPrimitive(src.getTimeInMillis() / 1_000))
-                            .registerTypeHierarchyAdapter(Calendar.class, (JsonDeserializer<Calendar>) (src, typeOfSrc, ctx) -> {
-                                final var calendar = Calendar.getInstance();
-                                calendar.setTimeInMillis(src.getAsLong() * 1_000);
-                                return calendar;
-                            })
-                            .registerTypeAdapter(Capabilities.class, new CapabilitiesDeserializer())
-                            .create(), (e) -> {
+            final var nextcloudAPI = new NextcloudAPI(context.getApplicationContext(), ssoAccount, GSON, (e) -> {
                 invalidateAPICache(ssoAccount);
                 e.printStackTrace();
             });
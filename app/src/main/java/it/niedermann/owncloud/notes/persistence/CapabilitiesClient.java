@@ -6,7 +6,10 @@
  */
 package it.niedermann.owncloud.notes.persistence;
 
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+
 import android.content.Context;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -14,9 +17,13 @@ import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
 
 import com.nextcloud.android.sso.api.ParsedResponse;
+import com.nextcloud.android.sso.exceptions.NextcloudHttpRequestFailedException;
 import com.nextcloud.android.sso.model.SingleSignOnAccount;
 
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import it.niedermann.owncloud.notes.persistence.sync.OcsAPI;
 import it.niedermann.owncloud.notes.shared.model.Capabilities;
@@ -31,6 +38,75 @@ public class CapabilitiesClient {
 
     private static final String HEADER_KEY_ETAG = "ETag";
 
+    /**
+     * Duration in which {@link #getCapabilitiesIfModified(Context, SingleSignOnAccount, String, ApiProvider)} does not ask the server again.
+     */
+    static final long CACHE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Latest {@link Capabilities} per {@link SingleSignOnAccount#name}
+     */
+    private static final Map<String, CachedCapabilities> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Requests the {@link Capabilities} from the server, using the {@link Capabilities} of the last {@link #CACHE_TTL_MILLIS} if available.
+     * After that, the server is asked conditionally with the last known ETag, so unchanged {@link Capabilities} are not transferred again.
+     * The {@link Capabilities} of the given {@param ssoAccount} are stored in any case, since only those of one account are stored at a time.
+     *
+     * @param lastETag ETag of the {@link Capabilities} which are known by the caller
+     * @return the {@link Capabilities} if they differ from those identified by <code>lastETag</code>, <code>null</code> if they did not change
+     */
+    @WorkerThread
+    @Nullable
+    public static Capabilities getCapabilitiesIfModified(@NonNull Context context, @NonNull SingleSignOnAccount ssoAccount, @Nullable String lastETag, @NonNull ApiProvider apiProvider) throws Throwable {
+        final long now = SystemClock.elapsedRealtime();
+        final var cached = CACHE.get(ssoAccount.name);
+        if (cached != null && now - cached.fetchedAt < CACHE_TTL_MILLIS) {
+            Log.v(TAG, "Using cached capabilities of " + ssoAccount.name);
+            NotesRepository.getInstance(context).insertCapabilities(cached.capabilities);
+            return ifModified(cached.capabilities, lastETag);
+        }
+        try {
+            final var capabilities = getCapabilities(context, ssoAccount, cached == null ? lastETag : cached.capabilities.getETag(), apiProvider);
+            CACHE.put(ssoAccount.name, new CachedCapabilities(capabilities, now));
+            return ifModified(capabilities, lastETag);
+        } catch (NextcloudHttpRequestFailedException e) {
+            if (e.getStatusCode() != HTTP_NOT_MODIFIED) {
+                throw e;
+            }
+            Log.v(TAG, "Capabilities of " + ssoAccount.name + " not modified");
+            if (cached == null) {
+                // Asked with lastETag, e.g. after the process has been started. The stored capabilities match it unless those of another account have been stored meanwhile
+                final var stored = NotesRepository.getInstance(context).getCapabilities();
+                final var capabilities = stored != null && lastETag != null && lastETag.equals(stored.getETag())
+                        ? stored
+                        : getCapabilities(context, ssoAccount, null, apiProvider);
+                CACHE.put(ssoAccount.name, new CachedCapabilities(capabilities, now));
+                return ifModified(capabilities, lastETag);
+            }
+            NotesRepository.getInstance(context).insertCapabilities(cached.capabilities);
+            CACHE.put(ssoAccount.name, new CachedCapabilities(cached.capabilities, now));
+            return ifModified(cached.capabilities, lastETag);
+        }
+    }
+
+    /**
+     * Forgets the cached {@link Capabilities} of the given account, e.g. because it has been deleted.
+     */
+    static void invalidateCache(@NonNull String accountName) {
+        CACHE.remove(accountName);
+    }
+
+    @Nullable
+    private static Capabilities ifModified(@NonNull Capabilities capabilities, @Nullable String lastETag) {
+        return lastETag != null && Objects.equals(lastETag, capabilities.getETag()) ? null : capabilities;
+    }
+
+    /**
+     * Requests the {@link Capabilities} from the server and stores them, bypassing the cache of {@link #getCapabilitiesIfModified(Context, SingleSignOnAccount, String, ApiProvider)}.
+     *
+     * @throws NextcloudHttpRequestFailedException with {@link java.net.HttpURLConnection#HTTP_NOT_MODIFIED} if <code>lastETag</code> is still valid
+     */
     @WorkerThread
     public static Capabilities getCapabilities(@NonNull Context context, @NonNull SingleSignOnAccount ssoAccount, @Nullable String lastETag, @NonNull ApiProvider apiProvider) throws Throwable {
         final var ocsAPI = apiProvider.getOcsAPI(context, ssoAccount);
@@ -79,4 +155,15 @@ public class CapabilitiesClient {
         }
         return null;
     }
+
+    private static class CachedCapabilities {
+        @NonNull
+        private final Capabilities capabilities;
+        private final long fetchedAt;
+
+        private CachedCapabilities(@NonNull Capabilities capabilities, long fetchedAt) {
+            this.capabilities = capabilities;
+            this.fetchedAt = fetchedAt;
+        }
+    }
 }
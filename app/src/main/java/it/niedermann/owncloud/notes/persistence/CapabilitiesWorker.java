@@ -54,7 +54,11 @@ public class CapabilitiesWorker extends Worker {
                 final var ssoAccount = AccountImporter.getSingleSignOnAccount(getApplicationContext(), account.getAccountName());
 
                 Log.i(TAG, "Refreshing capabilities for " + ssoAccount.name);
-                final var capabilities = CapabilitiesClient.getCapabilities(getApplicationContext(), ssoAccount, account.getCapabilitiesETag(), ApiProvider.getInstance());
+                final var capabilities = CapabilitiesClient.getCapabilitiesIfModified(getApplicationContext(), ssoAccount, account.getCapabilitiesETag(), ApiProvider.getInstance());
+                if (capabilities == null) {
+                    Log.i(TAG, "Capabilities not modified.");
+                    continue;
+                }
                 repo.updateCapabilitiesETag(account.getId(), capabilities.getETag());
                 repo.updateBrand(account.getId(), capabilities.getColor());
                 repo.updateApiVersion(account.getId(), capabilities.getApiVersion());
@@ -63,10 +67,7 @@ public class CapabilitiesWorker extends Worker {
                 repo.updateDisplayName(account.getId(), CapabilitiesClient.getDisplayName(getApplicationContext(), ssoAccount, ApiProvider.getInstance()));
             } catch (Throwable e) {
                 if (e instanceof NextcloudHttpRequestFailedException) {
-                    if (((NextcloudHttpRequestFailedException) e).getStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
-                        Log.i(TAG, "Capabilities not modified.");
-                        return Result.success();
-                    } else if (((NextcloudHttpRequestFailedException) e).getStatusCode() == HttpURLConnection.HTTP_UNAVAILABLE) {
+                    if (((NextcloudHttpRequestFailedException) e).getStatusCode() == HttpURLConnection.HTTP_UNAVAILABLE) {
                         Log.i(TAG, "Server is in maintenance mode.");
                         return Result.success();
                     }
@@ -0,0 +1,245 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.persistence;
+
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.core.util.Consumer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import it.niedermann.owncloud.notes.persistence.entity.Account;
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.shared.model.ISyncCallback;
+
+/**
+ * Saves the content of one edited {@link Note} on a writer thread:
+ * <ul>
+ *     <li>Callers only hand over a snapshot of the content, the database is never accessed on the calling thread</li>
+ *     <li>Snapshots may be handed over as {@link Supplier}, so e.g. huge contents can be assembled on the writer thread</li>
+ *     <li>Snapshots which arrive while a previous one is still being written are merged, only the latest one gets written</li>
+ *     <li>Snapshots which equal the last written content are skipped, comparing the hash first so changed content does not need to be compared char by char</li>
+ * </ul>
+ * Create one instance per edited {@link Note} using {@link NotesRepository#createNoteSaveQueue()}.
+ */
+public class NoteSaveQueue {
+
+    private static final String TAG = NoteSaveQueue.class.getSimpleName();
+
+    interface Writer {
+        @WorkerThread
+        Note updateNoteAndSync(@NonNull Account account, @NonNull Note note, @NonNull String content, @Nullable String title, @Nullable ISyncCallback callback);
+
+        @WorkerThread
+        void updateScrollY(long noteId, int scrollY);
+    }
+
+    @NonNull
+    private final Executor writerExecutor;
+    @NonNull
+    private final Executor mainExecutor;
+    @NonNull
+    private final Writer writer;
+
+    // guarded by this
+    @Nullable
+    private Request pending;
+    // guarded by this
+    private boolean draining = false;
+    // only accessed by the writer thread after initialization
+    @Nullable
+    private String savedContent;
+    private int savedContentHash;
+    private int savedScrollY;
+    // only accessed on the main thread
+    private long requestedGeneration = 0;
+
+    NoteSaveQueue(@NonNull Executor writerExecutor, @NonNull Executor mainExecutor, @NonNull Writer writer) {
+        this.writerExecutor = writerExecutor;
+        this.mainExecutor = mainExecutor;
+        this.writer = writer;
+    }
+
+    /**
+     * Sets the state which is currently stored in the database, e.g. after the {@link Note} has been loaded.
+     */
+    @MainThread
+    public void setSaved(@NonNull Note note) {
+        final var content = note.getContent();
+        final int scrollY = note.getScrollY();
+        writerExecutor.execute(() -> {
+            savedContent = content;
+            savedContentHash = content.hashCode();
+            savedScrollY = scrollY;
+        });
+    }
+
+    /**
+     * Saves the given <code>content</code> snapshot of the {@link Note}.
+     *
+     * @param title    a new title, <code>null</code> to keep or derive it like {@link NotesRepository#updateNoteAndSync(Account, Note, String, String, ISyncCallback)} does
+     * @param callback gets notified about the synchronization of the saved {@link Note}, or immediately finished if nothing changed
+     * @param onSaved  is called on the main thread with the saved {@link Note}, unless a newer snapshot has been requested meanwhile
+     */
+    @MainThread
+    public void save(@NonNull Account account, @NonNull Note note, @NonNull String content, @Nullable String title, @Nullable ISyncCallback callback, @NonNull Consumer<Note> onSaved) {
+        save(account, note, () -> content, title, callback, onSaved);
+    }
+
+    /**
+     * Like {@link #save(Account, Note, String, String, ISyncCallback, Consumer)}, but the <code>content</code> snapshot is only resolved on the writer thread.
+     * Snapshots which get merged into a later one are never resolved.
+     *
+     * @param content must return the same immutable content whenever it is called, from any thread
+     */
+    @MainThread
+    public void save(@NonNull Account account, @NonNull Note note, @NonNull Supplier<String> content, @Nullable String title, @Nullable ISyncCallback callback, @NonNull Consumer<Note> onSaved) {
+        final var request = new Request(account, note, content, title, note.getScrollY(), ++requestedGeneration, onSaved);
+        if (callback != null) {
+            request.callbacks.add(callback);
+        }
+        final boolean startDraining;
+        synchronized (this) {
+            if (pending != null) {
+                Log.v(TAG, "Merging save of note #" + note.getId() + " into the next one");
+                request.callbacks.addAll(0, pending.callbacks);
+                if (request.title == null) {
+                    request.title = pending.title;
+                }
+            }
+            pending = request;
+            startDraining = !draining;
+            draining = true;
+        }
+        if (startDraining) {
+            writerExecutor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Runs the given <code>runnable</code> on the writer thread after all {@link #save(Account, Note, String, String, ISyncCallback, Consumer)}s requested so far,
+     * e.g. to delete or restore the {@link Note} without being overwritten by a pending save.
+     */
+    @MainThread
+    public void afterPendingSaves(@NonNull Runnable runnable) {
+        writerExecutor.execute(runnable);
+    }
+
+    /**
+     * Blocks until all {@link #save(Account, Note, String, String, ISyncCallback, Consumer)}s requested so far have been written,
+     * no matter which {@link NoteSaveQueue} of the same {@link NotesRepository} they have been requested on.
+     */
+    @WorkerThread
+    public void awaitPendingSaves() throws InterruptedException {
+        final var latch = new CountDownLatch(1);
+        writerExecutor.execute(latch::countDown);
+        latch.await();
+    }
+
+    @WorkerThread
+    private void drain() {
+        while (true) {
+            final Request request;
+            synchronized (this) {
+                request = pending;
+                pending = null;
+                if (request == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            write(request);
+        }
+    }
+
+    @WorkerThread
+    private void write(@NonNull Request request) {
+        final var content = request.content.get();
+        final int hash = content.hashCode();
+        if (request.title == null && hash == savedContentHash && content.equals(savedContent)) {
+            if (request.scrollY != savedScrollY) {
+                Log.v(TAG, "... only saving new scroll state, since content did not change");
+                writer.updateScrollY(request.note.getId(), request.scrollY);
+                savedScrollY = request.scrollY;
+            } else {
+                Log.v(TAG, "... not saving, since nothing has changed");
+            }
+            // Nothing needs to be synchronized, just like updateNoteAndSync does for unchanged rows
+            request.callbacks.forEach(ISyncCallback::onFinish);
+            notifySaved(request, request.note);
+            return;
+        }
+        final var savedNote = writer.updateNoteAndSync(request.account, request.note, content, request.title, mergeCallbacks(request.callbacks));
+        savedContent = content;
+        savedContentHash = hash;
+        savedScrollY = request.scrollY;
+        notifySaved(request, savedNote);
+    }
+
+    private void notifySaved(@NonNull Request request, @NonNull Note savedNote) {
+        mainExecutor.execute(() -> {
+            if (request.generation == requestedGeneration) {
+                request.onSaved.accept(savedNote);
+            }
+        });
+    }
+
+    @Nullable
+    private static ISyncCallback mergeCallbacks(@NonNull List<ISyncCallback> callbacks) {
+        if (callbacks.isEmpty()) {
+            return null;
+        } else if (callbacks.size() == 1) {
+            return callbacks.get(0);
+        }
+        return new ISyncCallback() {
+            @Override
+            public void onFinish() {
+                callbacks.forEach(ISyncCallback::onFinish);
+            }
+
+            @Override
+            public void onScheduled() {
+                callbacks.forEach(ISyncCallback::onScheduled);
+            }
+        };
+    }
+
+    private static class Request {
+        @NonNull
+        private final Account account;
+        @NonNull
+        private final Note note;
+        @NonNull
+        private final Supplier<String> content;
+        @Nullable
+        private String title;
+        private final int scrollY;
+        private final long generation;
+        @NonNull
+        private final Consumer<Note> onSaved;
+        @NonNull
+        private final List<ISyncCallback> callbacks = new ArrayList<>();
+
+        private Request(@NonNull Account account, @NonNull Note note, @NonNull Supplier<String> content, @Nullable String title, int scrollY, long generation, @NonNull Consumer<Note> onSaved) {
+            this.account = account;
+            this.note = note;
+            this.content = content;
+            this.title = title;
+            this.scrollY = scrollY;
+            this.generation = generation;
+            this.onSaved = onSaved;
+        }
+    }
+}
@@ -28,6 +28,7 @@ import it.niedermann.owncloud.notes.persistence.entity.Account;
 import it.niedermann.owncloud.notes.persistence.entity.CategoryOptions;
 import it.niedermann.owncloud.notes.persistence.entity.Converters;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.persistence.entity.NoteFts;
 import it.niedermann.owncloud.notes.persistence.entity.NotesListWidgetData;
 import it.niedermann.owncloud.notes.persistence.entity.ShareEntity;
 import it.niedermann.owncloud.notes.persistence.entity.SingleNoteWidgetData;
@@ -46,6 +47,11 @@ import it.niedermann.owncloud.notes.persistence.migration.Migration_21_22;
 import it.niedermann.owncloud.notes.persistence.migration.Migration_22_23;
 import it.niedermann.owncloud.notes.persistence.migration.Migration_23_24;
 import it.niedermann.owncloud.notes.persistence.migration.Migration_24_25;
+import it.niedermann.owncloud.notes.persistence.migration.Migration_30_31;
+import it.niedermann.owncloud.notes.persistence.migration.Migration_31_32;
+import it.niedermann.owncloud.notes.persistence.migration.Migration_32_33;
+import it.niedermann.owncloud.notes.persistence.migration.Migration_33_34;
+import it.niedermann.owncloud.notes.persistence.migration.Migration_34_35;
 import it.niedermann.owncloud.notes.persistence.migration.Migration_9_10;
 import it.niedermann.owncloud.notes.shared.model.Capabilities;
 
@@ -53,12 +59,13 @@ import it.niedermann.owncloud.notes.shared.model.Capabilities;
     entities = {
         Account.class,
         Note.class,
+        NoteFts.class,
         CategoryOptions.class,
         SingleNoteWidgetData.class,
         NotesListWidgetData.class,
         ShareEntity.class,
         Capabilities.class
-    }, version = 30,
+    }, version = 35,
     autoMigrations = {
         @AutoMigration(from = 25, to = 26),
         @AutoMigration(from = 26, to = 27),
@@ -102,19 +109,25 @@ public abstract class NotesDatabase extends RoomDatabase {
                         new Migration_21_22(context),
                         new Migration_22_23(),
                         new Migration_23_24(context),
-                        new Migration_24_25()
+                        new Migration_24_25(),
+                        new Migration_30_31(),
+                        new Migration_31_32(),
+                        new Migration_32_33(),
+                        new Migration_33_34(),
+                        new Migration_34_35()
                 )
                 .addCallback(new RoomDatabase.Callback() {
                     @Override
                     public void onCreate(@NonNull SupportSQLiteDatabase db) {
                         super.onCreate(db);
-                        final String cleanUpStatement = "DELETE FROM CategoryOptions WHERE CategoryOptions.category NOT IN (SELECT Note.category FROM Note WHERE Note.accountId = CategoryOptions.accountId);";
+                        final String cleanUpStatement = "DELETE FROM CategoryOptions WHERE CategoryOptions.accountId = OLD.accountId AND CategoryOptions.category = OLD.category AND NOT EXISTS (SELECT 1 FROM Note WHERE Note.accountId = OLD.accountId AND Note.category = OLD.category);";
                         db.execSQL("CREATE TRIGGER TRG_CLEANUP_CATEGORIES_DEL AFTER DELETE ON Note BEGIN " + cleanUpStatement + " END;");
-                        db.execSQL("CREATE TRIGGER TRG_CLEANUP_CATEGORIES_UPD AFTER UPDATE ON Note BEGIN " + cleanUpStatement + " END;");
+                        db.execSQL("CREATE TRIGGER TRG_CLEANUP_CATEGORIES_UPD AFTER UPDATE OF category ON Note WHEN OLD.category != NEW.category BEGIN " + cleanUpStatement + " END;");
+                        Migration_33_34.createCollatedAndPartialIndices(db);
                         Log.v(TAG, NotesDatabase.class.getSimpleName() + " created.");
                     }
                 })
-                .allowMainThreadQueries() // FIXME Needed in BaseNoteFragment#saveNote()
+                .allowMainThreadQueries() // FIXME Still needed e.g. in EditNoteActivity, NotePreviewFragment link handling, the share activities and the widget providers
                 .build();
     }
 
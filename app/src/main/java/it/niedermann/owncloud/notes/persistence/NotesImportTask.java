@@ -7,6 +7,8 @@
 package it.niedermann.owncloud.notes.persistence;
 
 import android.content.Context;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -16,20 +18,57 @@ import androidx.lifecycle.MutableLiveData;
 import com.nextcloud.android.sso.AccountImporter;
 import com.nextcloud.android.sso.exceptions.NextcloudFilesAppAccountNotFoundException;
 
-import java.util.concurrent.CountDownLatch;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import it.niedermann.owncloud.notes.persistence.entity.Account;
+import it.niedermann.owncloud.notes.persistence.entity.Note;
 import it.niedermann.owncloud.notes.persistence.sync.NotesAPI;
 import it.niedermann.owncloud.notes.shared.model.IResponseCallback;
 import it.niedermann.owncloud.notes.shared.model.ImportStatus;
 import it.niedermann.owncloud.notes.shared.util.ApiVersionUtil;
 
+/**
+ * Imports the notes of an account in two stages:
+ * <ol>
+ *     <li>{@link #importNotes(IResponseCallback)} imports the metadata of all notes and marks their content as stale</li>
+ *     <li>{@link #importContents(IResponseCallback)} fetches the stale contents in the background</li>
+ * </ol>
+ * Both stages work in pages, write each page within a single transaction and report their progress as {@link ImportStatus}.
+ */
 public class NotesImportTask {
 
     private static final String TAG = NotesImportTask.class.getSimpleName();
 
+    private static final String HEADER_KEY_LAST_MODIFIED = "Last-Modified";
+
+    /**
+     * Number of notes which are requested at once and inserted within one transaction.
+     */
+    private static final int METADATA_PAGE_SIZE = 100;
+    /**
+     * Number of contents which are fetched before they are written within one transaction.
+     */
+    private static final int CONTENT_PAGE_SIZE = 20;
+    /**
+     * Maximum number of contents which are fetched at the same time.
+     */
+    private static final int CONTENT_FETCH_THREADS = 4;
+    /**
+     * Minimum time between two progress updates, the final state is always published.
+     */
+    private static final long STATUS_THROTTLE_MILLIS = 250;
+
     private final NotesAPI notesAPI;
     @NonNull
     private final NotesRepository repo;
@@ -37,64 +76,185 @@ public class NotesImportTask {
     private final Account localAccount;
     @NonNull
     private final ExecutorService executor;
-    @NonNull
-    private final ExecutorService fetchExecutor;
 
     NotesImportTask(@NonNull Context context, @NonNull NotesRepository repo, @NonNull Account localAccount, @NonNull ExecutorService executor, @NonNull ApiProvider apiProvider) throws NextcloudFilesAppAccountNotFoundException {
-        this(context, repo, localAccount, executor, Executors.newFixedThreadPool(20), apiProvider);
-    }
-
-    private NotesImportTask(@NonNull Context context, @NonNull NotesRepository repo, @NonNull Account localAccount, @NonNull ExecutorService executor, @NonNull ExecutorService fetchExecutor, @NonNull ApiProvider apiProvider) throws NextcloudFilesAppAccountNotFoundException {
         this.repo = repo;
         this.localAccount = localAccount;
         this.executor = executor;
-        this.fetchExecutor = fetchExecutor;
         this.notesAPI = apiProvider.getNotesAPI(context, AccountImporter.getSingleSignOnAccount(context, localAccount.getAccountName()), ApiVersionUtil.getPreferredApiVersion(localAccount.getApiVersion()));
     }
 
+    /**
+     * Imports only the metadata of all remote notes. Their content is marked as stale and fetched later, either when a note is opened or by {@link #importContents(IResponseCallback)}.
+     */
     public LiveData<ImportStatus> importNotes(@NonNull IResponseCallback<Void> callback) {
-        final var status$ = new MutableLiveData<ImportStatus>();
+        final var progress = new Progress();
         Log.i(TAG, "STARTING IMPORT");
         executor.submit(() -> {
-            Log.i(TAG, "… Fetching notes IDs");
-            final var status = new ImportStatus();
+            Log.i(TAG, "… Fetching notes metadata");
             try {
-                final var remoteIds = notesAPI.getNotesIDs().blockingSingle();
-                status.total = remoteIds.size();
-                status$.postValue(status);
-                Log.i(TAG, "… Total count: " + remoteIds.size());
-                final var latch = new CountDownLatch(remoteIds.size());
-                for (long id : remoteIds) {
-                    fetchExecutor.submit(() -> {
-                        try {
-                            repo.addNote(localAccount.getId(), notesAPI.getNote(id).blockingSingle().getResponse());
-                        } catch (Throwable t) {
-                            Log.w(TAG, "Could not import note with remoteId " + id + ": " + t.getMessage());
-                            status.warnings.add(t);
-                        }
-                        status.count++;
-                        status$.postValue(status);
-                        latch.countDown();
-                    });
-                }
-                try {
-                    latch.await();
-                    Log.i(TAG, "IMPORT FINISHED");
-                    callback.onSuccess(null);
-                } catch (InterruptedException e) {
-                    callback.onError(e);
+                String lastModifiedHeader = null;
+                String chunkCursor = null;
+                do {
+                    final var response = notesAPI.getNotesMetadata(METADATA_PAGE_SIZE, chunkCursor).blockingSingle();
+                    if (chunkCursor == null) {
+                        // The state of the first chunk, changes made while fetching the following chunks will be pulled by the next synchronization
+                        lastModifiedHeader = response.getHeaders().get(HEADER_KEY_LAST_MODIFIED);
+                    }
+                    chunkCursor = response.getHeaders().get(NotesAPI.HEADER_KEY_X_NOTES_CHUNK_CURSOR);
+                    // Notes which are not part of this chunk might be listed with their id only
+                    final var remoteNotes = response.getResponse().stream()
+                            .filter(note -> note.getModified() != null)
+                            .collect(Collectors.toList());
+                    progress.grow(remoteNotes.size());
+                    Log.i(TAG, "… Fetched " + remoteNotes.size() + " notes" + (chunkCursor == null ? "" : ", more to come"));
+                    for (final var note : remoteNotes) {
+                        note.setContentStale(true);
+                    }
+                    // Servers without support for chunks return all notes at once
+                    for (int from = 0; from < remoteNotes.size(); from += METADATA_PAGE_SIZE) {
+                        final var page = remoteNotes.subList(from, Math.min(from + METADATA_PAGE_SIZE, remoteNotes.size()));
+                        repo.applyRemoteChanges(localAccount.getId(), page, Collections.emptyList(), Collections.emptyList());
+                        progress.advance(page.size());
+                    }
+                } while (chunkCursor != null);
+                // Let the next pull only transfer notes which have been modified since the import instead of all contents
+                if (lastModifiedHeader != null) {
+                    repo.updateModified(localAccount.getId(), Date.parse(lastModifiedHeader));
                 }
+                progress.finish();
+                Log.i(TAG, "IMPORT FINISHED");
+                callback.onSuccess(null);
             } catch (Throwable t) {
                 final Throwable cause = t.getCause();
                 if (t.getClass() == RuntimeException.class && cause != null) {
-                    Log.e(TAG, "Could not fetch list of note IDs: " + cause.getMessage());
+                    Log.e(TAG, "Could not fetch list of notes: " + cause.getMessage());
                     callback.onError(cause);
                 } else {
-                    Log.e(TAG, "Could not fetch list of note IDs: " + t.getMessage());
+                    Log.e(TAG, "Could not fetch list of notes: " + t.getMessage());
                     callback.onError(t);
                 }
             }
         });
-        return status$;
+        return progress.status$;
+    }
+
+    /**
+     * Fetches the contents of all {@link Note}s of the account which have only been imported partially, most recently modified first.
+     * Stops as soon as synchronization is no longer possible, the remaining contents are fetched on the next run or when a note is opened.
+     * Contents which could not be fetched are reported as {@link ImportStatus#warnings}.
+     */
+    public LiveData<ImportStatus> importContents(@NonNull IResponseCallback<Void> callback) {
+        final var progress = new Progress();
+        executor.submit(() -> {
+            final var fetchExecutor = Executors.newFixedThreadPool(CONTENT_FETCH_THREADS, runnable -> new Thread(() -> {
+                // Fetching runs in the background and must not slow down the UI
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "NotesContentFetch"));
+            try {
+                final var noteIds = repo.getNoteIdsWithStaleContent(localAccount.getId());
+                progress.start(noteIds.size());
+                Log.i(TAG, "Fetching " + noteIds.size() + " stale contents for " + localAccount.getAccountName());
+                for (int from = 0; from < noteIds.size(); from += CONTENT_PAGE_SIZE) {
+                    if (!repo.isSyncPossible()) {
+                        Log.i(TAG, "Synchronization is no longer possible, stop fetching stale contents");
+                        break;
+                    }
+                    final var futures = new ArrayList<Future<Note>>(CONTENT_PAGE_SIZE);
+                    for (final long noteId : noteIds.subList(from, Math.min(from + CONTENT_PAGE_SIZE, noteIds.size()))) {
+                        futures.add(fetchExecutor.submit(() -> fetchContent(noteId, progress)));
+                    }
+                    final var page = new ArrayList<Note>(futures.size());
+                    for (final var future : futures) {
+                        final var note = future.get();
+                        if (note != null) {
+                            page.add(note);
+                        }
+                    }
+                    repo.updateStaleContents(page);
+                }
+                progress.finish();
+                Log.i(TAG, "Fetched stale contents for " + localAccount.getAccountName() + " with " + progress.warnings.size() + " warnings");
+                callback.onSuccess(null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                callback.onError(e);
+            } catch (ExecutionException e) {
+                callback.onError(e.getCause() == null ? e : e.getCause());
+            } catch (Throwable t) {
+                callback.onError(t);
+            } finally {
+                fetchExecutor.shutdownNow();
+            }
+        });
+        return progress.status$;
+    }
+
+    /**
+     * @return the {@link Note} with the fetched content or <code>null</code> if it does not need to or could not be fetched
+     */
+    private Note fetchContent(long noteId, @NonNull Progress progress) {
+        try {
+            final var note = repo.getNoteById(noteId);
+            final Long remoteId = note == null ? null : note.getRemoteId();
+            if (remoteId == null || !note.isContentStale()) {
+                return null;
+            }
+            note.setContent(notesAPI.getNote(remoteId).blockingSingle().getResponse().getContent());
+            return note;
+        } catch (Throwable t) {
+            Log.w(TAG, "Could not fetch content of note #" + noteId + ": " + t.getMessage());
+            progress.warnings.add(t);
+            return null;
+        } finally {
+            progress.advance(1);
+        }
+    }
+
+    /**
+     * Thread safe progress of one stage which publishes its state at most every {@link #STATUS_THROTTLE_MILLIS}.
+     */
+    private static class Progress {
+        private final MutableLiveData<ImportStatus> status$ = new MutableLiveData<>();
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicLong lastPublished = new AtomicLong();
+        private final Collection<Throwable> warnings = new ConcurrentLinkedQueue<>();
+        private volatile int total = 0;
+
+        void start(int total) {
+            this.total = total;
+            publish();
+        }
+
+        /**
+         * Adds to the total, e.g. when it is only known chunk by chunk.
+         */
+        void grow(int delta) {
+            total += delta;
+            publish();
+        }
+
+        void advance(int delta) {
+            count.addAndGet(delta);
+            final long now = SystemClock.elapsedRealtime();
+            final long last = lastPublished.get();
+            if (now - last >= STATUS_THROTTLE_MILLIS && lastPublished.compareAndSet(last, now)) {
+                publish();
+            }
+        }
+
+        void finish() {
+            publish();
+        }
+
+        private void publish() {
+            // Each update gets its own instance, so observers never see it change
+            final var status = new ImportStatus();
+            status.count = count.get();
+            status.total = total;
+            status.warnings.addAll(warnings);
+            status$.postValue(status);
+        }
     }
 }
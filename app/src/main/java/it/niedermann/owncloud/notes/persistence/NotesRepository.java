@@ -10,12 +10,17 @@ import static android.os.Build.VERSION.SDK_INT;
 import static android.os.Build.VERSION_CODES.O;
 import static androidx.lifecycle.Transformations.distinctUntilChanged;
 import static androidx.lifecycle.Transformations.map;
+import static androidx.lifecycle.Transformations.switchMap;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 import static it.niedermann.owncloud.notes.edit.EditNoteActivity.ACTION_SHORTCUT;
 import static it.niedermann.owncloud.notes.shared.util.ApiVersionUtil.getPreferredApiVersion;
 import static it.niedermann.owncloud.notes.shared.util.NoteUtil.generateNoteExcerpt;
-import static it.niedermann.owncloud.notes.widget.notelist.NoteListWidget.updateNoteListWidgets;
-import static it.niedermann.owncloud.notes.widget.singlenote.SingleNoteWidget.updateSingleNoteWidgets;
+import static it.niedermann.owncloud.notes.shared.util.NoteUtil.generateSyncHash;
+import static it.niedermann.owncloud.notes.shared.util.NoteUtil.toFtsMatchQuery;
 
 import android.accounts.NetworkErrorException;
 import android.content.Context;
@@ -37,10 +42,13 @@ import androidx.annotation.ColorInt;
 import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
+import androidx.core.content.ContextCompat;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Observer;
+import androidx.paging.PagingSource;
 import androidx.preference.PreferenceManager;
 
 import com.nextcloud.android.sso.AccountImporter;
@@ -48,18 +56,20 @@ import com.nextcloud.android.sso.exceptions.NextcloudFilesAppAccountNotFoundExce
 import com.nextcloud.android.sso.exceptions.NoCurrentAccountSelectedException;
 import com.nextcloud.android.sso.helper.SingleAccountHelper;
 import com.nextcloud.android.sso.model.SingleSignOnAccount;
-import com.owncloud.android.lib.common.utils.Log_OC;
 import com.owncloud.android.lib.resources.shares.OCShare;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import it.niedermann.android.sharedpreferences.SharedPreferenceIntLiveData;
 import it.niedermann.owncloud.notes.BuildConfig;
@@ -70,8 +80,10 @@ import it.niedermann.owncloud.notes.persistence.entity.CategoryOptions;
 import it.niedermann.owncloud.notes.persistence.entity.CategoryWithNotesCount;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
 import it.niedermann.owncloud.notes.persistence.entity.NotesListWidgetData;
+import it.niedermann.owncloud.notes.persistence.entity.NotesListWidgetEntry;
 import it.niedermann.owncloud.notes.persistence.entity.ShareEntity;
 import it.niedermann.owncloud.notes.persistence.entity.SingleNoteWidgetData;
+import it.niedermann.owncloud.notes.persistence.sync.NotesAPI;
 import it.niedermann.owncloud.notes.shared.model.ApiVersion;
 import it.niedermann.owncloud.notes.shared.model.Capabilities;
 import it.niedermann.owncloud.notes.shared.model.CategorySortingMethod;
@@ -81,10 +93,12 @@ import it.niedermann.owncloud.notes.shared.model.IResponseCallback;
 import it.niedermann.owncloud.notes.shared.model.ISyncCallback;
 import it.niedermann.owncloud.notes.shared.model.ImportStatus;
 import it.niedermann.owncloud.notes.shared.model.NavigationCategory;
+import it.niedermann.owncloud.notes.shared.model.NavigationCounts;
 import it.niedermann.owncloud.notes.shared.model.NotesSettings;
 import it.niedermann.owncloud.notes.shared.model.SyncResultStatus;
 import it.niedermann.owncloud.notes.shared.util.ApiVersionUtil;
 import it.niedermann.owncloud.notes.shared.util.ConnectionLiveData;
+import it.niedermann.owncloud.notes.shared.util.DebouncedLiveData;
 import it.niedermann.owncloud.notes.shared.util.NoteUtil;
 import it.niedermann.owncloud.notes.shared.util.SSOUtil;
 import retrofit2.Call;
@@ -94,12 +108,66 @@ public class NotesRepository {
 
     private static final String TAG = NotesRepository.class.getSimpleName();
 
+    /**
+     * Maximum number of rows written per transaction when applying remote changes.
+     * Also keeps <code>IN (…)</code> lists below the SQLite host parameter limit.
+     */
+    private static final int REMOTE_CHANGES_CHUNK_SIZE = 500;
+
+    /**
+     * Number of local changes pushed to the server at the same time if nothing else has been configured for an account.
+     */
+    static final int DEFAULT_PUSH_CONCURRENCY = 4;
+
+    /**
+     * Prefix of the {@link SharedPreferences} key storing the push concurrency of an account, followed by its id.
+     */
+    private static final String PREF_KEY_PUSH_CONCURRENCY_PREFIX = "push_concurrency_";
+
+    /**
+     * Requests to push local changes arriving within this time are merged into one synchronization.
+     */
+    private static final long SYNC_DEBOUNCE_MILLIS = 500;
+
+    /**
+     * Changes of the navigation counts arriving within this time, e.g. while a synchronization writes many notes, result in one update.
+     */
+    private static final long NAVIGATION_COUNTS_DEBOUNCE_MILLIS = 300;
+
+    /**
+     * Widget invalidations within this time are merged into one update of the affected widgets.
+     */
+    private static final long WIDGET_UPDATE_THROTTLE_MILLIS = 500;
+
+    /**
+     * Debounces synchronizations and throttles widget updates of all instances.
+     * Runs on a daemon thread, since it only delays work and must not keep the process alive.
+     */
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final var thread = new Thread(runnable, "NotesRepositoryTimer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private static NotesRepository instance;
 
     private final ApiProvider apiProvider;
     private ExecutorService executor;
-    private final ExecutorService syncExecutor;
+    private final SyncScheduler syncScheduler;
+    private final WidgetInvalidator widgetInvalidator;
     private final ExecutorService importExecutor;
+    /**
+     * Fetches stale contents in the background with a low priority, see {@link #fetchStaleContentsInBackground(Account)}.
+     */
+    private final ExecutorService staleContentExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        final var thread = new Thread(runnable, "StaleContentFetcher");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    /**
+     * Writes the contents of edited notes, see {@link NoteSaveQueue}.
+     */
+    private final ExecutorService noteWriterExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "NoteWriter"));
     private Context context;
     private final NotesDatabase db;
     private final String defaultNonEmptyTitle;
@@ -109,6 +177,11 @@ public class NotesRepository {
     private String syncOnlyOnWifiKey;
     private boolean syncOnlyOnWifi;
     private final MutableLiveData<Boolean> syncStatus = new MutableLiveData<>(false);
+    /**
+     * Number of synchronizations which are currently running, since different accounts are synchronized in parallel.
+     * Guarded by {@link #syncStatus}.
+     */
+    private int runningSyncs = 0;
     private final MutableLiveData<ArrayList<Throwable>> syncErrors = new MutableLiveData<>();
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
@@ -142,18 +215,21 @@ public class NotesRepository {
         }
     };
 
-    // current state of the synchronization
-    private final Map<Long, Boolean> syncActive = new ConcurrentHashMap<>();
-    private final Map<Long, Boolean> syncScheduled = new ConcurrentHashMap<>();
-
     // list of callbacks for both parts of synchronization
     private final Map<Long, List<ISyncCallback>> callbacksPush = new ConcurrentHashMap<>();
     private final Map<Long, List<ISyncCallback>> callbacksPull = new ConcurrentHashMap<>();
 
+    // accounts for which stale contents are currently fetched in the background
+    private final Set<Long> staleContentFetchActive = ConcurrentHashMap.newKeySet();
+
+    // last stored capabilities, so readers and unchanged updates do not need to access the database
+    @Nullable
+    private volatile Capabilities capabilities;
+
 
     public static synchronized NotesRepository getInstance(@NonNull Context context) {
         if (instance == null) {
-            instance = new NotesRepository(context, NotesDatabase.getInstance(context.getApplicationContext()), Executors.newCachedThreadPool(), Executors.newSingleThreadExecutor(), Executors.newSingleThreadExecutor(), ApiProvider.getInstance());
+            instance = new NotesRepository(context, NotesDatabase.getInstance(context.getApplicationContext()), Executors.newCachedThreadPool(), Executors.newCachedThreadPool(), Executors.newSingleThreadExecutor(), ApiProvider.getInstance());
         }
         return instance;
     }
@@ -162,7 +238,8 @@ public class NotesRepository {
         this.context = context.getApplicationContext();
         this.db = db;
         this.executor = executor;
-        this.syncExecutor = syncExecutor;
+        this.syncScheduler = new SyncScheduler(syncExecutor, TIMER, SYNC_DEBOUNCE_MILLIS, this::sync);
+        this.widgetInvalidator = new WidgetInvalidator(this.context, db, TIMER, WIDGET_UPDATE_THROTTLE_MILLIS);
         this.importExecutor = importExecutor;
         this.apiProvider = apiProvider;
         this.defaultNonEmptyTitle = NoteUtil.generateNonEmptyNoteTitle("", this.context);
@@ -236,14 +313,15 @@ public class NotesRepository {
     // Accounts
     @AnyThread
     public LiveData<ImportStatus> addAccount(@NonNull String url, @NonNull String username, @NonNull String accountName, @NonNull Capabilities capabilities, @Nullable String displayName, @NonNull IResponseCallback<Account> callback) {
-        db.getCapabilitiesDao().insert(capabilities);
+        insertCapabilities(capabilities);
 
         final var account = db.getAccountDao().getAccountById(db.getAccountDao().insert(new Account(url, username, accountName, displayName, capabilities)));
         if (account == null) {
             callback.onError(new Exception("Could not read created account."));
         } else {
             if (isSyncPossible()) {
-                syncActive.put(account.getId(), true);
+                // Do not synchronize while the notes are being imported
+                syncScheduler.suspend(account);
                 try {
                     Log.d(TAG, "… starting now");
                     final NotesImportTask importTask = new NotesImportTask(context, this, account, importExecutor, apiProvider);
@@ -251,11 +329,14 @@ public class NotesRepository {
                         @Override
                         public void onSuccess(Void result) {
                             callback.onSuccess(account);
+                            syncScheduler.resume(account.getId());
+                            fetchStaleContentsInBackground(account);
                         }
 
                         @Override
                         public void onError(@NonNull Throwable t) {
                             Log.e(TAG, "… Error while importing " + account.getAccountName() + ": " + t.getMessage());
+                            syncScheduler.resume(account.getId());
                             deleteAccount(account);
                             SingleAccountHelper.commitCurrentAccount(context, null);
                             callback.onError(t);
@@ -264,6 +345,7 @@ public class NotesRepository {
                 } catch (NextcloudFilesAppAccountNotFoundException e) {
                     Log.e(TAG, "… Could not find " + SingleSignOnAccount.class.getSimpleName() + " for account name " + account.getAccountName());
                     importExecutor.submit(() -> {
+                        syncScheduler.resume(account.getId());
                         deleteAccount(account);
                         SingleAccountHelper.commitCurrentAccount(context, null);
                         callback.onError(e);
@@ -295,11 +377,20 @@ public class NotesRepository {
             apiProvider.invalidateAPICache();
         }
 
+        CapabilitiesClient.invalidateCache(account.getAccountName());
+        PreferenceManager.getDefaultSharedPreferences(context).edit()
+                .remove(PREF_KEY_PUSH_CONCURRENCY_PREFIX + account.getId())
+                .apply();
         db.getAccountDao().deleteAccount(account);
     }
 
     public Capabilities getCapabilities() {
-        return db.getCapabilitiesDao().getCapabilities();
+        var capabilities = this.capabilities;
+        if (capabilities == null) {
+            capabilities = db.getCapabilitiesDao().getCapabilities();
+            this.capabilities = capabilities;
+        }
+        return capabilities;
     }
 
     public Account getAccountByName(String accountName) {
@@ -334,8 +425,17 @@ public class NotesRepository {
         db.getAccountDao().updateCapabilitiesETag(id, capabilitiesETag);
     }
 
+    /**
+     * Stores the given {@param capabilities}, unless the stored ones have the same ETag.
+     */
     public void insertCapabilities(Capabilities capabilities) {
+        final var stored = this.capabilities;
+        if (stored != null && capabilities.getETag() != null && capabilities.getETag().equals(stored.getETag())) {
+            Log.v(TAG, "Capabilities with ETag " + capabilities.getETag() + " are already stored");
+            return;
+        }
         db.getCapabilitiesDao().insert(capabilities);
+        this.capabilities = capabilities;
     }
 
     public void updateModified(long id, long modified) {
@@ -356,16 +456,32 @@ public class NotesRepository {
         return db.getNoteDao().getNoteById(id);
     }
 
-    public Note getNoteByRemoteId(long id) {
-        return db.getNoteDao().getNoteByRemoteId(id);
+    /**
+     * @return those of the given ids whose {@link Note}s have neither been deleted nor marked as deleted
+     */
+    @WorkerThread
+    public List<Long> getExistingNoteIds(@NonNull Collection<Long> ids) {
+        return db.getNoteDao().getExistingNoteIds(ids);
+    }
+
+    @WorkerThread
+    public boolean areFavorites(@NonNull Collection<Long> ids) {
+        return db.getNoteDao().areFavorites(new ArrayList<>(ids));
     }
 
-    public LiveData<Integer> count$(long accountId) {
-        return db.getNoteDao().count$(accountId);
+    public Note getNoteByRemoteId(long id) {
+        return db.getNoteDao().getNoteByRemoteId(id);
     }
 
-    public LiveData<Integer> countFavorites$(long accountId) {
-        return db.getNoteDao().countFavorites$(accountId);
+    /**
+     * Total, favorite, uncategorized and per category counts of notes, which are queried at once and debounced,
+     * so the navigation is not refreshed for each single write to the {@link Note} table.
+     */
+    @MainThread
+    public LiveData<NavigationCounts> getNavigationCounts$(long accountId) {
+        return distinctUntilChanged(new DebouncedLiveData<>(
+                map(db.getNoteDao().getCategoriesWithFavorites$(accountId), NavigationCounts::new),
+                NAVIGATION_COUNTS_DEBOUNCE_MILLIS));
     }
 
     public void updateScrollY(long id, int scrollY) {
@@ -380,56 +496,96 @@ public class NotesRepository {
         return db.getNoteDao().searchCategories$(accountId, searchTerm);
     }
 
-    public LiveData<List<Note>> searchRecentByModified$(long accountId, String query) {
-        return db.getNoteDao().searchRecentByModified$(accountId, query);
+    /**
+     * The <code>search*</code> methods match each word of the {@param searchTerm} as prefix against
+     * title and content using the full text index. Pass <code>null</code> or a blank term to get all notes.
+     */
+    public LiveData<List<Note>> searchRecentByModified$(long accountId, @Nullable String searchTerm) {
+        return db.getNoteDao().searchRecentByModified$(accountId, toFtsMatchQuery(searchTerm));
     }
 
-    public List<Note> searchRecentByModified(long accountId, String query) {
-        return db.getNoteDao().searchRecentByModified(accountId, query);
+    public List<Note> searchRecentByModified(long accountId, @Nullable String searchTerm) {
+        return db.getNoteDao().searchRecentByModified(accountId, toFtsMatchQuery(searchTerm));
     }
 
-    public LiveData<List<Note>> searchRecentLexicographically$(long accountId, String query) {
-        return db.getNoteDao().searchRecentLexicographically$(accountId, query);
+    public LiveData<List<Note>> searchRecentLexicographically$(long accountId, @Nullable String searchTerm) {
+        return db.getNoteDao().searchRecentLexicographically$(accountId, toFtsMatchQuery(searchTerm));
     }
 
-    public LiveData<List<Note>> searchFavoritesByModified$(long accountId, String query) {
-        return db.getNoteDao().searchFavoritesByModified$(accountId, query);
+    public LiveData<List<Note>> searchFavoritesByModified$(long accountId, @Nullable String searchTerm) {
+        return db.getNoteDao().searchFavoritesByModified$(accountId, toFtsMatchQuery(searchTerm));
     }
 
-    public List<Note> searchFavoritesByModified(long accountId, String query) {
-        return db.getNoteDao().searchFavoritesByModified(accountId, query);
+    public List<Note> searchFavoritesByModified(long accountId, @Nullable String searchTerm) {
+        return db.getNoteDao().searchFavoritesByModified(accountId, toFtsMatchQuery(searchTerm));
     }
 
-    public LiveData<List<Note>> searchFavoritesLexicographically$(long accountId, String query) {
-        return db.getNoteDao().searchFavoritesLexicographically$(accountId, query);
+    public LiveData<List<Note>> searchFavoritesLexicographically$(long accountId, @Nullable String searchTerm) {
+        return db.getNoteDao().searchFavoritesLexicographically$(accountId, toFtsMatchQuery(searchTerm));
     }
 
-    public LiveData<List<Note>> searchUncategorizedByModified$(long accountId, String query) {
-        return db.getNoteDao().searchUncategorizedByModified$(accountId, query);
+    public LiveData<List<Note>> searchUncategorizedByModified$(long accountId, @Nullable String searchTerm) {
+        return db.getNoteDao().searchUncategorizedByModified$(accountId, toFtsMatchQuery(searchTerm));
     }
 
-    public List<Note> searchUncategorizedByModified(long accountId, String query) {
-        return db.getNoteDao().searchUncategorizedByModified(accountId, query);
+    public List<Note> searchUncategorizedByModified(long accountId, @Nullable String searchTerm) {
+        return db.getNoteDao().searchUncategorizedByModified(accountId, toFtsMatchQuery(searchTerm));
     }
 
-    public LiveData<List<Note>> searchUncategorizedLexicographically$(long accountId, String query) {
-        return db.getNoteDao().searchUncategorizedLexicographically$(accountId, query);
+    public LiveData<List<Note>> searchUncategorizedLexicographically$(long accountId, @Nullable String searchTerm) {
+        return db.getNoteDao().searchUncategorizedLexicographically$(accountId, toFtsMatchQuery(searchTerm));
     }
 
-    public LiveData<List<Note>> searchCategoryByModified$(long accountId, String query, String category) {
-        return db.getNoteDao().searchCategoryByModified$(accountId, query, category);
+    public LiveData<List<Note>> searchCategoryByModified$(long accountId, @Nullable String searchTerm, String category) {
+        return db.getNoteDao().searchCategoryByModified$(accountId, toFtsMatchQuery(searchTerm), category);
     }
 
-    public List<Note> searchCategoryByModified(long accountId, String query, String category) {
-        return db.getNoteDao().searchCategoryByModified(accountId, query, category);
+    public List<Note> searchCategoryByModified(long accountId, @Nullable String searchTerm, String category) {
+        return db.getNoteDao().searchCategoryByModified(accountId, toFtsMatchQuery(searchTerm), category);
     }
 
-    public LiveData<List<Note>> searchCategoryLexicographically$(long accountId, String query, String category) {
-        return db.getNoteDao().searchCategoryLexicographically$(accountId, query, category);
+    public LiveData<List<Note>> searchCategoryLexicographically$(long accountId, @Nullable String searchTerm, String category) {
+        return db.getNoteDao().searchCategoryLexicographically$(accountId, toFtsMatchQuery(searchTerm), category);
     }
 
-    public LiveData<List<CategoryWithNotesCount>> getCategories$(Long accountId) {
-        return db.getNoteDao().getCategories$(accountId);
+    /**
+     * Paged variant of the <code>search*</code> methods which only loads the {@link Note}s which are actually displayed.
+     * A new {@link PagingSource} must be created each time the previous one gets invalidated.
+     *
+     * @param sortingMethod <code>null</code> is treated as {@link CategorySortingMethod#SORT_LEXICOGRAPHICAL_ASC}
+     */
+    public PagingSource<Integer, Note> searchNotesPaged(long accountId, @NonNull NavigationCategory selectedCategory, @Nullable CategorySortingMethod sortingMethod, @Nullable String searchTerm) {
+        final var dao = db.getNoteDao();
+        final String query = toFtsMatchQuery(searchTerm);
+        final var method = sortingMethod == null ? CategorySortingMethod.SORT_LEXICOGRAPHICAL_ASC : sortingMethod;
+        return switch (selectedCategory.getType()) {
+            case RECENT -> switch (method) {
+                case SORT_MODIFIED_DESC -> dao.searchRecentByModifiedPaged(accountId, query);
+                case SORT_LEXICOGRAPHICAL_ASC -> dao.searchRecentLexicographicallyPaged(accountId, query);
+                case SORT_LEXICOGRAPHICAL_DESC -> dao.searchRecentLexicographicallyDescPaged(accountId, query);
+            };
+            case FAVORITES -> switch (method) {
+                case SORT_MODIFIED_DESC -> dao.searchFavoritesByModifiedPaged(accountId, query);
+                case SORT_LEXICOGRAPHICAL_ASC -> dao.searchFavoritesLexicographicallyPaged(accountId, query);
+                case SORT_LEXICOGRAPHICAL_DESC -> dao.searchFavoritesLexicographicallyDescPaged(accountId, query);
+            };
+            case UNCATEGORIZED -> switch (method) {
+                case SORT_MODIFIED_DESC -> dao.searchUncategorizedByModifiedPaged(accountId, query);
+                case SORT_LEXICOGRAPHICAL_ASC -> dao.searchUncategorizedLexicographicallyPaged(accountId, query);
+                case SORT_LEXICOGRAPHICAL_DESC -> dao.searchUncategorizedLexicographicallyDescPaged(accountId, query);
+            };
+            case DEFAULT_CATEGORY -> {
+                final String category = selectedCategory.getCategory();
+                if (category == null) {
+                    throw new IllegalStateException(NavigationCategory.class.getSimpleName() + " type is " + ENavigationCategoryType.DEFAULT_CATEGORY + ", but category is null.");
+                }
+                yield switch (method) {
+                    case SORT_MODIFIED_DESC -> dao.searchCategoryByModifiedPaged(accountId, query, category);
+                    case SORT_LEXICOGRAPHICAL_ASC -> dao.searchCategoryLexicographicallyPaged(accountId, query, category);
+                    case SORT_LEXICOGRAPHICAL_DESC -> dao.searchCategoryLexicographicallyDescPaged(accountId, query, category);
+                };
+            }
+        };
     }
 
     public void updateRemoteId(long id, Long remoteId) {
@@ -452,13 +608,157 @@ public class NotesRepository {
      * Please note, that db.updateNote() realized an optimistic conflict resolution, which is required for parallel changes of this Note from the UI.
      */
     public int updateIfNotModifiedLocallyDuringSync(long noteId, Long targetModified, String targetTitle, boolean targetFavorite, String targetETag, String targetContent, String targetExcerpt, String contentBeforeSyncStart, String categoryBeforeSyncStart, boolean favoriteBeforeSyncStart) {
-        return db.getNoteDao().updateIfNotModifiedLocallyDuringSync(noteId, targetModified, targetTitle, targetFavorite, targetETag, targetContent, targetExcerpt, contentBeforeSyncStart, categoryBeforeSyncStart, favoriteBeforeSyncStart);
+        final int rows = db.getNoteDao().updateIfNotModifiedLocallyDuringSync(noteId, targetModified, targetTitle, targetFavorite, targetETag, targetContent, targetExcerpt, contentBeforeSyncStart, categoryBeforeSyncStart, favoriteBeforeSyncStart);
+        if (rows > 0) {
+            // The category is not part of the server response, the local one has been sent
+            db.getNoteDao().updateSyncedHash(noteId, generateSyncHash(targetTitle, categoryBeforeSyncStart, targetFavorite, targetContent));
+            widgetInvalidator.invalidateNote(noteId);
+        }
+        return rows;
+    }
+
+    /**
+     * Marks the given locally edited {@param note} as synchronized, in case it equals the last state which is known to be on the server and has not been modified meanwhile.
+     *
+     * @return whether the {@param note} did not need to be uploaded
+     */
+    @WorkerThread
+    public boolean updateStatusIfUnchangedSinceLastSync(@NonNull Note note) {
+        final var syncedHash = note.getSyncedHash();
+        if (syncedHash == null || note.isContentStale()) {
+            return false;
+        }
+        if (!syncedHash.equals(generateSyncHash(note.getTitle(), note.getCategory(), note.getFavorite(), note.getContent()))) {
+            return false;
+        }
+        return db.getNoteDao().updateStatusIfUnchangedSinceLastSync(note.getId(), syncedHash, note.getTitle(), note.getContent(), note.getCategory(), note.getFavorite()) > 0;
     }
 
     public int updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(long id, Long modified, String title, boolean favorite, String category, String eTag, String content, String excerpt) {
         return db.getNoteDao().updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(id, modified, title, favorite, category, eTag, content, excerpt);
     }
 
+    /**
+     * Applies the result of a pull in as few transactions as possible.
+     * Excerpts will be generated and the {@param accountId} will be set for all {@param added} notes.
+     *
+     * @param added      new {@link Note}s from the server
+     * @param updated    {@link Note}s from the server whose {@link Note#getId()} has been set to the local id
+     * @param deletedIds local ids of {@link Note}s which do no longer exist on the server
+     */
+    @WorkerThread
+    public void applyRemoteChanges(long accountId, @NonNull List<Note> added, @NonNull List<Note> updated, @NonNull List<Long> deletedIds) {
+        for (final var note : added) {
+            note.setAccountId(accountId);
+            note.setExcerpt(generateNoteExcerpt(note.getContent(), note.getTitle()));
+            note.setSyncedHash(generateSyncHash(note.getTitle(), note.getCategory(), note.getFavorite(), note.getContent()));
+        }
+        for (final var note : updated) {
+            note.setExcerpt(generateNoteExcerpt(note.getContent(), note.getTitle()));
+            note.setSyncedHash(generateSyncHash(note.getTitle(), note.getCategory(), note.getFavorite(), note.getContent()));
+        }
+        if (!added.isEmpty() || !updated.isEmpty() || !deletedIds.isEmpty()) {
+            // Before applying, because the widgets of deleted notes are removed along with them
+            final var changedIds = new ArrayList<>(deletedIds);
+            for (final var note : updated) {
+                changedIds.add(note.getId());
+            }
+            widgetInvalidator.invalidateNotes(accountId, changedIds);
+        }
+        final int rows = Math.max(added.size(), Math.max(updated.size(), deletedIds.size()));
+        for (int from = 0; from < rows; from += REMOTE_CHANGES_CHUNK_SIZE) {
+            db.getNoteDao().applyRemoteChanges(chunk(added, from), chunk(updated, from), chunk(deletedIds, from));
+        }
+    }
+
+    @NonNull
+    private static <T> List<T> chunk(@NonNull List<T> list, int from) {
+        return list.subList(Math.min(from, list.size()), Math.min(from + REMOTE_CHANGES_CHUNK_SIZE, list.size()));
+    }
+
+    /**
+     * Fetches the content of the given {@param note} from the server in case only its metadata has been pulled yet.
+     * The {@param note} and the database will be updated, unless the content has been changed meanwhile.
+     */
+    @WorkerThread
+    public void fetchStaleContent(@NonNull NotesAPI notesAPI, @NonNull Note note) {
+        final Long remoteId = note.getRemoteId();
+        if (!note.isContentStale() || remoteId == null) {
+            return;
+        }
+        final var content = notesAPI.getNote(remoteId).blockingSingle().getResponse().getContent();
+        final var excerpt = generateNoteExcerpt(content, note.getTitle());
+        if (db.getNoteDao().updateStaleContent(note.getId(), content, excerpt) > 0) {
+            note.setContent(content);
+            note.setExcerpt(excerpt);
+            note.setContentStale(false);
+            widgetInvalidator.invalidateNote(note.getId());
+        }
+    }
+
+    /**
+     * @see #fetchStaleContent(NotesAPI, Note)
+     */
+    @WorkerThread
+    public void fetchStaleContent(@NonNull Account account, @NonNull Note note) throws NextcloudFilesAppAccountNotFoundException {
+        if (!note.isContentStale()) {
+            return;
+        }
+        final var ssoAccount = AccountImporter.getSingleSignOnAccount(context, account.getAccountName());
+        fetchStaleContent(apiProvider.getNotesAPI(context, ssoAccount, getPreferredApiVersion(account.getApiVersion())), note);
+    }
+
+    @WorkerThread
+    public List<Long> getNoteIdsWithStaleContent(long accountId) {
+        return db.getNoteDao().getNoteIdsWithStaleContent(accountId);
+    }
+
+    /**
+     * Writes the fetched contents of the given {@param notes} within a single transaction.
+     * Excerpts will be generated, contents which have been changed meanwhile will not be overridden.
+     * Widgets which have been waiting for the contents get refreshed.
+     */
+    @WorkerThread
+    public void updateStaleContents(@NonNull List<Note> notes) {
+        for (final var note : notes) {
+            note.setExcerpt(generateNoteExcerpt(note.getContent(), note.getTitle()));
+        }
+        db.getNoteDao().updateStaleContents(notes);
+        notes.stream()
+                .collect(groupingBy(Note::getAccountId, mapping(Note::getId, toList())))
+                .forEach(widgetInvalidator::invalidateNotes);
+    }
+
+    /**
+     * Fetches the contents of all {@link Note}s of the given {@param account} which have only been pulled partially with a low priority.
+     *
+     * @see NotesImportTask#importContents(IResponseCallback)
+     */
+    @AnyThread
+    public void fetchStaleContentsInBackground(@NonNull Account account) {
+        if (!staleContentFetchActive.add(account.getId())) {
+            return;
+        }
+        try {
+            new NotesImportTask(context, this, account, staleContentExecutor, apiProvider).importContents(new IResponseCallback<>() {
+                @Override
+                public void onSuccess(Void result) {
+                    staleContentFetchActive.remove(account.getId());
+                    notifyWidgets(account.getId());
+                }
+
+                @Override
+                public void onError(@NonNull Throwable t) {
+                    Log.w(TAG, "Could not fetch stale contents for " + account.getAccountName() + ": " + t.getMessage());
+                    staleContentFetchActive.remove(account.getId());
+                }
+            });
+        } catch (NextcloudFilesAppAccountNotFoundException e) {
+            Log.e(TAG, "Could not find " + SingleSignOnAccount.class.getSimpleName() + " for account name " + account.getAccountName());
+            staleContentFetchActive.remove(account.getId());
+        }
+    }
+
     public long countUnsynchronizedNotes(long accountId) {
         final Long unsynchronizedNotesCount = db.getNoteDao().countUnsynchronizedNotes(accountId);
         return unsynchronizedNotesCount == null ? 0 : unsynchronizedNotesCount;
@@ -494,6 +794,23 @@ public class NotesRepository {
         return db.getWidgetNotesListDao().getNoteListWidgetData(appWidgetId);
     }
 
+    /**
+     * @param limit maximum number of entries, a widget only displays the first few {@link Note}s
+     * @return the first entries of the given note list widget, in the same order as the notes list of the app
+     */
+    @NonNull
+    @WorkerThread
+    public List<NotesListWidgetEntry> getNoteListWidgetEntries(@NonNull NotesListWidgetData data, int limit) {
+        final var dao = db.getWidgetNotesListDao();
+        return switch (data.getMode()) {
+            case NotesListWidgetData.MODE_DISPLAY_ALL -> dao.getRecentEntries(data.getAccountId(), limit);
+            case NotesListWidgetData.MODE_DISPLAY_STARRED -> dao.getFavoriteEntries(data.getAccountId(), limit);
+            default -> data.getCategory() == null
+                    ? dao.getUncategorizedEntries(data.getAccountId(), limit)
+                    : dao.getCategoryEntries(data.getAccountId(), data.getCategory(), limit);
+        };
+    }
+
     /**
      * Creates a new Note in the Database and adds a Synchronization Flag.
      *
@@ -506,7 +823,7 @@ public class NotesRepository {
         final var ret = new MutableLiveData<Note>();
         executor.submit(() -> ret.postValue(addNote(account.getId(), entity)));
         return map(ret, newNote -> {
-            notifyWidgets();
+            notifyWidgets(account.getId(), Collections.singletonList(newNote.getId()));
             scheduleSync(account, true);
             return newNote;
         });
@@ -530,6 +847,24 @@ public class NotesRepository {
 
     @MainThread
     public LiveData<Note> moveNoteToAnotherAccount(Account account, @NonNull Note note) {
+        if (note.isContentStale()) {
+            // Moving deletes the original note, so its content must be fetched first
+            final var noteWithContent$ = new MutableLiveData<Note>();
+            executor.submit(() -> {
+                try {
+                    final var sourceAccount = getAccountById(note.getAccountId());
+                    if (sourceAccount != null) {
+                        fetchStaleContent(sourceAccount, note);
+                    }
+                } catch (Throwable t) {
+                    Log.w(TAG, "Could not fetch content of note #" + note.getId() + " before moving it: " + t.getMessage());
+                }
+                noteWithContent$.postValue(note);
+            });
+            return switchMap(noteWithContent$, noteWithContent -> noteWithContent.isContentStale()
+                    ? new MutableLiveData<>(null)
+                    : moveNoteToAnotherAccount(account, noteWithContent));
+        }
         final var fullNote = new Note(null, note.getModified(), note.getTitle(), note.getContent(), note.getCategory(), note.getFavorite(), null, note.isShared(), note.getReadonly());
         fullNote.setStatus(DBStatus.LOCAL_EDITED);
         deleteNoteAndSync(account, note.getId());
@@ -549,30 +884,14 @@ public class NotesRepository {
                 .collect(toMap(Note::getRemoteId, Note::getId));
     }
 
+    /**
+     * Sets the favorite state of the note locally right away and only pushes the {@link DBStatus#LOCAL_EDITED} note afterwards.
+     * Content which has not been fetched yet is fetched by the synchronization before the note gets uploaded.
+     * The state is set instead of toggled, so it can not be flipped back by a concurrent write of the same note.
+     */
     @AnyThread
-    public void toggleFavoriteAndSync(Account account, Note note) {
-        executor.submit(() -> {
-            try {
-                final var noteWithContent = getNoteById(note.getId());
-                if (noteWithContent == null) {
-                    return;
-                }
-
-                final var ssoAccount = AccountImporter.getSingleSignOnAccount(context, account.getAccountName());
-                final var notesAPI = apiProvider.getNotesAPI(context, ssoAccount, getPreferredApiVersion(account.getApiVersion()));
-                noteWithContent.setFavorite(!noteWithContent.getFavorite());
-                final var result = notesAPI.updateNote(noteWithContent);
-                final var response = result.execute();
-                if (response.isSuccessful()) {
-                    final var updatedNote = response.body();
-                    if (updatedNote != null) {
-                        scheduleSync(account, false);
-                    }
-                }
-            } catch (Exception e) {
-                Log_OC.e(TAG, "toggleFavoriteAndSync: " + e);
-            }
-        });
+    public void setFavoriteAndSync(@NonNull Account account, long noteId, boolean favorite) {
+        setFavoriteAndSync(account, Collections.singletonList(noteId), favorite);
     }
 
     /**
@@ -593,6 +912,32 @@ public class NotesRepository {
         });
     }
 
+    /**
+     * Moves all {@param noteIds} to the {@param category} within a single transaction, followed by one widget update and one synchronization.
+     */
+    @AnyThread
+    public void setCategory(@NonNull Account account, @NonNull Collection<Long> noteIds, @NonNull String category) {
+        final var ids = new ArrayList<>(noteIds);
+        executor.submit(() -> {
+            db.getNoteDao().moveToCategory(ids, category);
+            notifyWidgets(account.getId(), ids);
+            scheduleSync(account, true);
+        });
+    }
+
+    /**
+     * Sets the favorite state of all {@param noteIds} within a single transaction, followed by one widget update and one synchronization.
+     */
+    @AnyThread
+    public void setFavoriteAndSync(@NonNull Account account, @NonNull Collection<Long> noteIds, boolean favorite) {
+        final var ids = new ArrayList<>(noteIds);
+        executor.submit(() -> {
+            db.getNoteDao().setFavorite(ids, favorite);
+            notifyWidgets(account.getId(), ids);
+            scheduleSync(account, true);
+        });
+    }
+
     /**
      * Updates a single Note with a new content.
      * The title is derived from the new content automatically, and modified date as well as DBStatus are updated, too -- if the content differs to the state in the database.
@@ -601,10 +946,17 @@ public class NotesRepository {
      * @param newContent New content. If this is <code>null</code>, then <code>oldNote</code> is saved again (useful for undoing changes).
      * @param newTitle   New title. If this is <code>null</code>, then either the old title is reused (in case the note has been synced before) or a title is generated (in case it is a new note)
      * @param callback   When the synchronization is finished, this callback will be invoked (optional).
-     * @return changed {@link Note} if differs from database, otherwise the old {@link Note}.
+     * @return changed {@link Note} if differs from database, otherwise the old {@link Note}. Notes whose content has not been fetched yet are never changed, because their empty content would replace the one on the server.
      */
     @WorkerThread
     public Note updateNoteAndSync(@NonNull Account localAccount, @NonNull Note oldNote, @Nullable String newContent, @Nullable String newTitle, @Nullable ISyncCallback callback) {
+        if (db.getNoteDao().isContentStale(oldNote.getId())) {
+            Log.w(TAG, "Content of note #" + oldNote.getId() + " has not been fetched yet, refusing to update it");
+            if (callback != null) {
+                callback.onFinish();
+            }
+            return oldNote;
+        }
         final Note newNote;
         // Re-read the up to date remoteId from the database because the UI might not have the state after synchronization yet
         // https://github.com/nextcloud/notes-android/issues/1198
@@ -626,10 +978,12 @@ public class NotesRepository {
             }
             newNote = new Note(oldNote.getId(), remoteId, Calendar.getInstance(), title, newContent, oldNote.getCategory(), oldNote.getFavorite(), oldNote.getETag(), DBStatus.LOCAL_EDITED, localAccount.getId(), generateNoteExcerpt(newContent, title), oldNote.getScrollY(), oldNote.isShared(), oldNote.getReadonly());
         }
+        // The whole row gets replaced, so the state known to be on the server must be kept. The content is not stale, see above.
+        newNote.setSyncedHash(db.getNoteDao().getSyncedHash(oldNote.getId()));
         int rows = db.getNoteDao().updateNote(newNote);
         // if data was changed, set new status and schedule sync (with callback); otherwise invoke callback directly.
         if (rows > 0) {
-            notifyWidgets();
+            notifyWidgets(localAccount.getId(), Collections.singletonList(newNote.getId()));
             if (callback != null) {
                 addCallbackPush(localAccount, callback);
             }
@@ -643,6 +997,24 @@ public class NotesRepository {
         }
     }
 
+    /**
+     * @return a new {@link NoteSaveQueue} for one edited {@link Note}, which writes on a shared writer thread and reports back on the main thread
+     */
+    @AnyThread
+    public NoteSaveQueue createNoteSaveQueue() {
+        return new NoteSaveQueue(noteWriterExecutor, ContextCompat.getMainExecutor(context), new NoteSaveQueue.Writer() {
+            @Override
+            public Note updateNoteAndSync(@NonNull Account account, @NonNull Note note, @NonNull String content, @Nullable String title, @Nullable ISyncCallback callback) {
+                return NotesRepository.this.updateNoteAndSync(account, note, content, title, callback);
+            }
+
+            @Override
+            public void updateScrollY(long noteId, int scrollY) {
+                NotesRepository.this.updateScrollY(noteId, scrollY);
+            }
+        });
+    }
+
     /**
      * Marks a Note in the Database as Deleted. In the next Synchronization it will be deleted
      * from the Server.
@@ -651,21 +1023,35 @@ public class NotesRepository {
      */
     @AnyThread
     public void deleteNoteAndSync(Account account, long id) {
+        deleteNotesAndSync(account, Collections.singletonList(id));
+    }
+
+    /**
+     * Marks all {@param ids} as deleted within a single transaction, followed by one widget update and one synchronization.
+     */
+    @AnyThread
+    public void deleteNotesAndSync(@NonNull Account account, @NonNull Collection<Long> ids) {
+        final var noteIds = new ArrayList<>(ids);
         executor.submit(() -> {
-            db.getNoteDao().updateStatus(id, DBStatus.LOCAL_DELETED);
-            notifyWidgets();
+            db.getNoteDao().markDeleted(noteIds);
+            notifyWidgets(account.getId(), noteIds);
             scheduleSync(account, true);
 
             if (SDK_INT >= O) {
                 final var shortcutManager = context.getSystemService(ShortcutManager.class);
                 if (shortcutManager != null) {
+                    final var deletedIds = noteIds.stream().map(String::valueOf).collect(toSet());
+                    final var shortcutIds = new ArrayList<String>();
                     shortcutManager.getPinnedShortcuts().forEach((shortcut) -> {
-                        final String shortcutId = String.valueOf(id);
-                        if (shortcut.getId().equals(shortcutId)) {
+                        final String shortcutId = shortcut.getId();
+                        if (deletedIds.contains(shortcutId)) {
                             Log.v(TAG, "Removing shortcut for " + shortcutId);
-                            shortcutManager.disableShortcuts(Collections.singletonList(shortcutId), context.getResources().getString(R.string.note_has_been_deleted));
+                            shortcutIds.add(shortcutId);
                         }
                     });
+                    if (!shortcutIds.isEmpty()) {
+                        shortcutManager.disableShortcuts(shortcutIds, context.getResources().getString(R.string.note_has_been_deleted));
+                    }
                 } else {
                     Log.e(TAG, ShortcutManager.class.getSimpleName() + "is null.");
                 }
@@ -674,14 +1060,40 @@ public class NotesRepository {
     }
 
     /**
-     * Notify about changed notes.
+     * Undoes {@link #deleteNotesAndSync(Account, Collection)} within a single transaction, followed by one widget update and one synchronization.
+     * {@link Note}s which have already been deleted on the server will be created again.
+     *
+     * @param notes the full {@link Note}s as they have been before the deletion
+     * @return the ids of the restored {@link Note}s
      */
-    @AnyThread
-    private void notifyWidgets() {
+    @NonNull
+    @MainThread
+    public LiveData<List<Long>> restoreNotesAndSync(@NonNull Account account, @NonNull List<Note> notes) {
+        final var ret = new MutableLiveData<List<Long>>();
+        final var copy = new ArrayList<>(notes);
         executor.submit(() -> {
-            updateSingleNoteWidgets(context);
-            updateNoteListWidgets(context);
+            final var ids = db.getNoteDao().restoreDeleted(copy);
+            notifyWidgets(account.getId(), ids);
+            scheduleSync(account, true);
+            ret.postValue(ids);
         });
+        return ret;
+    }
+
+    /**
+     * Notify the widgets which display one of the given changed notes.
+     */
+    @AnyThread
+    private void notifyWidgets(long accountId, @NonNull Collection<Long> noteIds) {
+        executor.submit(() -> widgetInvalidator.invalidateNotes(accountId, noteIds));
+    }
+
+    /**
+     * Notify all widgets of the given account.
+     */
+    @AnyThread
+    private void notifyWidgets(long accountId) {
+        executor.submit(() -> widgetInvalidator.invalidateAccount(accountId));
     }
 
     @AnyThread
@@ -865,10 +1277,7 @@ public class NotesRepository {
             callback.onScheduled();
             callback.onFinish();
         } else {
-            if (!callbacksPush.containsKey(account.getId())) {
-                callbacksPush.put(account.getId(), new ArrayList<>());
-            }
-            Objects.requireNonNull(callbacksPush.get(account.getId())).add(callback);
+            addCallback(callbacksPush, account.getId(), callback);
         }
     }
 
@@ -886,105 +1295,149 @@ public class NotesRepository {
             callback.onScheduled();
             callback.onFinish();
         } else {
-            if (!callbacksPull.containsKey(account.getId())) {
-                callbacksPull.put(account.getId(), new ArrayList<>());
-            }
-            Objects.requireNonNull(callbacksPull.get(account.getId())).add(callback);
+            addCallback(callbacksPull, account.getId(), callback);
+        }
+    }
+
+    /**
+     * Atomically adds the given {@param callback} to the list of the given {@param accountId}, so no callback gets lost while a synchronization takes the list.
+     */
+    private static void addCallback(@NonNull Map<Long, List<ISyncCallback>> callbacks, long accountId, @NonNull ISyncCallback callback) {
+        callbacks.compute(accountId, (id, pending) -> {
+            final var list = pending == null ? new ArrayList<ISyncCallback>() : pending;
+            list.add(callback);
+            return list;
+        });
+    }
+
+    /**
+     * Limits the number of local changes which are pushed to the server of the given account at the same time.
+     * Use <code>1</code> to push the changes strictly one after another.
+     *
+     * @param pushConcurrency must be at least <code>1</code>
+     */
+    public void setPushConcurrency(long accountId, int pushConcurrency) {
+        if (pushConcurrency < 1) {
+            throw new IllegalArgumentException("pushConcurrency must be at least 1 but was " + pushConcurrency);
         }
+        PreferenceManager.getDefaultSharedPreferences(context).edit()
+                .putInt(PREF_KEY_PUSH_CONCURRENCY_PREFIX + accountId, pushConcurrency)
+                .apply();
+    }
+
+    public int getPushConcurrency(long accountId) {
+        return PreferenceManager.getDefaultSharedPreferences(context).getInt(PREF_KEY_PUSH_CONCURRENCY_PREFIX + accountId, DEFAULT_PUSH_CONCURRENCY);
     }
 
     /**
-     * Schedules a synchronization and start it directly, if the network is connected and no
-     * synchronization is currently running.
+     * Schedules a synchronization if the network is connected. Requests are coalesced per account by the {@link SyncScheduler}:
+     * Pushing local changes is debounced by {@link #SYNC_DEBOUNCE_MILLIS}, a full synchronization starts immediately if none is running.
+     * Requests made while a synchronization of the same account is running are merged and started afterwards.
      *
      * @param onlyLocalChanges Whether to only push local changes to the server or to also load the whole list of notes from the server.
      */
-    public synchronized void scheduleSync(@Nullable Account account, boolean onlyLocalChanges) {
+    public void scheduleSync(@Nullable Account account, boolean onlyLocalChanges) {
         if (account == null) {
             Log.i(TAG, SingleSignOnAccount.class.getSimpleName() + " is null. Is this a local account?");
         } else {
-            syncActive.putIfAbsent(account.getId(), false);
-            Log.d(TAG, "Sync requested (" + (onlyLocalChanges ? "onlyLocalChanges" : "full") + "; " + (Boolean.TRUE.equals(syncActive.get(account.getId())) ? "sync active" : "sync NOT active") + ") ...");
-            if (isSyncPossible() && (!Boolean.TRUE.equals(syncActive.get(account.getId())) || onlyLocalChanges)) {
-                syncActive.put(account.getId(), true);
-                try {
-                    Log.d(TAG, "... starting now");
-                    final NotesServerSyncTask syncTask = new NotesServerSyncTask(context, this, account, onlyLocalChanges, apiProvider) {
-                        @Override
-                        void onPreExecute() {
-                            syncStatus.postValue(true);
-                            if (!syncScheduled.containsKey(localAccount.getId()) || syncScheduled.get(localAccount.getId()) == null) {
-                                syncScheduled.put(localAccount.getId(), false);
-                            }
-                            if (!onlyLocalChanges && Boolean.TRUE.equals(syncScheduled.get(localAccount.getId()))) {
-                                syncScheduled.put(localAccount.getId(), false);
-                            }
-                        }
+            Log.d(TAG, "Sync requested (" + (onlyLocalChanges ? "onlyLocalChanges" : "full") + "; " + syncScheduler.getQueueDepth(account.getId()) + " requests pending) ...");
+            if (isSyncPossible() && syncScheduler.request(account, onlyLocalChanges)) {
+                Log.d(TAG, "... started");
+            } else {
+                Log.d(TAG, "... scheduled");
+                final var callbacks = new ArrayList<ISyncCallback>();
+                callbacksPush.computeIfPresent(account.getId(), (id, pending) -> {
+                    callbacks.addAll(pending);
+                    return pending;
+                });
+                for (final var callback : callbacks) {
+                    callback.onScheduled();
+                }
+            }
+        }
+    }
 
-                        @Override
-                        void onPostExecute(SyncResultStatus status) {
-                            for (Throwable e : exceptions) {
-                                Log.e(TAG, e.getMessage(), e);
-                            }
-                            if (!status.pullSuccessful || !status.pushSuccessful) {
-                                syncErrors.postValue(exceptions);
-                            }
-                            syncActive.put(localAccount.getId(), false);
-                            // notify callbacks
-                            if (callbacks.containsKey(localAccount.getId()) && callbacks.get(localAccount.getId()) != null) {
-                                for (ISyncCallback callback : Objects.requireNonNull(callbacks.get(localAccount.getId()))) {
-                                    callback.onFinish();
-                                }
-                            }
-                            notifyWidgets();
-                            updateDynamicShortcuts(localAccount.getId());
-                            // start next sync if scheduled meanwhile
-                            if (syncScheduled.containsKey(localAccount.getId()) && syncScheduled.get(localAccount.getId()) != null && Boolean.TRUE.equals(syncScheduled.get(localAccount.getId()))) {
-                                scheduleSync(localAccount, false);
-                            }
-                            syncStatus.postValue(false);
-                        }
-                    };
-                    syncTask.addCallbacks(account, callbacksPush.get(account.getId()));
-                    callbacksPush.put(account.getId(), new ArrayList<>());
-                    if (!onlyLocalChanges) {
-                        syncTask.addCallbacks(account, callbacksPull.get(account.getId()));
-                        callbacksPull.put(account.getId(), new ArrayList<>());
+    /**
+     * Runs a {@link NotesServerSyncTask} on the current thread, only called by the {@link SyncScheduler}.
+     * All callbacks registered until now are notified once it has finished.
+     */
+    @WorkerThread
+    @VisibleForTesting
+    void sync(@NonNull Account account, boolean onlyLocalChanges) {
+        // All changes of the synchronization result in one update of the affected widgets
+        widgetInvalidator.hold();
+        try {
+            final NotesServerSyncTask syncTask = new NotesServerSyncTask(context, this, account, onlyLocalChanges, apiProvider, getPushConcurrency(account.getId())) {
+                @Override
+                void onPreExecute() {
+                    synchronized (syncStatus) {
+                        runningSyncs++;
+                        syncStatus.postValue(true);
                     }
-                    syncExecutor.submit(syncTask);
-                } catch (NextcloudFilesAppAccountNotFoundException e) {
-                    Log.e(TAG, "... Could not find " + SingleSignOnAccount.class.getSimpleName() + " for account name " + account.getAccountName());
-                    e.printStackTrace();
                 }
-            } else if (!onlyLocalChanges) {
-                Log.d(TAG, "... scheduled");
-                syncScheduled.put(account.getId(), true);
-                if (callbacksPush.containsKey(account.getId()) && callbacksPush.get(account.getId()) != null) {
-                    final var callbacks = callbacksPush.get(account.getId());
-                    if (callbacks != null) {
-                        for (final var callback : callbacks) {
-                            callback.onScheduled();
+
+                @Override
+                void onPostExecute(SyncResultStatus status) {
+                    for (Throwable e : exceptions) {
+                        Log.e(TAG, e.getMessage(), e);
+                    }
+                    if (!status.pullSuccessful || !status.pushSuccessful) {
+                        syncErrors.postValue(exceptions);
+                    }
+                    // notify callbacks
+                    if (callbacks.containsKey(localAccount.getId()) && callbacks.get(localAccount.getId()) != null) {
+                        for (ISyncCallback callback : Objects.requireNonNull(callbacks.get(localAccount.getId()))) {
+                            callback.onFinish();
                         }
-                    } else {
-                        Log.w(TAG, "List of push-callbacks was set for account \"" + account.getAccountName() + "\" but it was null");
                     }
-                }
-            } else {
-                Log.d(TAG, "... do nothing");
-                if (callbacksPush.containsKey(account.getId()) && callbacksPush.get(account.getId()) != null) {
-                    final var callbacks = callbacksPush.get(account.getId());
-                    if (callbacks != null) {
-                        for (final var callback : callbacks) {
-                            callback.onScheduled();
+                    updateDynamicShortcuts(localAccount.getId());
+                    if (status.pullSuccessful) {
+                        fetchStaleContentsInBackground(localAccount);
+                    }
+                    synchronized (syncStatus) {
+                        // Synchronizations of other accounts might still be running
+                        if (--runningSyncs == 0) {
+                            syncStatus.postValue(false);
                         }
-                    } else {
-                        Log.w(TAG, "List of push-callbacks was set for account \"" + account.getAccountName() + "\" but it was null");
                     }
                 }
+            };
+            // Callbacks which are added from now on will be notified after the next synchronization
+            final var callbacks = new ArrayList<ISyncCallback>();
+            final var pushCallbacks = callbacksPush.remove(account.getId());
+            if (pushCallbacks != null) {
+                callbacks.addAll(pushCallbacks);
+            }
+            if (!onlyLocalChanges) {
+                final var pullCallbacks = callbacksPull.remove(account.getId());
+                if (pullCallbacks != null) {
+                    callbacks.addAll(pullCallbacks);
+                }
             }
+            syncTask.addCallbacks(account, callbacks);
+            syncTask.run();
+        } catch (NextcloudFilesAppAccountNotFoundException e) {
+            Log.e(TAG, "... Could not find " + SingleSignOnAccount.class.getSimpleName() + " for account name " + account.getAccountName());
+            e.printStackTrace();
+        } finally {
+            widgetInvalidator.release();
         }
     }
 
+    /**
+     * @return the number of synchronization requests for the given account which will be merged into its next synchronization
+     */
+    public int getSyncQueueDepth(long accountId) {
+        return syncScheduler.getQueueDepth(accountId);
+    }
+
+    /**
+     * @return the milliseconds from the first request until the last synchronization of the given account has finished, <code>-1</code> if none has finished yet
+     */
+    public long getLastSyncLatencyMillis(long accountId) {
+        return syncScheduler.getLastLatencyMillis(accountId);
+    }
+
     @NonNull
     public LiveData<Boolean> getSyncStatus() {
         return distinctUntilChanged(this.syncStatus);
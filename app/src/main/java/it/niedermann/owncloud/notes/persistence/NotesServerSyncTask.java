@@ -28,17 +28,22 @@ import com.owncloud.android.lib.common.utils.Log_OC;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import it.niedermann.owncloud.notes.BuildConfig;
 import it.niedermann.owncloud.notes.persistence.entity.Account;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
 import it.niedermann.owncloud.notes.persistence.sync.NotesAPI;
-import it.niedermann.owncloud.notes.shared.model.DBStatus;
 import it.niedermann.owncloud.notes.shared.model.ISyncCallback;
 import it.niedermann.owncloud.notes.shared.model.SyncResultStatus;
 import it.niedermann.owncloud.notes.shared.util.ApiVersionUtil;
@@ -56,6 +61,21 @@ abstract class NotesServerSyncTask extends Thread {
     private static final String HEADER_KEY_ETAG = "ETag";
     private static final String HEADER_KEY_LAST_MODIFIED = "Last-Modified";
 
+    /**
+     * Number of remote notes which are parsed and held in memory at the same time during a pull.
+     */
+    private static final int REMOTE_NOTES_BATCH_SIZE = 100;
+
+    /**
+     * Shared by all synchronizations, so pushing does not start new threads each time.
+     * Each synchronization limits itself to its {@link #pushConcurrency}.
+     */
+    private static final ExecutorService PUSH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        final var thread = new Thread(runnable, "NotesPush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private NotesAPI notesAPI;
     @NonNull
     private final ApiProvider apiProvider;
@@ -68,12 +88,20 @@ abstract class NotesServerSyncTask extends Thread {
     @NonNull
     private final SingleSignOnAccount ssoAccount;
     private final boolean onlyLocalChanges;
+    /**
+     * Maximum number of notes which are pushed to the server at the same time.
+     */
+    private final int pushConcurrency;
     @NonNull
     protected final Map<Long, List<ISyncCallback>> callbacks = new HashMap<>();
     @NonNull
     protected final ArrayList<Throwable> exceptions = new ArrayList<>();
 
     NotesServerSyncTask(@NonNull Context context, @NonNull NotesRepository repo, @NonNull Account localAccount, boolean onlyLocalChanges, @NonNull ApiProvider apiProvider) throws NextcloudFilesAppAccountNotFoundException {
+        this(context, repo, localAccount, onlyLocalChanges, apiProvider, NotesRepository.DEFAULT_PUSH_CONCURRENCY);
+    }
+
+    NotesServerSyncTask(@NonNull Context context, @NonNull NotesRepository repo, @NonNull Account localAccount, boolean onlyLocalChanges, @NonNull ApiProvider apiProvider, int pushConcurrency) throws NextcloudFilesAppAccountNotFoundException {
         super(TAG);
         this.context = context;
         this.repo = repo;
@@ -81,6 +109,7 @@ abstract class NotesServerSyncTask extends Thread {
         this.ssoAccount = AccountImporter.getSingleSignOnAccount(context, localAccount.getAccountName());
         this.onlyLocalChanges = onlyLocalChanges;
         this.apiProvider = apiProvider;
+        this.pushConcurrency = Math.max(1, pushConcurrency);
     }
 
     void addCallbacks(Account account, List<ISyncCallback> callbacks) {
@@ -112,100 +141,154 @@ abstract class NotesServerSyncTask extends Thread {
 
     /**
      * Push local changes: for each locally created/edited/deleted Note, use NotesClient in order to push the changed to the server.
+     * Up to {@link #pushConcurrency} notes are pushed at the same time by workers which take the next note once they are done with one.
+     * Each note is handled by exactly one worker, so the requests for a single note are still sent in order.
+     * The results are collected in the order of the local changes.
      */
     private boolean pushLocalChanges() {
         Log.d(TAG, "pushLocalChanges()");
 
         boolean success = true;
         final var notes = repo.getLocalModifiedNotes(localAccount.getId());
-        for (Note note : notes) {
-            Log.d(TAG, "   Process Local Note: " + (BuildConfig.DEBUG ? note : note.getTitle()));
+        if (notes.isEmpty()) {
+            return true;
+        }
+        final int threads = Math.min(pushConcurrency, notes.size());
+        Log.d(TAG, "   Push " + notes.size() + " local changes using " + threads + " concurrent requests");
+        final var failures = new Throwable[notes.size()];
+        final var nextNote = new AtomicInteger();
+        final Runnable worker = () -> {
+            for (int i = nextNote.getAndIncrement(); i < notes.size(); i = nextNote.getAndIncrement()) {
+                try {
+                    pushLocalChange(notes.get(i));
+                } catch (Exception e) {
+                    failures[i] = e;
+                }
+            }
+        };
+        // The synchronization thread itself is one of the workers
+        final var futures = new ArrayList<Future<?>>(threads - 1);
+        for (int i = 1; i < threads; i++) {
+            futures.add(PUSH_EXECUTOR.submit(worker));
+        }
+        worker.run();
+        for (final var future : futures) {
             try {
-                Note remoteNote;
-                switch (note.getStatus()) {
-                    case LOCAL_EDITED -> {
-                        Log.v(TAG, "   ...create/edit");
-                        if (note.getRemoteId() != null) {
-                            Log.v(TAG, "   ...Note has remoteId → try to edit");
-                            final var editResponse = notesAPI.editNote(note).execute();
-                            if (editResponse.isSuccessful()) {
-                                remoteNote = editResponse.body();
-                                if (remoteNote == null) {
-                                    Log.e(TAG, "   ...Tried to edit \"" + note.getTitle() + "\" (#" + note.getId() + ") but the server response was null.");
-                                    throw new Exception("Server returned null after editing \"" + note.getTitle() + "\" (#" + note.getId() + ")");
-                                }
-                            } else if (editResponse.code() == HTTP_NOT_FOUND) {
-                                Log.v(TAG, "   ...Note does no longer exist on server → recreate");
-                                final var createResponse = notesAPI.createNote(note).execute();
-                                if (createResponse.isSuccessful()) {
-                                    remoteNote = createResponse.body();
-                                    if (remoteNote == null) {
-                                        Log.e(TAG, "   ...Tried to recreate \"" + note.getTitle() + "\" (#" + note.getId() + ") but the server response was null.");
-                                        throw new Exception("Server returned null after recreating \"" + note.getTitle() + "\" (#" + note.getId() + ")");
-                                    }
-                                } else {
-                                    throw new Exception(createResponse.message());
-                                }
-                            } else {
-                                throw new Exception(editResponse.message());
+                future.get();
+            } catch (ExecutionException e) {
+                exceptions.add(e.getCause() == null ? e : e.getCause());
+                success = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                exceptions.add(e);
+                return false;
+            }
+        }
+        for (final var e : failures) {
+            if (e == null) {
+                continue;
+            }
+            if (e instanceof NextcloudHttpRequestFailedException httpException && httpException.getStatusCode() == HTTP_NOT_MODIFIED) {
+                Log.d(TAG, "Server returned HTTP Status Code 304 - Not Modified");
+            } else {
+                if (e instanceof TokenMismatchException) {
+                    apiProvider.invalidateAPICache(ssoAccount);
+                }
+                exceptions.add(e);
+                success = false;
+            }
+        }
+        return success;
+    }
+
+    /**
+     * Pushes a single local change to the server and applies the response to the local database.
+     * Might be called from several threads at the same time, but never twice for the same note.
+     */
+    private void pushLocalChange(@NonNull Note note) throws Exception {
+        Log.d(TAG, "   Process Local Note: " + (BuildConfig.DEBUG ? note : note.getTitle()));
+        Note remoteNote;
+        switch (note.getStatus()) {
+            case LOCAL_EDITED -> {
+                Log.v(TAG, "   ...create/edit");
+                if (note.getRemoteId() != null) {
+                    if (repo.updateStatusIfUnchangedSinceLastSync(note)) {
+                        Log.v(TAG, "   ...Note equals the last synchronized state → skip upload");
+                        return;
+                    }
+                    Log.v(TAG, "   ...Note has remoteId → try to edit");
+                    if (note.isContentStale()) {
+                        Log.v(TAG, "   ...Fetch content first, the whole note will be sent to the server");
+                        repo.fetchStaleContent(notesAPI, note);
+                        if (note.isContentStale()) {
+                            throw new Exception("Could not fetch content of \"" + note.getTitle() + "\" (#" + note.getId() + ") before editing it");
+                        }
+                    }
+                    final var editResponse = notesAPI.editNote(note).execute();
+                    if (editResponse.isSuccessful()) {
+                        remoteNote = editResponse.body();
+                        if (remoteNote == null) {
+                            Log.e(TAG, "   ...Tried to edit \"" + note.getTitle() + "\" (#" + note.getId() + ") but the server response was null.");
+                            throw new Exception("Server returned null after editing \"" + note.getTitle() + "\" (#" + note.getId() + ")");
+                        }
+                    } else if (editResponse.code() == HTTP_NOT_FOUND) {
+                        Log.v(TAG, "   ...Note does no longer exist on server → recreate");
+                        final var createResponse = notesAPI.createNote(note).execute();
+                        if (createResponse.isSuccessful()) {
+                            remoteNote = createResponse.body();
+                            if (remoteNote == null) {
+                                Log.e(TAG, "   ...Tried to recreate \"" + note.getTitle() + "\" (#" + note.getId() + ") but the server response was null.");
+                                throw new Exception("Server returned null after recreating \"" + note.getTitle() + "\" (#" + note.getId() + ")");
                             }
                         } else {
-                            Log.v(TAG, "   ...Note does not have a remoteId yet → create");
-                            final var createResponse = notesAPI.createNote(note).execute();
-                            if (createResponse.isSuccessful()) {
-                                remoteNote = createResponse.body();
-                                if (remoteNote == null) {
-                                    Log.e(TAG, "   ...Tried to create \"" + note.getTitle() + "\" (#" + note.getId() + ") but the server response was null.");
-                                    throw new Exception("Server returned null after creating \"" + note.getTitle() + "\" (#" + note.getId() + ")");
-                                }
-                                repo.updateRemoteId(note.getId(), remoteNote.getRemoteId());
-                            } else {
-                                throw new Exception(createResponse.message());
-                            }
+                            throw new Exception(createResponse.message());
                         }
-                        // Please note, that db.updateNote() realized an optimistic conflict resolution, which is required for parallel changes of this Note from the UI.
-                        repo.updateIfNotModifiedLocallyDuringSync(note.getId(), remoteNote.getModified().getTimeInMillis(), remoteNote.getTitle(), remoteNote.getFavorite(), remoteNote.getETag(), remoteNote.getContent(), generateNoteExcerpt(remoteNote.getContent(), remoteNote.getTitle()), note.getContent(), note.getCategory(), note.getFavorite());
+                    } else {
+                        throw new Exception(editResponse.message());
                     }
-                    case LOCAL_DELETED -> {
-                        if (note.getRemoteId() == null) {
-                            Log.v(TAG, "   ...delete (only local, since it has never been synchronized)");
-                        } else {
-                            Log.v(TAG, "   ...delete (from server and local)");
-                            final var deleteResponse = notesAPI.deleteNote(note.getRemoteId()).execute();
-                            if (!deleteResponse.isSuccessful()) {
-                                if (deleteResponse.code() == HTTP_NOT_FOUND) {
-                                    Log.v(TAG, "   ...delete (note has already been deleted remotely)");
-                                } else {
-                                    throw new Exception(deleteResponse.message());
-                                }
-                            }
+                } else {
+                    Log.v(TAG, "   ...Note does not have a remoteId yet → create");
+                    final var createResponse = notesAPI.createNote(note).execute();
+                    if (createResponse.isSuccessful()) {
+                        remoteNote = createResponse.body();
+                        if (remoteNote == null) {
+                            Log.e(TAG, "   ...Tried to create \"" + note.getTitle() + "\" (#" + note.getId() + ") but the server response was null.");
+                            throw new Exception("Server returned null after creating \"" + note.getTitle() + "\" (#" + note.getId() + ")");
                         }
-                        // Please note, that db.deleteNote() realizes an optimistic conflict resolution, which is required for parallel changes of this Note from the UI.
-                        repo.deleteByNoteId(note.getId(), LOCAL_DELETED);
+                        repo.updateRemoteId(note.getId(), remoteNote.getRemoteId());
+                    } else {
+                        throw new Exception(createResponse.message());
                     }
-                    default ->
-                            throw new IllegalStateException("Unknown State of Note " + note + ": " + note.getStatus());
                 }
-            } catch (NextcloudHttpRequestFailedException e) {
-                if (e.getStatusCode() == HTTP_NOT_MODIFIED) {
-                    Log.d(TAG, "Server returned HTTP Status Code 304 - Not Modified");
+                // Please note, that db.updateNote() realized an optimistic conflict resolution, which is required for parallel changes of this Note from the UI.
+                repo.updateIfNotModifiedLocallyDuringSync(note.getId(), remoteNote.getModified().getTimeInMillis(), remoteNote.getTitle(), remoteNote.getFavorite(), remoteNote.getETag(), remoteNote.getContent(), generateNoteExcerpt(remoteNote.getContent(), remoteNote.getTitle()), note.getContent(), note.getCategory(), note.getFavorite());
+            }
+            case LOCAL_DELETED -> {
+                if (note.getRemoteId() == null) {
+                    Log.v(TAG, "   ...delete (only local, since it has never been synchronized)");
                 } else {
-                    exceptions.add(e);
-                    success = false;
-                }
-            } catch (Exception e) {
-                if (e instanceof TokenMismatchException) {
-                    apiProvider.invalidateAPICache(ssoAccount);
+                    Log.v(TAG, "   ...delete (from server and local)");
+                    final var deleteResponse = notesAPI.deleteNote(note.getRemoteId()).execute();
+                    if (!deleteResponse.isSuccessful()) {
+                        if (deleteResponse.code() == HTTP_NOT_FOUND) {
+                            Log.v(TAG, "   ...delete (note has already been deleted remotely)");
+                        } else {
+                            throw new Exception(deleteResponse.message());
+                        }
+                    }
                 }
-                exceptions.add(e);
-                success = false;
+                // Please note, that db.deleteNote() realizes an optimistic conflict resolution, which is required for parallel changes of this Note from the UI.
+                repo.deleteByNoteId(note.getId(), LOCAL_DELETED);
             }
+            default ->
+                    throw new IllegalStateException("Unknown State of Note " + note + ": " + note.getStatus());
         }
-        return success;
     }
 
     /**
      * Pull remote Changes: update or create each remote note (if local pendant has no changes) and remove remotely deleted notes.
+     * The response is parsed and applied in batches, so that the whole list of notes never needs to be held in memory.
      */
     private boolean pullRemoteChanges() {
         Log.d(TAG, "pullRemoteChanges() for account " + localAccount.getAccountName());
@@ -226,61 +309,72 @@ abstract class NotesServerSyncTask extends Thread {
                 return false;
             }
 
-            final var fetchResponse = notesAPI.getNotes(modified, localAccount.getETag()).blockingSingle();
-            final var remoteNotes = fetchResponse.getResponse();
             final var remoteIDs = new HashSet<Long>();
-            // pull remote changes: update or create each remote note
-            for (final var remoteNote : remoteNotes) {
-                Log.v(TAG, "   Process Remote Note: " + (BuildConfig.DEBUG ? remoteNote : remoteNote.getTitle()));
-                remoteIDs.add(remoteNote.getRemoteId());
-                if (remoteNote.getModified() == null) {
-                    Log.v(TAG, "   ... unchanged");
-                } else if (idMap.containsKey(remoteNote.getRemoteId())) {
-                    Log.v(TAG, "   ... found → Update");
-                    final Long localId = idMap.get(remoteNote.getRemoteId());
-                    if (localId != null) {
-                        repo.updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(
-                                localId, remoteNote.getModified().getTimeInMillis(), remoteNote.getTitle(), remoteNote.getFavorite(), remoteNote.getCategory(), remoteNote.getETag(), remoteNote.getContent(), generateNoteExcerpt(remoteNote.getContent(), remoteNote.getTitle()));
-                    } else {
-                        Log.e(TAG, "Tried to update note from server, but local id of note is null. " + (BuildConfig.DEBUG ? remoteNote : remoteNote.getTitle()));
+            final Map<String, String> headers;
+            try (final var notesStream = notesAPI.getNotesStreamed(modified, localAccount.getETag())) {
+                headers = notesStream.getHeaders();
+                // pull remote changes: update or create each remote note, one batch at a time
+                for (var remoteNotes = notesStream.readBatch(REMOTE_NOTES_BATCH_SIZE); !remoteNotes.isEmpty(); remoteNotes = notesStream.readBatch(REMOTE_NOTES_BATCH_SIZE)) {
+                    final var addedNotes = new ArrayList<Note>();
+                    final var updatedNotes = new ArrayList<Note>();
+                    for (final var remoteNote : remoteNotes) {
+                        Log.v(TAG, "   Process Remote Note: " + (BuildConfig.DEBUG ? remoteNote : remoteNote.getTitle()));
+                        remoteIDs.add(remoteNote.getRemoteId());
+                        if (remoteNote.getModified() == null) {
+                            Log.v(TAG, "   ... unchanged");
+                        } else if (idMap.containsKey(remoteNote.getRemoteId())) {
+                            Log.v(TAG, "   ... found → Update");
+                            final Long localId = idMap.get(remoteNote.getRemoteId());
+                            if (localId != null) {
+                                remoteNote.setId(localId);
+                                updatedNotes.add(remoteNote);
+                            } else {
+                                Log.e(TAG, "Tried to update note from server, but local id of note is null. " + (BuildConfig.DEBUG ? remoteNote : remoteNote.getTitle()));
+                            }
+                        } else {
+                            Log.v(TAG, "   ... create");
+                            addedNotes.add(remoteNote);
+                        }
                     }
-                } else {
-                    Log.v(TAG, "   ... create");
-                    repo.addNote(localAccount.getId(), remoteNote);
+                    Log.d(TAG, "   Apply remote changes: " + addedNotes.size() + " created, " + updatedNotes.size() + " updated");
+                    repo.applyRemoteChanges(localAccount.getId(), addedNotes, updatedNotes, Collections.emptyList());
                 }
             }
-            Log.d(TAG, "   Remove remotely deleted Notes (only those without local changes)");
             // remove remotely deleted notes (only those without local changes)
+            final var deletedIds = new ArrayList<Long>();
             for (final var entry : idMap.entrySet()) {
                 if (!remoteIDs.contains(entry.getKey())) {
                     Log.v(TAG, "   ... remove " + entry.getValue());
-                    repo.deleteByNoteId(entry.getValue(), DBStatus.VOID);
+                    deletedIds.add(entry.getValue());
                 }
             }
+            Log.d(TAG, "   Apply remote changes: " + deletedIds.size() + " removed");
+            repo.applyRemoteChanges(localAccount.getId(), Collections.emptyList(), Collections.emptyList(), deletedIds);
 
             // update ETag and Last-Modified in order to reduce size of next response
-            localAccount.setETag(fetchResponse.getHeaders().get(HEADER_KEY_ETAG));
+            localAccount.setETag(headers.get(HEADER_KEY_ETAG));
 
             final var lastModified = Calendar.getInstance();
             lastModified.setTimeInMillis(0);
-            final String lastModifiedHeader = fetchResponse.getHeaders().get(HEADER_KEY_LAST_MODIFIED);
+            final String lastModifiedHeader = headers.get(HEADER_KEY_LAST_MODIFIED);
             if (lastModifiedHeader != null)
                 lastModified.setTimeInMillis(Date.parse(lastModifiedHeader));
-            Log.d(TAG, "ETag: " + fetchResponse.getHeaders().get(HEADER_KEY_ETAG) + "; Last-Modified: " + lastModified + " (" + lastModified + ")");
+            Log.d(TAG, "ETag: " + headers.get(HEADER_KEY_ETAG) + "; Last-Modified: " + lastModified + " (" + lastModified + ")");
 
             localAccount.setModified(lastModified);
 
             repo.updateETag(localAccount.getId(), localAccount.getETag());
             repo.updateModified(localAccount.getId(), localAccount.getModified().getTimeInMillis());
 
-            final String newApiVersion = ApiVersionUtil.sanitize(fetchResponse.getHeaders().get(HEADER_KEY_X_NOTES_API_VERSIONS));
+            final String newApiVersion = ApiVersionUtil.sanitize(headers.get(HEADER_KEY_X_NOTES_API_VERSIONS));
             localAccount.setApiVersion(newApiVersion);
             repo.updateApiVersion(localAccount.getId(), newApiVersion);
             Log.d(TAG, "ApiVersion: " + newApiVersion);
             return true;
         } catch (Throwable t) {
-            final Throwable cause = t.getCause();
-            if (t.getClass() == RuntimeException.class && cause != null) {
+            // Observables wrap the actual cause in a RuntimeException, the streamed request throws it directly
+            final Throwable cause = t.getClass() == RuntimeException.class ? t.getCause() : t;
+            if (cause != null) {
                 if (cause.getClass() == NextcloudHttpRequestFailedException.class || cause instanceof NextcloudHttpRequestFailedException) {
                     final NextcloudHttpRequestFailedException httpException = (NextcloudHttpRequestFailedException) cause;
                     if (httpException.getStatusCode() == HTTP_NOT_MODIFIED) {
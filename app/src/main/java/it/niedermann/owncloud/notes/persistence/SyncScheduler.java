@@ -0,0 +1,214 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.persistence;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import it.niedermann.owncloud.notes.persistence.entity.Account;
+
+/**
+ * Coalesces synchronization requests per {@link Account}:
+ * <ul>
+ *     <li>Requests to only push local changes which arrive within {@link #debounceMillis} are merged into one synchronization</li>
+ *     <li>Requests for a full synchronization start immediately and include all pending local changes</li>
+ *     <li>At most one synchronization is running per {@link Account}, requests arriving meanwhile are merged and started afterwards</li>
+ *     <li>Synchronizations of different {@link Account}s run in parallel on the given {@link Executor}</li>
+ * </ul>
+ */
+class SyncScheduler {
+
+    private static final String TAG = SyncScheduler.class.getSimpleName();
+
+    interface SyncRunner {
+        /**
+         * Performs the synchronization of the given {@link Account} and returns once it has finished.
+         */
+        @WorkerThread
+        void sync(@NonNull Account account, boolean onlyLocalChanges);
+    }
+
+    @NonNull
+    private final Executor executor;
+    @NonNull
+    private final ScheduledExecutorService timer;
+    private final long debounceMillis;
+    @NonNull
+    private final SyncRunner runner;
+    // guarded by this
+    private final Map<Long, AccountQueue> queues = new HashMap<>();
+
+    SyncScheduler(@NonNull Executor executor, @NonNull ScheduledExecutorService timer, long debounceMillis, @NonNull SyncRunner runner) {
+        this.executor = executor;
+        this.timer = timer;
+        this.debounceMillis = debounceMillis;
+        this.runner = runner;
+    }
+
+    /**
+     * @return <code>true</code> if the synchronization has been started immediately, <code>false</code> if it has been merged into a pending one
+     */
+    boolean request(@NonNull Account account, boolean onlyLocalChanges) {
+        final Runnable start;
+        synchronized (this) {
+            final var queue = getQueue(account);
+            if (queue.depth == 0) {
+                queue.firstRequestedAt = SystemClock.elapsedRealtime();
+            }
+            queue.depth++;
+            queue.pendingFull |= !onlyLocalChanges;
+            if (queue.running || queue.suspended) {
+                Log.d(TAG, "Sync of " + account.getAccountName() + " is busy, " + queue.depth + " requests pending");
+                return false;
+            }
+            if (onlyLocalChanges && debounceMillis > 0) {
+                if (queue.debounce == null) {
+                    queue.debounce = timer.schedule(() -> dispatch(account.getId()), debounceMillis, TimeUnit.MILLISECONDS);
+                }
+                return false;
+            }
+            start = start(queue);
+        }
+        executor.execute(start);
+        return true;
+    }
+
+    /**
+     * Delays all requests for the given {@link Account} until {@link #resume(long)} is called, e.g. while it is being imported.
+     */
+    synchronized void suspend(@NonNull Account account) {
+        getQueue(account).suspended = true;
+    }
+
+    /**
+     * Starts the requests which have been made while the {@link Account} was suspended.
+     */
+    void resume(long accountId) {
+        final Runnable start;
+        synchronized (this) {
+            final var queue = queues.get(accountId);
+            if (queue == null) {
+                return;
+            }
+            queue.suspended = false;
+            if (queue.running || queue.depth == 0) {
+                return;
+            }
+            start = start(queue);
+        }
+        executor.execute(start);
+    }
+
+    /**
+     * @return the number of requests for the given {@link Account} which wait to be merged into the next synchronization
+     */
+    synchronized int getQueueDepth(long accountId) {
+        final var queue = queues.get(accountId);
+        return queue == null ? 0 : queue.depth;
+    }
+
+    /**
+     * @return the milliseconds from the first merged request until the last synchronization of the given {@link Account} has finished, <code>-1</code> if none has finished yet
+     */
+    synchronized long getLastLatencyMillis(long accountId) {
+        final var queue = queues.get(accountId);
+        return queue == null ? -1 : queue.lastLatencyMillis;
+    }
+
+    private void dispatch(long accountId) {
+        final Runnable start;
+        synchronized (this) {
+            final var queue = queues.get(accountId);
+            if (queue == null) {
+                return;
+            }
+            queue.debounce = null;
+            if (queue.running || queue.suspended || queue.depth == 0) {
+                return;
+            }
+            start = start(queue);
+        }
+        executor.execute(start);
+    }
+
+    private void onFinished(long accountId, long requestedAt) {
+        final Runnable start;
+        synchronized (this) {
+            final var queue = queues.get(accountId);
+            if (queue == null) {
+                return;
+            }
+            queue.running = false;
+            queue.lastLatencyMillis = SystemClock.elapsedRealtime() - requestedAt;
+            // Requests made meanwhile have already been waiting for the running synchronization, so they are not debounced again
+            if (queue.suspended || queue.depth == 0) {
+                return;
+            }
+            start = start(queue);
+        }
+        executor.execute(start);
+    }
+
+    /**
+     * Must be called while holding the lock, the returned {@link Runnable} must be executed afterwards without holding it.
+     */
+    @NonNull
+    private Runnable start(@NonNull AccountQueue queue) {
+        if (queue.debounce != null) {
+            queue.debounce.cancel(false);
+            queue.debounce = null;
+        }
+        final var account = queue.account;
+        final boolean onlyLocalChanges = !queue.pendingFull;
+        final long requestedAt = queue.firstRequestedAt;
+        Log.d(TAG, "Starting " + (onlyLocalChanges ? "push" : "full sync") + " of " + account.getAccountName() + " for " + queue.depth + " requests");
+        queue.running = true;
+        queue.pendingFull = false;
+        queue.depth = 0;
+        return () -> {
+            try {
+                runner.sync(account, onlyLocalChanges);
+            } finally {
+                onFinished(account.getId(), requestedAt);
+            }
+        };
+    }
+
+    @NonNull
+    private AccountQueue getQueue(@NonNull Account account) {
+        var queue = queues.get(account.getId());
+        if (queue == null) {
+            queue = new AccountQueue();
+            queues.put(account.getId(), queue);
+        }
+        queue.account = account;
+        return queue;
+    }
+
+    private static class AccountQueue {
+        private Account account;
+        private boolean running = false;
+        private boolean suspended = false;
+        private boolean pendingFull = false;
+        private int depth = 0;
+        private long firstRequestedAt;
+        private long lastLatencyMillis = -1;
+        @Nullable
+        private ScheduledFuture<?> debounce;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.persistence;
+
+import static it.niedermann.owncloud.notes.widget.notelist.NoteListWidget.updateNoteListWidgets;
+import static it.niedermann.owncloud.notes.widget.singlenote.SingleNoteWidget.updateSingleNoteWidgets;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import it.niedermann.owncloud.notes.persistence.entity.Account;
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.widget.singlenote.SingleNoteWidgetRenderCache;
+
+/**
+ * Collects the ids of all widgets which display changed data and only updates those widgets:
+ * <ul>
+ *     <li>Single note widgets depend on their {@link Note}</li>
+ *     <li>Note list widgets depend on all {@link Note}s of their {@link Account}</li>
+ *     <li>Invalidations which arrive within {@link #throttleMillis} are merged into one update</li>
+ *     <li>While a synchronization is running, invalidations are held back and merged into one update after it has finished</li>
+ *     <li>The contents of single note widgets are rendered in the background before they get updated, see {@link SingleNoteWidgetRenderCache}</li>
+ * </ul>
+ */
+class WidgetInvalidator {
+
+    private static final String TAG = WidgetInvalidator.class.getSimpleName();
+
+    @NonNull
+    private final Context context;
+    @NonNull
+    private final NotesDatabase db;
+    @NonNull
+    private final ScheduledExecutorService timer;
+    private final long throttleMillis;
+    // guarded by this
+    private final Set<Integer> singleNoteWidgetIds = new HashSet<>();
+    private final Set<Integer> noteListWidgetIds = new HashSet<>();
+    private int holds = 0;
+    private boolean flushScheduled = false;
+
+    WidgetInvalidator(@NonNull Context context, @NonNull NotesDatabase db, @NonNull ScheduledExecutorService timer, long throttleMillis) {
+        this.context = context;
+        this.db = db;
+        this.timer = timer;
+        this.throttleMillis = throttleMillis;
+    }
+
+    /**
+     * Invalidates all widgets of the given {@link Account}, e.g. after the contents of many {@link Note}s have been fetched.
+     */
+    @WorkerThread
+    void invalidateAccount(long accountId) {
+        final var singleNoteIds = new HashSet<Integer>();
+        for (final var data : db.getWidgetSingleNoteDao().getSingleNoteWidgetDataOfAccount(accountId)) {
+            singleNoteIds.add(data.getId());
+        }
+        invalidate(singleNoteIds, db.getWidgetNotesListDao().getNoteListWidgetIds(accountId));
+    }
+
+    /**
+     * Invalidates the widgets displaying one of the given {@param noteIds} and all note list widgets of the given {@link Account}.
+     * Must be called before the {@link Note}s get removed from the database, because their widgets are removed along with them.
+     */
+    @WorkerThread
+    void invalidateNotes(long accountId, @NonNull Collection<Long> noteIds) {
+        final var singleNoteIds = new HashSet<Integer>();
+        if (!noteIds.isEmpty()) {
+            final var ids = new HashSet<>(noteIds);
+            for (final var data : db.getWidgetSingleNoteDao().getSingleNoteWidgetDataOfAccount(accountId)) {
+                if (ids.contains(data.getNoteId())) {
+                    singleNoteIds.add(data.getId());
+                }
+            }
+        }
+        invalidate(singleNoteIds, db.getWidgetNotesListDao().getNoteListWidgetIds(accountId));
+    }
+
+    /**
+     * Like {@link #invalidateNotes(long, Collection)}, but resolves the {@link Account} of the {@link Note} by itself.
+     */
+    @WorkerThread
+    void invalidateNote(long noteId) {
+        invalidate(db.getWidgetSingleNoteDao().getSingleNoteWidgetIds(noteId), db.getWidgetNotesListDao().getNoteListWidgetIdsOfNote(noteId));
+    }
+
+    /**
+     * Holds back all updates until {@link #release()} has been called as often as this method, e.g. while a synchronization is running.
+     */
+    @AnyThread
+    synchronized void hold() {
+        holds++;
+    }
+
+    @AnyThread
+    synchronized void release() {
+        holds = Math.max(0, holds - 1);
+        scheduleFlush();
+    }
+
+    private synchronized void invalidate(@NonNull Collection<Integer> singleNoteIds, @NonNull Collection<Integer> noteListIds) {
+        singleNoteWidgetIds.addAll(singleNoteIds);
+        noteListWidgetIds.addAll(noteListIds);
+        scheduleFlush();
+    }
+
+    /**
+     * Must be called while holding the lock.
+     */
+    private void scheduleFlush() {
+        if (holds > 0 || flushScheduled || (singleNoteWidgetIds.isEmpty() && noteListWidgetIds.isEmpty())) {
+            return;
+        }
+        flushScheduled = true;
+        timer.schedule(this::flush, throttleMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void flush() {
+        final int[] singleNoteIds;
+        final int[] noteListIds;
+        synchronized (this) {
+            flushScheduled = false;
+            if (holds > 0) {
+                // Will be scheduled again on release
+                return;
+            }
+            singleNoteIds = toArray(singleNoteWidgetIds);
+            noteListIds = toArray(noteListWidgetIds);
+            singleNoteWidgetIds.clear();
+            noteListWidgetIds.clear();
+        }
+        Log.d(TAG, "Updating " + singleNoteIds.length + " single note widgets and " + noteListIds.length + " note list widgets");
+        if (singleNoteIds.length > 0) {
+            prerender(singleNoteIds);
+            updateSingleNoteWidgets(context, singleNoteIds);
+        }
+        if (noteListIds.length > 0) {
+            updateNoteListWidgets(context, noteListIds);
+        }
+    }
+
+    /**
+     * Renders the contents of the given widgets, so they can be bound right away once the widgets ask for them.
+     */
+    @WorkerThread
+    private void prerender(@NonNull int[] singleNoteIds) {
+        final var cache = SingleNoteWidgetRenderCache.getInstance();
+        for (final int appWidgetId : singleNoteIds) {
+            final var data = db.getWidgetSingleNoteDao().getSingleNoteWidgetData(appWidgetId);
+            if (data != null) {
+                final var note = db.getNoteDao().getNoteById(data.getNoteId());
+                if (note != null) {
+                    cache.render(context, note);
+                }
+            }
+        }
+    }
+
+    @NonNull
+    private static int[] toArray(@NonNull Collection<Integer> ids) {
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
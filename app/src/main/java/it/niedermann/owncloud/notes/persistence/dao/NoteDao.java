@@ -6,25 +6,35 @@
  */
 package it.niedermann.owncloud.notes.persistence.dao;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
 import it.niedermann.owncloud.notes.persistence.entity.Account;
+import it.niedermann.owncloud.notes.persistence.entity.CategoryWithNotesAndFavoritesCount;
 import it.niedermann.owncloud.notes.persistence.entity.CategoryWithNotesCount;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.persistence.entity.NoteFts;
 import it.niedermann.owncloud.notes.shared.model.DBStatus;
 
 /**
  * Each method starting with <code>search</code> will return only a partial {@link Note} without any
  * {@link Note#eTag}, {@link Note#status}, {@link Note#content} or {@link Note#scrollY} for performance reasons.
+ * <p>
+ * The <code>query</code> of those methods is a full text <code>MATCH</code> expression against {@link NoteFts}
+ * (see {@link it.niedermann.owncloud.notes.shared.util.NoteUtil#toFtsMatchQuery(String)} for what it does not find) or <code>null</code> to not filter at all.
  */
 @SuppressWarnings("JavadocReference")
 @Dao
@@ -33,20 +43,35 @@ public interface NoteDao {
     @Insert
     long addNote(Note note);
 
+    @Insert
+    void addNotes(List<Note> notes);
+
     @Update(onConflict = OnConflictStrategy.REPLACE)
     int updateNote(Note newNote);
 
     String getNoteById = "SELECT * FROM NOTE WHERE id = :id";
+    /**
+     * Maximum number of ids per <code>IN (…)</code> list, which keeps bulk operations below the SQLite host parameter limit.
+     */
+    int BULK_CHUNK_SIZE = 500;
+
     String count = "SELECT COUNT(*) FROM NOTE WHERE status != 'LOCAL_DELETED' AND accountId = :accountId";
     String countFavorites = "SELECT COUNT(*) FROM NOTE WHERE status != 'LOCAL_DELETED' AND accountId = :accountId AND favorite = 1";
-    String searchRecentByModified = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR content LIKE :query) ORDER BY favorite DESC, modified DESC";
-    String searchRecentLexicographically = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR content LIKE :query) ORDER BY favorite DESC, title COLLATE LOCALIZED ASC";
-    String searchFavoritesByModified = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR content LIKE :query) AND favorite = 1 ORDER BY modified DESC";
-    String searchFavoritesLexicographically = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR content LIKE :query) AND favorite = 1 ORDER BY title COLLATE LOCALIZED ASC";
-    String searchUncategorizedByModified = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR content LIKE :query) AND category = '' ORDER BY favorite DESC, modified DESC";
-    String searchUncategorizedLexicographically = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR content LIKE :query) AND category = '' ORDER BY favorite DESC, title COLLATE LOCALIZED ASC";
-    String searchCategoryByModified = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR content LIKE :query) AND (category = :category OR category LIKE :category || '/%') ORDER BY category, favorite DESC, modified DESC";
-    String searchCategoryLexicographically = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (title LIKE :query OR content LIKE :query) AND (category = :category OR category LIKE :category || '/%') ORDER BY category, favorite DESC, title COLLATE LOCALIZED ASC";
+    String getLocalModifiedNotes = "SELECT * FROM NOTE WHERE status != '' AND accountId = :accountId";
+    String countUnsynchronizedNotes = "SELECT COUNT(*) FROM NOTE WHERE STATUS != '' AND accountId = :accountId";
+    String searchRecentByModified = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, contentStale, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (:query IS NULL OR id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query)) ORDER BY favorite DESC, modified DESC";
+    String searchRecentLexicographically = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, contentStale, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (:query IS NULL OR id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query)) ORDER BY favorite DESC, title COLLATE LOCALIZED ASC";
+    String searchFavoritesByModified = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, contentStale, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (:query IS NULL OR id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query)) AND favorite = 1 ORDER BY modified DESC";
+    String searchFavoritesLexicographically = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, contentStale, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (:query IS NULL OR id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query)) AND favorite = 1 ORDER BY title COLLATE LOCALIZED ASC";
+    String searchUncategorizedByModified = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, contentStale, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (:query IS NULL OR id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query)) AND category = '' ORDER BY favorite DESC, modified DESC";
+    String searchUncategorizedLexicographically = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, contentStale, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (:query IS NULL OR id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query)) AND category = '' ORDER BY favorite DESC, title COLLATE LOCALIZED ASC";
+    String searchCategoryByModified = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, contentStale, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (:query IS NULL OR id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query)) AND (category = :category OR category LIKE :category || '/%') ORDER BY category, favorite DESC, modified DESC";
+    String searchCategoryLexicographically = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, contentStale, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (:query IS NULL OR id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query)) AND (category = :category OR category LIKE :category || '/%') ORDER BY category, favorite DESC, title COLLATE LOCALIZED ASC";
+    // Exact reverse of the ascending queries, so paged lists can be loaded in descending order directly
+    String searchRecentLexicographicallyDesc = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, contentStale, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (:query IS NULL OR id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query)) ORDER BY favorite ASC, title COLLATE LOCALIZED DESC";
+    String searchFavoritesLexicographicallyDesc = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, contentStale, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (:query IS NULL OR id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query)) AND favorite = 1 ORDER BY title COLLATE LOCALIZED DESC";
+    String searchUncategorizedLexicographicallyDesc = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, contentStale, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (:query IS NULL OR id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query)) AND category = '' ORDER BY favorite ASC, title COLLATE LOCALIZED DESC";
+    String searchCategoryLexicographicallyDesc = "SELECT id, remoteId, accountId, title, favorite, isShared, readonly, excerpt, modified, category, status, contentStale, '' as eTag, '' as content, 0 as scrollY FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (:query IS NULL OR id IN (SELECT docid FROM NoteFts WHERE NoteFts MATCH :query)) AND (category = :category OR category LIKE :category || '/%') ORDER BY category DESC, favorite ASC, title COLLATE LOCALIZED DESC";
 
     @Query(getNoteById)
     LiveData<Note> getNoteById$(long id);
@@ -60,6 +85,15 @@ public interface NoteDao {
     @Query("SELECT remoteId FROM NOTE WHERE id = :id")
     Long getRemoteId(long id);
 
+    @Query("SELECT contentStale FROM NOTE WHERE id = :id")
+    boolean isContentStale(long id);
+
+    @Query("SELECT syncedHash FROM NOTE WHERE id = :id")
+    String getSyncedHash(long id);
+
+    @Query("SELECT id FROM NOTE WHERE id IN (:ids) AND status != 'LOCAL_DELETED'")
+    List<Long> getExistingNoteIds(Collection<Long> ids);
+
     @Query(count)
     LiveData<Integer> count$(long accountId);
 
@@ -73,56 +107,95 @@ public interface NoteDao {
     Integer countFavorites(long accountId);
 
     @Query(searchRecentByModified)
-    LiveData<List<Note>> searchRecentByModified$(long accountId, String query);
+    LiveData<List<Note>> searchRecentByModified$(long accountId, @Nullable String query);
 
     @Query(searchRecentByModified)
-    List<Note> searchRecentByModified(long accountId, String query);
+    List<Note> searchRecentByModified(long accountId, @Nullable String query);
 
     @Query(searchRecentLexicographically)
-    LiveData<List<Note>> searchRecentLexicographically$(long accountId, String query);
+    LiveData<List<Note>> searchRecentLexicographically$(long accountId, @Nullable String query);
 
     @Query(searchRecentLexicographically)
-    List<Note> searchRecentLexicographically(long accountId, String query);
+    List<Note> searchRecentLexicographically(long accountId, @Nullable String query);
 
     @Query(searchFavoritesByModified)
-    LiveData<List<Note>> searchFavoritesByModified$(long accountId, String query);
+    LiveData<List<Note>> searchFavoritesByModified$(long accountId, @Nullable String query);
 
     @Query(searchFavoritesByModified)
-    List<Note> searchFavoritesByModified(long accountId, String query);
+    List<Note> searchFavoritesByModified(long accountId, @Nullable String query);
 
     @Query(searchFavoritesLexicographically)
-    LiveData<List<Note>> searchFavoritesLexicographically$(long accountId, String query);
+    LiveData<List<Note>> searchFavoritesLexicographically$(long accountId, @Nullable String query);
 
     @Query(searchFavoritesLexicographically)
-    List<Note> searchFavoritesLexicographically(long accountId, String query);
+    List<Note> searchFavoritesLexicographically(long accountId, @Nullable String query);
 
     @Query(searchUncategorizedByModified)
-    LiveData<List<Note>> searchUncategorizedByModified$(long accountId, String query);
+    LiveData<List<Note>> searchUncategorizedByModified$(long accountId, @Nullable String query);
 
     @Query(searchUncategorizedByModified)
-    List<Note> searchUncategorizedByModified(long accountId, String query);
+    List<Note> searchUncategorizedByModified(long accountId, @Nullable String query);
 
     @Query(searchUncategorizedLexicographically)
-    LiveData<List<Note>> searchUncategorizedLexicographically$(long accountId, String query);
+    LiveData<List<Note>> searchUncategorizedLexicographically$(long accountId, @Nullable String query);
 
     @Query(searchUncategorizedLexicographically)
-    List<Note> searchUncategorizedLexicographically(long accountId, String query);
+    List<Note> searchUncategorizedLexicographically(long accountId, @Nullable String query);
 
     @Query(searchCategoryByModified)
-    LiveData<List<Note>> searchCategoryByModified$(long accountId, String query, String category);
+    LiveData<List<Note>> searchCategoryByModified$(long accountId, @Nullable String query, String category);
 
     @Query(searchCategoryByModified)
-    List<Note> searchCategoryByModified(long accountId, String query, String category);
+    List<Note> searchCategoryByModified(long accountId, @Nullable String query, String category);
+
+    @Query(searchCategoryLexicographically)
+    LiveData<List<Note>> searchCategoryLexicographically$(long accountId, @Nullable String query, String category);
 
     @Query(searchCategoryLexicographically)
-    LiveData<List<Note>> searchCategoryLexicographically$(long accountId, String query, String category);
+    List<Note> searchCategoryLexicographically(long accountId, @Nullable String query, String category);
+
+    @Query(searchRecentByModified)
+    PagingSource<Integer, Note> searchRecentByModifiedPaged(long accountId, @Nullable String query);
+
+    @Query(searchRecentLexicographically)
+    PagingSource<Integer, Note> searchRecentLexicographicallyPaged(long accountId, @Nullable String query);
+
+    @Query(searchRecentLexicographicallyDesc)
+    PagingSource<Integer, Note> searchRecentLexicographicallyDescPaged(long accountId, @Nullable String query);
+
+    @Query(searchFavoritesByModified)
+    PagingSource<Integer, Note> searchFavoritesByModifiedPaged(long accountId, @Nullable String query);
+
+    @Query(searchFavoritesLexicographically)
+    PagingSource<Integer, Note> searchFavoritesLexicographicallyPaged(long accountId, @Nullable String query);
+
+    @Query(searchFavoritesLexicographicallyDesc)
+    PagingSource<Integer, Note> searchFavoritesLexicographicallyDescPaged(long accountId, @Nullable String query);
+
+    @Query(searchUncategorizedByModified)
+    PagingSource<Integer, Note> searchUncategorizedByModifiedPaged(long accountId, @Nullable String query);
+
+    @Query(searchUncategorizedLexicographically)
+    PagingSource<Integer, Note> searchUncategorizedLexicographicallyPaged(long accountId, @Nullable String query);
+
+    @Query(searchUncategorizedLexicographicallyDesc)
+    PagingSource<Integer, Note> searchUncategorizedLexicographicallyDescPaged(long accountId, @Nullable String query);
+
+    @Query(searchCategoryByModified)
+    PagingSource<Integer, Note> searchCategoryByModifiedPaged(long accountId, @Nullable String query, String category);
 
     @Query(searchCategoryLexicographically)
-    List<Note> searchCategoryLexicographically(long accountId, String query, String category);
+    PagingSource<Integer, Note> searchCategoryLexicographicallyPaged(long accountId, @Nullable String query, String category);
+
+    @Query(searchCategoryLexicographicallyDesc)
+    PagingSource<Integer, Note> searchCategoryLexicographicallyDescPaged(long accountId, @Nullable String query, String category);
 
     @Query("DELETE FROM NOTE WHERE id = :id AND status = :forceDBStatus")
     void deleteByNoteId(long id, DBStatus forceDBStatus);
 
+    @Query("DELETE FROM NOTE WHERE id IN (:ids) AND status = :forceDBStatus")
+    void deleteByNoteIds(Collection<Long> ids, DBStatus forceDBStatus);
+
     @Query("UPDATE NOTE SET scrollY = :scrollY WHERE id = :id")
     void updateScrollY(long id, int scrollY);
 
@@ -135,6 +208,85 @@ public interface NoteDao {
     @Query("UPDATE NOTE SET category = :category WHERE id = :id")
     void updateCategory(long id, String category);
 
+    @Query("UPDATE NOTE SET status = :status WHERE id IN (:ids)")
+    void updateStatus(Collection<Long> ids, DBStatus status);
+
+    @Query("UPDATE NOTE SET status = 'LOCAL_EDITED', category = :category WHERE id IN (:ids) AND category != :category")
+    void updateCategoryAndMarkEdited(Collection<Long> ids, String category);
+
+    @Query("UPDATE NOTE SET status = 'LOCAL_EDITED', favorite = :favorite WHERE id IN (:ids) AND favorite != :favorite")
+    void updateFavoriteAndMarkEdited(Collection<Long> ids, boolean favorite);
+
+    @Query("SELECT COUNT(*) FROM NOTE WHERE id IN (:ids) AND favorite = 0")
+    int countNonFavorites(Collection<Long> ids);
+
+    @Query("UPDATE NOTE SET status = 'LOCAL_EDITED' WHERE id = :id AND status = 'LOCAL_DELETED'")
+    int undoDeletion(long id);
+
+    /**
+     * Marks all {@param ids} as {@link DBStatus#LOCAL_DELETED} within a single transaction.
+     */
+    @Transaction
+    default void markDeleted(@NonNull List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            updateStatus(ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size())), DBStatus.LOCAL_DELETED);
+        }
+    }
+
+    /**
+     * Moves all {@param ids} to the {@param category} within a single transaction, {@link Note}s which already are in this category stay untouched.
+     */
+    @Transaction
+    default void moveToCategory(@NonNull List<Long> ids, @NonNull String category) {
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            updateCategoryAndMarkEdited(ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size())), category);
+        }
+    }
+
+    /**
+     * Sets {@link Note#getFavorite()} of all {@param ids} within a single transaction, {@link Note}s which already have this state stay untouched.
+     */
+    @Transaction
+    default void setFavorite(@NonNull List<Long> ids, boolean favorite) {
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            updateFavoriteAndMarkEdited(ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size())), favorite);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if all {@param ids} are marked as favorite, otherwise <code>false</code>
+     */
+    @Transaction
+    default boolean areFavorites(@NonNull List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            if (countNonFavorites(ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size()))) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Restores deleted {@link Note}s within a single transaction.
+     * {@link Note}s which are still marked as {@link DBStatus#LOCAL_DELETED} are marked as {@link DBStatus#LOCAL_EDITED} again,
+     * {@link Note}s which have already been removed by a synchronization are inserted as new {@link Note}s.
+     *
+     * @param notes the full {@link Note}s as they have been before the deletion
+     * @return the ids of the restored {@link Note}s
+     */
+    @Transaction
+    default List<Long> restoreDeleted(@NonNull List<Note> notes) {
+        final var ids = new ArrayList<Long>(notes.size());
+        for (final var note : notes) {
+            if (undoDeletion(note.getId()) > 0) {
+                ids.add(note.getId());
+            } else {
+                ids.add(addNote(new Note(0, null, note.getModified(), note.getTitle(), note.getContent(), note.getCategory(), note.getFavorite(), note.getETag(), DBStatus.LOCAL_EDITED, note.getAccountId(), note.getExcerpt(), 0, note.isShared(), note.getReadonly())));
+            }
+        }
+        return ids;
+    }
+
     /**
      * Gets all the {@link Note#remoteId}s of all not deleted {@link Note}s of an {@link Account}
      *
@@ -165,7 +317,7 @@ public interface NoteDao {
      *
      * @return {@link List<Note>}
      */
-    @Query("SELECT * FROM NOTE WHERE status != '' AND accountId = :accountId")
+    @Query(getLocalModifiedNotes)
     List<Note> getLocalModifiedNotes(long accountId);
 
     @Query("SELECT * FROM NOTE WHERE status != 'LOCAL_DELETED' AND accountId = :accountId ORDER BY modified DESC LIMIT 4")
@@ -181,17 +333,84 @@ public interface NoteDao {
      * used by: {@link it.niedermann.owncloud.notes.persistence.NotesServerSyncTask#pushLocalChanges()} update only, if not modified locally during the synchronization
      * (i.e. all (!) user changeable columns (content, favorite, category) must still have the same value), uses reference value gathered at start of synchronization
      */
-    @Query("UPDATE NOTE SET title = :targetTitle, modified = :targetModified, favorite = :targetFavorite, etag = :targetETag, content = :targetContent, status = '', excerpt = :targetExcerpt " +
+    @Query("UPDATE NOTE SET title = :targetTitle, modified = :targetModified, favorite = :targetFavorite, etag = :targetETag, content = :targetContent, status = '', excerpt = :targetExcerpt, contentStale = 0 " +
             "WHERE id = :noteId AND content = :contentBeforeSyncStart AND favorite = :favoriteBeforeSyncStart AND category = :categoryBeforeSyncStart")
     int updateIfNotModifiedLocallyDuringSync(long noteId, Long targetModified, String targetTitle, boolean targetFavorite, String targetETag, String targetContent, String targetExcerpt, String contentBeforeSyncStart, String categoryBeforeSyncStart, boolean favoriteBeforeSyncStart);
 
     /**
      * used by: {@link it.niedermann.owncloud.notes.persistence.NotesServerSyncTask#pullRemoteChanges()} update only, if not modified locally (i.e. STATUS="") and if modified remotely (i.e. any (!) column has changed)
      */
-    @Query("UPDATE NOTE SET title = :title, modified = :modified, favorite = :favorite, etag = :eTag, content = :content, status = '', excerpt = :excerpt, category = :category " +
+    @Query("UPDATE NOTE SET title = :title, modified = :modified, favorite = :favorite, etag = :eTag, content = :content, status = '', excerpt = :excerpt, category = :category, contentStale = 0 " +
             "WHERE id = :id AND status = '' AND (title != :title OR modified != :modified OR favorite != :favorite OR category != :category OR (eTag IS NULL OR eTag != :eTag) OR content != :content)")
     int updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(long id, Long modified, String title, boolean favorite, String category, String eTag, String content, String excerpt);
 
+    /**
+     * used by: {@link it.niedermann.owncloud.notes.persistence.NotesServerSyncTask#pullRemoteChanges()} applies one chunk of remote changes within a single transaction.
+     *
+     * @param added      new {@link Note}s which will be inserted as they are
+     * @param updated    {@link Note}s whose {@link Note#id} is the local id, each is applied with {@link #updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(long, Long, String, boolean, String, String, String, String)}
+     * @param deletedIds local ids of remotely deleted {@link Note}s, only those without local changes will be removed
+     */
+    @Transaction
+    default void applyRemoteChanges(@NonNull List<Note> added, @NonNull List<Note> updated, @NonNull List<Long> deletedIds) {
+        if (!added.isEmpty()) {
+            addNotes(added);
+        }
+        for (final var note : updated) {
+            final var modified = note.getModified();
+            updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(note.getId(), modified == null ? null : modified.getTimeInMillis(), note.getTitle(), note.getFavorite(), note.getCategory(), note.getETag(), note.getContent(), note.getExcerpt());
+            final var syncedHash = note.getSyncedHash();
+            if (syncedHash != null) {
+                updateSyncedHashIfNotModifiedLocally(note.getId(), syncedHash);
+            }
+        }
+        if (!deletedIds.isEmpty()) {
+            deleteByNoteIds(deletedIds, DBStatus.VOID);
+        }
+    }
+
+    /**
+     * Remembers the state which is known to be on the server, see {@link Note#getSyncedHash()}.
+     */
+    @Query("UPDATE NOTE SET syncedHash = :syncedHash WHERE id = :id")
+    void updateSyncedHash(long id, String syncedHash);
+
+    /**
+     * Like {@link #updateSyncedHash(long, String)}, but only for {@link Note}s without local changes, whose state therefore equals the server state.
+     */
+    @Query("UPDATE NOTE SET syncedHash = :syncedHash WHERE id = :id AND status = '' AND (syncedHash IS NULL OR syncedHash != :syncedHash)")
+    void updateSyncedHashIfNotModifiedLocally(long id, String syncedHash);
+
+    /**
+     * used by: {@link it.niedermann.owncloud.notes.persistence.NotesServerSyncTask#pushLocalChanges()} marks a locally edited {@link Note} as synchronized without uploading it,
+     * because it equals the last synchronized state. Only applied if it has not been modified locally meanwhile.
+     */
+    @Query("UPDATE NOTE SET status = '' WHERE id = :noteId AND status = 'LOCAL_EDITED' AND syncedHash = :syncedHash " +
+            "AND title = :titleBeforeSyncStart AND content = :contentBeforeSyncStart AND favorite = :favoriteBeforeSyncStart AND category = :categoryBeforeSyncStart")
+    int updateStatusIfUnchangedSinceLastSync(long noteId, String syncedHash, String titleBeforeSyncStart, String contentBeforeSyncStart, String categoryBeforeSyncStart, boolean favoriteBeforeSyncStart);
+
+    /**
+     * @return local ids of all {@link Note}s of the given account whose content has not been fetched yet, most recently modified first
+     */
+    @Query("SELECT id FROM NOTE WHERE accountId = :accountId AND contentStale = 1 AND status != 'LOCAL_DELETED' ORDER BY modified DESC")
+    List<Long> getNoteIdsWithStaleContent(long accountId);
+
+    /**
+     * Sets the fetched content of a {@link Note}, but only if the content has not been updated meanwhile by a pull or by the user.
+     */
+    @Query("UPDATE NOTE SET content = :content, excerpt = :excerpt, contentStale = 0 WHERE id = :id AND contentStale = 1")
+    int updateStaleContent(long id, String content, String excerpt);
+
+    /**
+     * Applies {@link #updateStaleContent(long, String, String)} for all {@param notes} within a single transaction.
+     */
+    @Transaction
+    default void updateStaleContents(@NonNull List<Note> notes) {
+        for (final var note : notes) {
+            updateStaleContent(note.getId(), note.getContent(), note.getExcerpt());
+        }
+    }
+
     /**
      * This method return all of the categories with given {@param accountId}
      *
@@ -201,9 +420,16 @@ public interface NoteDao {
     @Query("SELECT accountId, category, COUNT(*) as 'totalNotes' FROM NOTE WHERE STATUS != 'LOCAL_DELETED' AND accountId = :accountId GROUP BY category")
     LiveData<List<CategoryWithNotesCount>> getCategories$(Long accountId);
 
+    /**
+     * Like {@link #getCategories$(Long)}, but also counts the favorites of each category,
+     * so all counts of the navigation can be derived from this one query.
+     */
+    @Query("SELECT accountId, category, COUNT(*) as 'totalNotes', SUM(favorite) as 'favoriteNotes' FROM NOTE WHERE STATUS != 'LOCAL_DELETED' AND accountId = :accountId GROUP BY category")
+    LiveData<List<CategoryWithNotesAndFavoritesCount>> getCategoriesWithFavorites$(long accountId);
+
     @Query("SELECT accountId, category, COUNT(*) as 'totalNotes' FROM NOTE WHERE STATUS != 'LOCAL_DELETED' AND accountId = :accountId AND category != '' AND category LIKE :searchTerm GROUP BY category")
     LiveData<List<CategoryWithNotesCount>> searchCategories$(Long accountId, String searchTerm);
 
-    @Query("SELECT COUNT(*) FROM NOTE WHERE STATUS != '' AND accountId = :accountId")
+    @Query(countUnsynchronizedNotes)
     Long countUnsynchronizedNotes(long accountId);
 }
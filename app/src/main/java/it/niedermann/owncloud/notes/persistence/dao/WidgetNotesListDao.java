@@ -10,11 +10,20 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.Query;
 
+import java.util.List;
+
 import it.niedermann.owncloud.notes.persistence.entity.NotesListWidgetData;
+import it.niedermann.owncloud.notes.persistence.entity.NotesListWidgetEntry;
 
 @Dao
 public interface WidgetNotesListDao {
 
+    // Only the displayed columns of the first rows, in the same order as the corresponding NoteDao list queries
+    String getRecentEntries = "SELECT id, title, category, favorite, modified FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' ORDER BY favorite DESC, modified DESC LIMIT :limit";
+    String getFavoriteEntries = "SELECT id, title, category, favorite, modified FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND favorite = 1 ORDER BY modified DESC LIMIT :limit";
+    String getUncategorizedEntries = "SELECT id, title, category, favorite, modified FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND category = '' ORDER BY favorite DESC, modified DESC LIMIT :limit";
+    String getCategoryEntries = "SELECT id, title, category, favorite, modified FROM NOTE WHERE accountId = :accountId AND status != 'LOCAL_DELETED' AND (category = :category OR category LIKE :category || '/%') ORDER BY category, favorite DESC, modified DESC LIMIT :limit";
+
     @Insert
     void createOrUpdateNoteListWidgetData(NotesListWidgetData data);
 
@@ -23,4 +32,22 @@ public interface WidgetNotesListDao {
 
     @Query("SELECT * FROM NOTESLISTWIDGETDATA WHERE id = :appWidgetId")
     NotesListWidgetData getNoteListWidgetData(int appWidgetId);
+
+    @Query("SELECT id FROM NOTESLISTWIDGETDATA WHERE accountId = :accountId")
+    List<Integer> getNoteListWidgetIds(long accountId);
+
+    @Query("SELECT id FROM NOTESLISTWIDGETDATA WHERE accountId = (SELECT accountId FROM NOTE WHERE id = :noteId)")
+    List<Integer> getNoteListWidgetIdsOfNote(long noteId);
+
+    @Query(getRecentEntries)
+    List<NotesListWidgetEntry> getRecentEntries(long accountId, int limit);
+
+    @Query(getFavoriteEntries)
+    List<NotesListWidgetEntry> getFavoriteEntries(long accountId, int limit);
+
+    @Query(getUncategorizedEntries)
+    List<NotesListWidgetEntry> getUncategorizedEntries(long accountId, int limit);
+
+    @Query(getCategoryEntries)
+    List<NotesListWidgetEntry> getCategoryEntries(long accountId, String category, int limit);
 }
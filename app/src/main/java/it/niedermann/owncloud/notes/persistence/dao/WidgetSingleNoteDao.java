@@ -11,6 +11,8 @@ import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 
+import java.util.List;
+
 import it.niedermann.owncloud.notes.persistence.entity.SingleNoteWidgetData;
 
 @Dao
@@ -24,4 +26,10 @@ public interface WidgetSingleNoteDao {
 
     @Query("SELECT * FROM SINGLENOTEWIDGETDATA WHERE id = :id")
     SingleNoteWidgetData getSingleNoteWidgetData(int id);
+
+    @Query("SELECT * FROM SINGLENOTEWIDGETDATA WHERE accountId = :accountId")
+    List<SingleNoteWidgetData> getSingleNoteWidgetDataOfAccount(long accountId);
+
+    @Query("SELECT id FROM SINGLENOTEWIDGETDATA WHERE noteId = :noteId")
+    List<Integer> getSingleNoteWidgetIds(long noteId);
 }
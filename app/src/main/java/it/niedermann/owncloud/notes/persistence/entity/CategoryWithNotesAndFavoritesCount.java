@@ -0,0 +1,46 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.persistence.entity;
+
+import androidx.room.Ignore;
+
+public class CategoryWithNotesAndFavoritesCount extends CategoryWithNotesCount {
+
+    private int favoriteNotes;
+
+    public CategoryWithNotesAndFavoritesCount() {
+        // Default constructor for Room
+    }
+
+    @Ignore
+    public CategoryWithNotesAndFavoritesCount(long accountId, String category, Integer totalNotes, int favoriteNotes) {
+        super(accountId, category, totalNotes);
+        this.favoriteNotes = favoriteNotes;
+    }
+
+    public int getFavoriteNotes() {
+        return favoriteNotes;
+    }
+
+    public void setFavoriteNotes(int favoriteNotes) {
+        this.favoriteNotes = favoriteNotes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CategoryWithNotesAndFavoritesCount that)) return false;
+        if (!super.equals(o)) return false;
+
+        return favoriteNotes == that.favoriteNotes;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + favoriteNotes;
+    }
+}
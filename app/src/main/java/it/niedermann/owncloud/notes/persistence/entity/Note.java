@@ -24,6 +24,7 @@ import java.util.Objects;
 
 import it.niedermann.owncloud.notes.shared.model.DBStatus;
 import it.niedermann.owncloud.notes.shared.model.Item;
+import it.niedermann.owncloud.notes.shared.model.SearchHighlights;
 
 @Entity(
         foreignKeys = {
@@ -42,7 +43,13 @@ import it.niedermann.owncloud.notes.shared.model.Item;
                 @Index(name = "IDX_READONLY", value = "readonly"),
                 @Index(name = "IDX_NOTE_MODIFIED", value = "modified"),
                 @Index(name = "IDX_NOTE_REMOTEID", value = "remoteId"),
-                @Index(name = "IDX_NOTE_STATUS", value = "status")
+                @Index(name = "IDX_NOTE_STATUS", value = "status"),
+                // Composite indices matching the filter and sort order of the NoteDao list and sync queries, see Migration_33_34
+                @Index(name = "IDX_NOTE_ACCOUNTID_FAVORITE_MODIFIED", value = {"accountId", "favorite", "modified"}, orders = {Index.Order.ASC, Index.Order.DESC, Index.Order.DESC}),
+                @Index(name = "IDX_NOTE_ACCOUNTID_FAVORITE_TITLE", value = {"accountId", "favorite", "title"}, orders = {Index.Order.ASC, Index.Order.DESC, Index.Order.ASC}),
+                @Index(name = "IDX_NOTE_ACCOUNTID_CATEGORY_FAVORITE_MODIFIED", value = {"accountId", "category", "favorite", "modified"}, orders = {Index.Order.ASC, Index.Order.ASC, Index.Order.DESC, Index.Order.DESC}),
+                @Index(name = "IDX_NOTE_ACCOUNTID_CATEGORY_FAVORITE_TITLE", value = {"accountId", "category", "favorite", "title"}, orders = {Index.Order.ASC, Index.Order.ASC, Index.Order.DESC, Index.Order.ASC}),
+                @Index(name = "IDX_NOTE_ACCOUNTID_UNSYNCHRONIZED", value = {"accountId", "status"})
         }
 )
 public class Note implements Serializable, Item {
@@ -107,6 +114,27 @@ public class Note implements Serializable, Item {
     @ColumnInfo(defaultValue = "NULL")
     private String noteMode;
 
+    /**
+     * <code>true</code> if only the metadata of this note has been pulled and {@link #content} still needs to be fetched from the server.
+     */
+    @ColumnInfo(defaultValue = "0")
+    private boolean contentStale = false;
+
+    /**
+     * {@link it.niedermann.owncloud.notes.shared.util.NoteUtil#generateSyncHash(String, String, boolean, String)} of the last state which is known to be on the server,
+     * <code>null</code> if it is unknown.
+     */
+    @Nullable
+    @ColumnInfo(defaultValue = "NULL")
+    private String syncedHash;
+
+    /**
+     * Matches of the current search term, only set for notes which have been loaded for the notes list
+     */
+    @Ignore
+    @Nullable
+    private transient SearchHighlights searchHighlights = SearchHighlights.NONE;
+
     public Note() {
         super();
     }
@@ -285,6 +313,33 @@ public class Note implements Serializable, Item {
         this.noteMode = noteMode;
     }
 
+    public boolean isContentStale() {
+        return contentStale;
+    }
+
+    public void setContentStale(boolean contentStale) {
+        this.contentStale = contentStale;
+    }
+
+    @Nullable
+    public String getSyncedHash() {
+        return syncedHash;
+    }
+
+    public void setSyncedHash(@Nullable String syncedHash) {
+        this.syncedHash = syncedHash;
+    }
+
+    @NonNull
+    public SearchHighlights getSearchHighlights() {
+        // Transient fields are null after deserialization
+        return searchHighlights == null ? SearchHighlights.NONE : searchHighlights;
+    }
+
+    public void setSearchHighlights(@NonNull SearchHighlights searchHighlights) {
+        this.searchHighlights = searchHighlights;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -295,6 +350,7 @@ public class Note implements Serializable, Item {
         if (favorite != note.favorite) return false;
         if (isShared != note.isShared) return false;
         if (scrollY != note.scrollY) return false;
+        if (contentStale != note.contentStale) return false;
         if (!Objects.equals(remoteId, note.remoteId))
             return false;
         if (status != note.status) return false;
@@ -322,6 +378,7 @@ public class Note implements Serializable, Item {
         result = 31 * result + (eTag != null ? eTag.hashCode() : 0);
         result = 31 * result + excerpt.hashCode();
         result = 31 * result + scrollY;
+        result = 31 * result + (contentStale ? 1 : 0);
         return result;
     }
 
@@ -342,6 +399,7 @@ public class Note implements Serializable, Item {
                 ", eTag='" + eTag + '\'' +
                 ", excerpt='" + excerpt + '\'' +
                 ", scrollY=" + scrollY +
+                ", contentStale=" + contentStale +
                 '}';
     }
 }
@@ -0,0 +1,124 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.persistence.entity;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.Ignore;
+
+import java.util.Calendar;
+import java.util.Objects;
+
+/**
+ * The columns of a {@link Note} which are displayed in a row of a note list widget.
+ */
+public class NotesListWidgetEntry {
+
+    private long id;
+    @NonNull
+    private String title = "";
+    @NonNull
+    private String category = "";
+    private boolean favorite;
+    @Nullable
+    private Calendar modified;
+
+    public NotesListWidgetEntry() {
+        // Default constructor for Room
+    }
+
+    @Ignore
+    public NotesListWidgetEntry(long id, @NonNull String title, @NonNull String category, boolean favorite, @Nullable Calendar modified) {
+        this.id = id;
+        this.title = title;
+        this.category = category;
+        this.favorite = favorite;
+        this.modified = modified;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    @NonNull
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(@NonNull String title) {
+        this.title = title;
+    }
+
+    @NonNull
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(@NonNull String category) {
+        this.category = category;
+    }
+
+    public boolean getFavorite() {
+        return favorite;
+    }
+
+    public void setFavorite(boolean favorite) {
+        this.favorite = favorite;
+    }
+
+    @Nullable
+    public Calendar getModified() {
+        return modified;
+    }
+
+    public void setModified(@Nullable Calendar modified) {
+        this.modified = modified;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof NotesListWidgetEntry that)) return false;
+
+        if (id != that.id) return false;
+        if (favorite != that.favorite) return false;
+        if (!title.equals(that.title)) return false;
+        if (!category.equals(that.category)) return false;
+        return Objects.equals(getModifiedMillis(), that.getModifiedMillis());
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (id ^ (id >>> 32));
+        result = 31 * result + title.hashCode();
+        result = 31 * result + category.hashCode();
+        result = 31 * result + (favorite ? 1 : 0);
+        result = 31 * result + Objects.hashCode(getModifiedMillis());
+        return result;
+    }
+
+    @Nullable
+    private Long getModifiedMillis() {
+        return modified == null ? null : modified.getTimeInMillis();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "NotesListWidgetEntry{" +
+                "id=" + id +
+                ", title='" + title + '\'' +
+                ", category='" + category + '\'' +
+                ", favorite=" + favorite +
+                ", modified=" + getModifiedMillis() +
+                '}';
+    }
+}
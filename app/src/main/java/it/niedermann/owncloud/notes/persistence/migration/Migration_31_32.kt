@@ -0,0 +1,25 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.persistence.migration
+
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+
+/**
+ * The category cleanup triggers scanned all `Note`s for every single written row.
+ * They now only fire when a category might have become orphaned and only look at this category.
+ */
+@Suppress("ClassName", "Detekt.ClassNaming", "Detekt.MagicNumber")
+class Migration_31_32 : Migration(31, 32) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        val cleanUpStatement = "DELETE FROM CategoryOptions WHERE CategoryOptions.accountId = OLD.accountId AND CategoryOptions.category = OLD.category AND NOT EXISTS (SELECT 1 FROM Note WHERE Note.accountId = OLD.accountId AND Note.category = OLD.category);"
+        db.execSQL("DROP TRIGGER IF EXISTS TRG_CLEANUP_CATEGORIES_DEL")
+        db.execSQL("DROP TRIGGER IF EXISTS TRG_CLEANUP_CATEGORIES_UPD")
+        db.execSQL("CREATE TRIGGER TRG_CLEANUP_CATEGORIES_DEL AFTER DELETE ON Note BEGIN $cleanUpStatement END;")
+        db.execSQL("CREATE TRIGGER TRG_CLEANUP_CATEGORIES_UPD AFTER UPDATE OF category ON Note WHEN OLD.category != NEW.category BEGIN $cleanUpStatement END;")
+    }
+}
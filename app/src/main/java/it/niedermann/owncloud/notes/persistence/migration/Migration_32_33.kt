@@ -0,0 +1,20 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.persistence.migration
+
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+
+/**
+ * Adds `contentStale` which marks notes whose content has not been fetched from the server yet.
+ */
+@Suppress("ClassName", "Detekt.ClassNaming", "Detekt.MagicNumber")
+class Migration_32_33 : Migration(32, 33) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        db.execSQL("ALTER TABLE Note ADD COLUMN contentStale INTEGER NOT NULL DEFAULT 0")
+    }
+}
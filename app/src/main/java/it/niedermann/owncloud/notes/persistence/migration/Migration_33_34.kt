@@ -0,0 +1,40 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.persistence.migration
+
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+
+/**
+ * Adds composite indices which match the filter and sort order of the list and sync queries in `NoteDao`,
+ * so they can be answered without scanning all notes or sorting them in a temporary B-tree.
+ */
+@Suppress("ClassName", "Detekt.ClassNaming", "Detekt.MagicNumber")
+class Migration_33_34 : Migration(33, 34) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS `IDX_NOTE_ACCOUNTID_FAVORITE_MODIFIED` ON `Note` (`accountId` ASC, `favorite` DESC, `modified` DESC)")
+        db.execSQL("CREATE INDEX IF NOT EXISTS `IDX_NOTE_ACCOUNTID_CATEGORY_FAVORITE_MODIFIED` ON `Note` (`accountId` ASC, `category` ASC, `favorite` DESC, `modified` DESC)")
+        createCollatedAndPartialIndices(db)
+    }
+
+    companion object {
+        /**
+         * Room can neither declare the `LOCALIZED` collation of the lexicographical sort order nor a partial index.
+         * Since Room only validates names, columns and orders of indices, those are created as plain indices by Room and replaced here.
+         * Must therefore also be called when the database gets created.
+         */
+        @JvmStatic
+        fun createCollatedAndPartialIndices(db: SupportSQLiteDatabase) {
+            db.execSQL("DROP INDEX IF EXISTS `IDX_NOTE_ACCOUNTID_FAVORITE_TITLE`")
+            db.execSQL("DROP INDEX IF EXISTS `IDX_NOTE_ACCOUNTID_CATEGORY_FAVORITE_TITLE`")
+            db.execSQL("DROP INDEX IF EXISTS `IDX_NOTE_ACCOUNTID_UNSYNCHRONIZED`")
+            db.execSQL("CREATE INDEX `IDX_NOTE_ACCOUNTID_FAVORITE_TITLE` ON `Note` (`accountId` ASC, `favorite` DESC, `title` COLLATE LOCALIZED ASC)")
+            db.execSQL("CREATE INDEX `IDX_NOTE_ACCOUNTID_CATEGORY_FAVORITE_TITLE` ON `Note` (`accountId` ASC, `category` ASC, `favorite` DESC, `title` COLLATE LOCALIZED ASC)")
+            db.execSQL("CREATE INDEX `IDX_NOTE_ACCOUNTID_UNSYNCHRONIZED` ON `Note` (`accountId`, `status`) WHERE `status` != ''")
+        }
+    }
+}
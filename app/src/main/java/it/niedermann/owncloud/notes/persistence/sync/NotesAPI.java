@@ -10,8 +10,11 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
 
+import com.google.gson.Gson;
 import com.google.gson.annotations.Expose;
+import com.nextcloud.android.sso.aidl.NextcloudRequest;
 import com.nextcloud.android.sso.api.EmptyResponse;
 import com.nextcloud.android.sso.api.NextcloudAPI;
 import com.nextcloud.android.sso.api.ParsedResponse;
@@ -21,7 +24,7 @@ import java.util.Calendar;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
 import io.reactivex.Observable;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
@@ -40,12 +43,24 @@ public class NotesAPI {
     private static final String API_ENDPOINT_NOTES_1_0 = "/index.php/apps/notes/api/v1/";
     private static final String API_ENDPOINT_NOTES_0_2 = "/index.php/apps/notes/api/v0.2/";
 
+    private static final String HEADER_KEY_IF_NONE_MATCH = "If-None-Match";
+    public static final String HEADER_KEY_X_NOTES_CHUNK_CURSOR = "X-Notes-Chunk-Cursor";
+
+    @NonNull
+    private final NextcloudAPI nextcloudAPI;
+    @NonNull
+    private final Gson gson;
     @NonNull
     private final ApiVersion usedApiVersion;
     private final NotesAPI_0_2 notesAPI_0_2;
     private final NotesAPI_1_0 notesAPI_1_0;
 
-    public NotesAPI(@NonNull NextcloudAPI nextcloudAPI, @Nullable ApiVersion preferredApiVersion) {
+    /**
+     * @param gson must be the same configuration as the one used by the {@param nextcloudAPI}
+     */
+    public NotesAPI(@NonNull NextcloudAPI nextcloudAPI, @NonNull Gson gson, @Nullable ApiVersion preferredApiVersion) {
+        this.nextcloudAPI = nextcloudAPI;
+        this.gson = gson;
         if (preferredApiVersion == null) {
             Log.i(TAG, "Using " + ApiVersion.API_VERSION_0_2 + ", preferredApiVersion is null");
             usedApiVersion = ApiVersion.API_VERSION_0_2;
@@ -69,23 +84,51 @@ public class NotesAPI {
         }
     }
 
-    public Observable<ParsedResponse<List<Note>>> getNotes(@NonNull Calendar lastModified, String lastETag) {
+    /**
+     * Fetches all notes which have been modified since <code>lastModified</code>, the others only consist of their id.
+     * The response body is not parsed up front, so it can be read in batches.
+     * The caller is responsible for closing the returned {@link NotesStream}.
+     */
+    @WorkerThread
+    public NotesStream getNotesStreamed(@NonNull Calendar lastModified, String lastETag) throws Exception {
+        final String endpoint;
         if (ApiVersion.API_VERSION_1_0.equals(usedApiVersion)) {
-            return notesAPI_1_0.getNotes(lastModified.getTimeInMillis() / 1_000, lastETag);
+            endpoint = API_ENDPOINT_NOTES_1_0;
         } else if (ApiVersion.API_VERSION_0_2.equals(usedApiVersion)) {
-            return notesAPI_0_2.getNotes(lastModified.getTimeInMillis() / 1_000, lastETag);
+            endpoint = API_ENDPOINT_NOTES_0_2;
         } else {
-            throw new UnsupportedOperationException("Used API version " + usedApiVersion + " does not support getNotes().");
+            throw new UnsupportedOperationException("Used API version " + usedApiVersion + " does not support getNotesStreamed().");
+        }
+        final var requestBuilder = new NextcloudRequest.Builder()
+                .setMethod("GET")
+                .setUrl(endpoint + "notes")
+                .setParameter(Map.of("pruneBefore", String.valueOf(lastModified.getTimeInMillis() / 1_000)));
+        if (lastETag != null) {
+            requestBuilder.setHeader(Map.of(HEADER_KEY_IF_NONE_MATCH, List.of(lastETag)));
+        }
+        final var response = nextcloudAPI.performNetworkRequestV2(requestBuilder.build());
+        final var headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+        for (final var header : response.getPlainHeaders()) {
+            headers.put(header.getName(), header.getValue());
         }
+        return new NotesStream(gson, response.getBody(), headers);
     }
 
-    public Observable<List<Long>> getNotesIDs() {
+    /**
+     * Fetches one chunk of notes without their <code>content</code>, which can be fetched later using {@link #getNote(long)}.
+     * The {@link #HEADER_KEY_X_NOTES_CHUNK_CURSOR} of the response is the <code>chunkCursor</code> of the next chunk.
+     * It is missing for the last chunk, and servers which do not support chunking return all notes at once.
+     *
+     * @param chunkSize   maximum number of notes in the chunk
+     * @param chunkCursor <code>null</code> to fetch the first chunk
+     */
+    public Observable<ParsedResponse<List<Note>>> getNotesMetadata(int chunkSize, @Nullable String chunkCursor) {
         if (ApiVersion.API_VERSION_1_0.equals(usedApiVersion)) {
-            return notesAPI_1_0.getNotesIDs().map(response -> response.getResponse().stream().map(Note::getRemoteId).collect(Collectors.toList()));
+            return notesAPI_1_0.getNotesMetadata(chunkSize, chunkCursor);
         } else if (ApiVersion.API_VERSION_0_2.equals(usedApiVersion)) {
-            return notesAPI_0_2.getNotesIDs().map(response -> response.getResponse().stream().map(Note::getRemoteId).collect(Collectors.toList()));
+            return notesAPI_0_2.getNotesMetadata();
         } else {
-            throw new UnsupportedOperationException("Used API version " + usedApiVersion + " does not support getNotesIDs().");
+            throw new UnsupportedOperationException("Used API version " + usedApiVersion + " does not support getNotesMetadata().");
         }
     }
 
@@ -19,7 +19,6 @@ import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.DELETE;
 import retrofit2.http.GET;
-import retrofit2.http.Header;
 import retrofit2.http.POST;
 import retrofit2.http.PUT;
 import retrofit2.http.Path;
@@ -30,11 +29,8 @@ import retrofit2.http.Query;
  */
 public interface NotesAPI_1_0 {
 
-    @GET("notes")
-    Observable<ParsedResponse<List<Note>>> getNotes(@Query("pruneBefore") long lastModified, @Header("If-None-Match") String lastETag);
-
-    @GET("notes?exclude=etag,readonly,content,title,category,favorite,modified")
-    Observable<ParsedResponse<List<Note>>> getNotesIDs();
+    @GET("notes?exclude=content")
+    Observable<ParsedResponse<List<Note>>> getNotesMetadata(@Query("chunkSize") int chunkSize, @Query("chunkCursor") String chunkCursor);
 
     @POST("notes")
     Call<Note> createNote(@Body Note note);
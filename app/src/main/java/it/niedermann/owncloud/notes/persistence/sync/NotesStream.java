@@ -0,0 +1,85 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.persistence.sync;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+
+/**
+ * Reads the JSON array of a notes list response element by element instead of materializing the whole list at once.
+ * Only one batch of {@link Note}s is held in memory at a time, so the memory needed for a pull depends on the batch size and not on the size of the account.
+ */
+@WorkerThread
+public class NotesStream implements Closeable {
+
+    @NonNull
+    private final Gson gson;
+    @NonNull
+    private final JsonReader reader;
+    @NonNull
+    private final Map<String, String> headers;
+    private boolean started = false;
+    private boolean finished = false;
+
+    public NotesStream(@NonNull Gson gson, @NonNull InputStream body, @NonNull Map<String, String> headers) {
+        this.gson = gson;
+        this.reader = gson.newJsonReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        this.headers = headers;
+    }
+
+    /**
+     * @return the response headers, e.g. <code>ETag</code> and <code>Last-Modified</code>
+     */
+    @NonNull
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @param maxSize maximum number of {@link Note}s to read
+     * @return the next {@link Note}s of the response or an empty {@link List} if all notes have been read
+     */
+    @NonNull
+    public List<Note> readBatch(int maxSize) throws IOException {
+        if (finished) {
+            return Collections.emptyList();
+        }
+        if (!started) {
+            reader.beginArray();
+            started = true;
+        }
+        final var batch = new ArrayList<Note>(maxSize);
+        while (batch.size() < maxSize && reader.hasNext()) {
+            batch.add(gson.fromJson(reader, Note.class));
+        }
+        if (!reader.hasNext()) {
+            reader.endArray();
+            finished = true;
+        }
+        return batch;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
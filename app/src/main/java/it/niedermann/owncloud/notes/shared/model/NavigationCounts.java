@@ -0,0 +1,86 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.shared.model;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import it.niedermann.owncloud.notes.persistence.entity.CategoryWithNotesAndFavoritesCount;
+import it.niedermann.owncloud.notes.persistence.entity.CategoryWithNotesCount;
+
+/**
+ * All counts which are shown in the navigation drawer, derived from one grouped query per account.
+ */
+public class NavigationCounts {
+
+    private final int total;
+    private final int favorites;
+    private final int uncategorized;
+    @NonNull
+    private final List<CategoryWithNotesCount> categories;
+
+    public NavigationCounts(@NonNull List<CategoryWithNotesAndFavoritesCount> fromDatabase) {
+        int total = 0;
+        int favorites = 0;
+        int uncategorized = 0;
+        for (final var category : fromDatabase) {
+            final int notes = category.getTotalNotes() == null ? 0 : category.getTotalNotes();
+            total += notes;
+            favorites += category.getFavoriteNotes();
+            if ("".equals(category.getCategory())) {
+                uncategorized = notes;
+            }
+        }
+        this.total = total;
+        this.favorites = favorites;
+        this.uncategorized = uncategorized;
+        this.categories = Collections.unmodifiableList(new ArrayList<>(fromDatabase));
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getFavorites() {
+        return favorites;
+    }
+
+    public int getUncategorized() {
+        return uncategorized;
+    }
+
+    /**
+     * @return the amount of notes per category, including the uncategorized ones as empty category
+     */
+    @NonNull
+    public List<CategoryWithNotesCount> getCategories() {
+        return categories;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof NavigationCounts that)) return false;
+
+        return total == that.total
+                && favorites == that.favorites
+                && uncategorized == that.uncategorized
+                && categories.equals(that.categories);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = total;
+        result = 31 * result + favorites;
+        result = 31 * result + uncategorized;
+        result = 31 * result + categories.hashCode();
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.shared.model;
+
+import static it.niedermann.owncloud.notes.shared.util.NoteUtil.EXCERPT_LINE_SEPARATOR;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.Arrays;
+
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+
+/**
+ * Ranges of a {@link Note}s title and excerpt which match the current search term.
+ * They are calculated once when the {@link Note} gets loaded, so the list only needs to apply them when binding.
+ * Each array contains pairs of the inclusive start and the exclusive end of a match.
+ */
+public class SearchHighlights {
+
+    private static final int[] NO_RANGES = new int[0];
+
+    public static final SearchHighlights NONE = new SearchHighlights(NO_RANGES, NO_RANGES, NO_RANGES);
+
+    @NonNull
+    private final int[] title;
+    @NonNull
+    private final int[] excerpt;
+    @NonNull
+    private final int[] multilineExcerpt;
+
+    private SearchHighlights(@NonNull int[] title, @NonNull int[] excerpt, @NonNull int[] multilineExcerpt) {
+        this.title = title;
+        this.excerpt = excerpt;
+        this.multilineExcerpt = multilineExcerpt;
+    }
+
+    @NonNull
+    @WorkerThread
+    public static SearchHighlights of(@NonNull Note note, @Nullable String searchTerm) {
+        if (searchTerm == null || searchTerm.isEmpty()) {
+            return NONE;
+        }
+        return new SearchHighlights(
+                find(note.getTitle(), searchTerm),
+                find(note.getExcerpt(), searchTerm),
+                find(note.getExcerpt().replace(EXCERPT_LINE_SEPARATOR, "\n"), searchTerm));
+    }
+
+    /**
+     * @return the ranges of all non-overlapping, case insensitive occurrences of the <code>searchTerm</code> in the <code>text</code>
+     */
+    @NonNull
+    public static int[] find(@NonNull String text, @NonNull String searchTerm) {
+        final int length = searchTerm.length();
+        if (length == 0 || text.length() < length) {
+            return NO_RANGES;
+        }
+        var ranges = NO_RANGES;
+        int count = 0;
+        int i = 0;
+        while (i <= text.length() - length) {
+            if (text.regionMatches(true, i, searchTerm, 0, length)) {
+                if (count + 2 > ranges.length) {
+                    ranges = Arrays.copyOf(ranges, Math.max(4, ranges.length * 2));
+                }
+                ranges[count++] = i;
+                ranges[count++] = i + length;
+                i += length;
+            } else {
+                i++;
+            }
+        }
+        return count == ranges.length ? ranges : Arrays.copyOf(ranges, count);
+    }
+
+    @NonNull
+    public int[] getTitle() {
+        return title;
+    }
+
+    /**
+     * @return ranges of {@link Note#getExcerpt()}
+     */
+    @NonNull
+    public int[] getExcerpt() {
+        return excerpt;
+    }
+
+    /**
+     * @return ranges of {@link Note#getExcerpt()} after its {@link it.niedermann.owncloud.notes.shared.util.NoteUtil#EXCERPT_LINE_SEPARATOR}s have been replaced by line breaks
+     */
+    @NonNull
+    public int[] getMultilineExcerpt() {
+        return multilineExcerpt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final var that = (SearchHighlights) o;
+        return Arrays.equals(title, that.title)
+                && Arrays.equals(excerpt, that.excerpt)
+                && Arrays.equals(multilineExcerpt, that.multilineExcerpt);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Arrays.hashCode(title);
+        result = 31 * result + Arrays.hashCode(excerpt);
+        result = 31 * result + Arrays.hashCode(multilineExcerpt);
+        return result;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.shared.util;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+
+/**
+ * Emits the first value of the <code>source</code> immediately and following values only after the
+ * <code>source</code> did not emit another value for <code>delayMillis</code>, so bursts of e.g. database writes
+ * during a synchronization result in one update.
+ */
+public class DebouncedLiveData<T> extends MediatorLiveData<T> {
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final long delayMillis;
+    private boolean emitted = false;
+    @Nullable
+    private Runnable pending;
+
+    public DebouncedLiveData(@NonNull LiveData<T> source, long delayMillis) {
+        this.delayMillis = delayMillis;
+        addSource(source, this::onSourceChanged);
+    }
+
+    private void onSourceChanged(T value) {
+        cancelPending();
+        if (!emitted) {
+            emitted = true;
+            setValue(value);
+            return;
+        }
+        pending = () -> {
+            pending = null;
+            setValue(value);
+        };
+        handler.postDelayed(pending, delayMillis);
+    }
+
+    @Override
+    protected void onInactive() {
+        super.onInactive();
+        // The source does not emit its latest value again when this becomes active, so it must not get lost
+        flushPending();
+    }
+
+    private void flushPending() {
+        final var runnable = pending;
+        if (runnable != null) {
+            handler.removeCallbacks(runnable);
+            runnable.run();
+        }
+    }
+
+    private void cancelPending() {
+        if (pending != null) {
+            handler.removeCallbacks(pending);
+            pending = null;
+        }
+    }
+}
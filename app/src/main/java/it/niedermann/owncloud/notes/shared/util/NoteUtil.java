@@ -18,6 +18,9 @@ import it.niedermann.owncloud.notes.R;
 import static it.niedermann.android.markdown.MarkdownUtil.removeMarkdown;
 import static it.niedermann.android.markdown.MarkdownUtil.replaceCheckboxesWithEmojis;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.regex.Pattern;
 
 /**
@@ -49,6 +52,32 @@ public class NoteUtil {
         return removeMarkdown(line).trim().length() == 0;
     }
 
+    /**
+     * Generates a hash of all properties of a note which are sent to the server.
+     * Two notes with the same hash would result in the same note on the server.
+     *
+     * @return SHA-256 of the given properties in hex format
+     */
+    @NonNull
+    public static String generateSyncHash(@NonNull String title, @NonNull String category, boolean favorite, @NonNull String content) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required to be supported by every Java platform", e);
+        }
+        // Separate the properties, so e.g. a title suffix can not be confused with a category prefix
+        for (final var property : new String[]{title, category, favorite ? "1" : "0", content}) {
+            digest.update(property.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        final var hash = new StringBuilder(64);
+        for (final byte b : digest.digest()) {
+            hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hash.toString();
+    }
+
     /**
      * Truncates a string to a desired maximum length.
      * Like String.substring(int,int), but throw no exception if desired length is longer than the string.
@@ -164,6 +193,43 @@ public class NoteUtil {
         return line;
     }
 
+    /**
+     * Converts a search term entered by the user into a full text <code>MATCH</code> expression.
+     * Each whitespace separated word is matched as a prefix, all words need to be present.
+     * <p>
+     * Unlike the former <code>LIKE '%term%'</code> search, words are only found at the start of a token:
+     * <ul>
+     *     <li>Substrings within a word do not match, e.g. "ocer" does not find "groceries"</li>
+     *     <li>The tokenizer does not split scripts without spaces like Chinese or Japanese into words, so only the beginning of such a run of characters is found</li>
+     * </ul>
+     * <pre>
+     * null          -> null
+     * " "           -> null
+     * "foo"         -> "foo*"
+     * " foo  bar"   -> "foo*" "bar*"
+     * </pre>
+     *
+     * @param searchTerm String - raw user input
+     * @return MATCH expression or <code>null</code> if the search term does not contain any word
+     */
+    @Nullable
+    public static String toFtsMatchQuery(@Nullable String searchTerm) {
+        if (searchTerm == null) {
+            return null;
+        }
+        final var query = new StringBuilder();
+        for (final String word : searchTerm.replace("\"", " ").trim().split("\\s+")) {
+            if (!word.isEmpty()) {
+                if (query.length() > 0) {
+                    query.append(' ');
+                }
+                // FTS4 only treats a trailing asterisk within the quotes as prefix query
+                query.append('"').append(word).append("*\"");
+            }
+        }
+        return query.length() == 0 ? null : query.toString();
+    }
+
     @NonNull
     public static String extendCategory(@NonNull String category) {
         return category.replace("/", " / ");
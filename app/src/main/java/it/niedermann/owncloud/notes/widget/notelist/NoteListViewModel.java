@@ -24,7 +24,6 @@ import it.niedermann.owncloud.notes.persistence.NotesRepository;
 
 import static androidx.lifecycle.Transformations.distinctUntilChanged;
 import static androidx.lifecycle.Transformations.map;
-import static androidx.lifecycle.Transformations.switchMap;
 import static it.niedermann.owncloud.notes.shared.model.ENavigationCategoryType.FAVORITES;
 import static it.niedermann.owncloud.notes.shared.model.ENavigationCategoryType.RECENT;
 import static it.niedermann.owncloud.notes.shared.util.DisplayUtils.convertToCategoryNavigationItem;
@@ -43,31 +42,27 @@ public class NoteListViewModel extends AndroidViewModel {
 
     public LiveData<List<NavigationItem>> getAdapterCategories(Long accountId) {
         return distinctUntilChanged(
-                switchMap(distinctUntilChanged(repo.count$(accountId)), (count) -> {
-                    Log.v(TAG, "[getAdapterCategories] countLiveData: " + count);
-                    return switchMap(distinctUntilChanged(repo.countFavorites$(accountId)), (favoritesCount) -> {
-                        Log.v(TAG, "[getAdapterCategories] getFavoritesCountLiveData: " + favoritesCount);
-                        return map(distinctUntilChanged(repo.getCategories$(accountId)), fromDatabase -> {
-                            final var categories = convertToCategoryNavigationItem(getApplication(), fromDatabase);
+                map(repo.getNavigationCounts$(accountId), counts -> {
+                    Log.v(TAG, "[getAdapterCategories] count: " + counts.getTotal() + ", favoritesCount: " + counts.getFavorites());
+                    final var fromDatabase = counts.getCategories();
+                    final var categories = convertToCategoryNavigationItem(getApplication(), fromDatabase);
 
-                            final var items = new ArrayList<NavigationItem>(fromDatabase.size() + 3);
-                            items.add(new NavigationItem(MainActivity.ADAPTER_KEY_RECENT, getApplication().getString(R.string.label_all_notes), count, R.drawable.selector_all_notes, RECENT));
-                            items.add(new NavigationItem(MainActivity.ADAPTER_KEY_STARRED, getApplication().getString(R.string.label_favorites), favoritesCount, R.drawable.selector_favorites, FAVORITES));
+                    final var items = new ArrayList<NavigationItem>(fromDatabase.size() + 3);
+                    items.add(new NavigationItem(MainActivity.ADAPTER_KEY_RECENT, getApplication().getString(R.string.label_all_notes), counts.getTotal(), R.drawable.selector_all_notes, RECENT));
+                    items.add(new NavigationItem(MainActivity.ADAPTER_KEY_STARRED, getApplication().getString(R.string.label_favorites), counts.getFavorites(), R.drawable.selector_favorites, FAVORITES));
 
-                            if (categories.size() > 2 && categories.get(2).label.isEmpty()) {
-                                items.add(new NavigationItem(MainActivity.ADAPTER_KEY_UNCATEGORIZED, "", null, NavigationAdapter.ICON_NOFOLDER));
-                            }
+                    if (categories.size() > 2 && categories.get(2).label.isEmpty()) {
+                        items.add(new NavigationItem(MainActivity.ADAPTER_KEY_UNCATEGORIZED, "", null, NavigationAdapter.ICON_NOFOLDER));
+                    }
 
-                            for (final var item : categories) {
-                                final int slashIndex = item.label.indexOf('/');
+                    for (final var item : categories) {
+                        final int slashIndex = item.label.indexOf('/');
 
-                                item.label = slashIndex < 0 ? item.label : item.label.substring(0, slashIndex);
-                                item.id = "category:" + item.label;
-                                items.add(item);
-                            }
-                            return items;
-                        });
-                    });
+                        item.label = slashIndex < 0 ? item.label : item.label.substring(0, slashIndex);
+                        item.id = "category:" + item.label;
+                        items.add(item);
+                    }
+                    return items;
                 })
         );
     }
@@ -50,6 +50,11 @@ class NoteListWidget : AppWidgetProvider() {
             return
         }
 
+        if (intent.hasExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS)) {
+            // Already updated by onUpdate
+            return
+        }
+
         if (!intent.hasExtra(AppWidgetManager.EXTRA_APPWIDGET_ID)) {
             Log.w(TAG, "Update widget via default appWidgetIds")
             updateAppWidget(
@@ -120,9 +125,10 @@ class NoteListWidget : AppWidgetProvider() {
         }
 
         @JvmStatic
-        fun updateNoteListWidgets(context: Context) {
+        fun updateNoteListWidgets(context: Context, appWidgetIds: IntArray) {
             val intent = Intent(context, NoteListWidget::class.java).apply {
                 setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE)
+                putExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS, appWidgetIds)
             }
             context.sendBroadcast(intent)
         }
@@ -21,8 +21,8 @@ import it.niedermann.owncloud.notes.R
 import it.niedermann.owncloud.notes.edit.EditNoteActivity
 import it.niedermann.owncloud.notes.persistence.NotesRepository
 import it.niedermann.owncloud.notes.persistence.entity.Account
-import it.niedermann.owncloud.notes.persistence.entity.Note
 import it.niedermann.owncloud.notes.persistence.entity.NotesListWidgetData
+import it.niedermann.owncloud.notes.persistence.entity.NotesListWidgetEntry
 import it.niedermann.owncloud.notes.shared.model.ENavigationCategoryType
 import it.niedermann.owncloud.notes.shared.model.NavigationCategory
 
@@ -33,55 +33,47 @@ class NoteListWidgetFactory internal constructor(private val context: Context, i
         AppWidgetManager.INVALID_APPWIDGET_ID
     )
     private val repo: NotesRepository = NotesRepository.getInstance(context)
-    private val dbNotes: MutableList<Note> = ArrayList()
+    private var entries: List<NotesListWidgetEntry> = emptyList()
+
+    /**
+     * Views of the current [entries] by their id, which are reused as long as the entry does not change
+     */
+    private val views: MutableMap<Long, RemoteViews> = HashMap()
     private var data: NotesListWidgetData? = null
+    private var localAccount: Account? = null
+    private var darkMode = false
 
     override fun onCreate() = Unit
 
     override fun onDataSetChanged() {
-        dbNotes.clear()
         try {
-            data = repo.getNoteListWidgetData(appWidgetId)
-            if (data == null) {
+            val widgetData = repo.getNoteListWidgetData(appWidgetId)
+            if (widgetData == null) {
                 Log.w(TAG, "Widget data is null")
+                data = null
+                entries = emptyList()
+                views.clear()
                 return
             }
-            val widgetData = data ?: return
 
             Log.v(TAG, "--- data - $widgetData")
 
-            when (widgetData.mode) {
-                NotesListWidgetData.MODE_DISPLAY_ALL -> dbNotes.addAll(
-                    repo.searchRecentByModified(
-                        widgetData.accountId, "%"
-                    )
-                )
-
-                NotesListWidgetData.MODE_DISPLAY_STARRED -> dbNotes.addAll(
-                    repo.searchFavoritesByModified(
-                        widgetData.accountId, "%"
-                    )
-                )
-
-                else -> {
-                    if (widgetData.category != null) {
-                        dbNotes.addAll(
-                            repo.searchCategoryByModified(
-                                widgetData.accountId,
-                                "%",
-                                widgetData.category
-                            )
-                        )
-                    } else {
-                        dbNotes.addAll(
-                            repo.searchUncategorizedByModified(
-                                widgetData.accountId,
-                                "%"
-                            )
-                        )
-                    }
-                }
+            val isDarkMode = PlatformThemeUtil.isDarkMode(context)
+            if (widgetData != data || isDarkMode != darkMode) {
+                views.clear()
+                localAccount = repo.getAccountById(widgetData.accountId)
             }
+            data = widgetData
+            darkMode = isDarkMode
+
+            // Only the rows a widget can display are loaded
+            val maxEntries = context.resources.getInteger(R.integer.widget_note_list_max_entries)
+            val newEntries = repo.getNoteListWidgetEntries(widgetData, maxEntries)
+            val previousEntries = entries.associateBy { it.id }
+            newEntries.filter { previousEntries[it.id] != it }.forEach { views.remove(it.id) }
+            val newIds = newEntries.mapTo(HashSet()) { it.id }
+            views.keys.retainAll(newIds)
+            entries = newEntries
         } catch (e: Exception) {
             Log.w(TAG, "Error caught at onDataSetChanged: $e")
         }
@@ -90,7 +82,7 @@ class NoteListWidgetFactory internal constructor(private val context: Context, i
     override fun onDestroy() = Unit
 
     override fun getCount(): Int {
-        return dbNotes.size
+        return entries.size
     }
 
     private fun getEditNoteIntent(bundle: Bundle): Intent {
@@ -116,25 +108,24 @@ class NoteListWidgetFactory internal constructor(private val context: Context, i
         return getEditNoteIntent(bundle)
     }
 
-    private fun getOpenNoteIntent(note: Note): Intent {
+    private fun getOpenNoteIntent(entry: NotesListWidgetEntry, accountId: Long): Intent {
         val bundle = Bundle().apply {
-            putLong(EditNoteActivity.PARAM_NOTE_ID, note.id)
-            putLong(EditNoteActivity.PARAM_ACCOUNT_ID, note.accountId)
+            putLong(EditNoteActivity.PARAM_NOTE_ID, entry.id)
+            putLong(EditNoteActivity.PARAM_ACCOUNT_ID, accountId)
         }
 
         return getEditNoteIntent(bundle)
     }
 
     override fun getViewAt(position: Int): RemoteViews? {
-        val note = dbNotes.getOrNull(position) ?: return null
-
-        val openNoteIntent = getOpenNoteIntent(note)
+        val entry = entries.getOrNull(position) ?: return null
+        val widgetData = data ?: return null
+        return views.getOrPut(entry.id) { createView(entry, widgetData) }
+    }
 
-        var createNoteIntent: Intent? = null
-        data?.let {
-            val localAccount =  repo.getAccountById(it.accountId)
-            createNoteIntent = getCreateNoteIntent(localAccount)
-        }
+    private fun createView(entry: NotesListWidgetEntry, widgetData: NotesListWidgetData): RemoteViews {
+        val openNoteIntent = getOpenNoteIntent(entry, widgetData.accountId)
+        val createNoteIntent = localAccount?.let { getCreateNoteIntent(it) }
 
         return RemoteViews(context.packageName, R.layout.widget_entry).apply {
             setOnClickFillInIntent(R.id.widget_note_list_entry, openNoteIntent)
@@ -143,15 +134,15 @@ class NoteListWidgetFactory internal constructor(private val context: Context, i
                 setOnClickFillInIntent(R.id.widget_entry_fav_icon, createNoteIntent)
             }
 
-            setTextViewText(R.id.widget_entry_title, note.title)
+            setTextViewText(R.id.widget_entry_title, entry.title)
 
-            if (note.category.isEmpty()) {
+            if (entry.category.isEmpty()) {
                 setViewVisibility(R.id.widget_entry_category, View.GONE)
             } else {
                 setViewVisibility(R.id.widget_entry_category, View.VISIBLE)
-                setTextViewText(R.id.widget_entry_category, note.category)
+                setTextViewText(R.id.widget_entry_category, entry.category)
 
-                val textColorId = if (PlatformThemeUtil.isDarkMode(context)) {
+                val textColorId = if (darkMode) {
                     R.color.text_color
                 } else {
                     R.color.category_border
@@ -160,7 +151,7 @@ class NoteListWidgetFactory internal constructor(private val context: Context, i
                 setTextColor(R.id.widget_entry_category, textColor)
             }
 
-            val starIconId = if (note.favorite) {
+            val starIconId = if (entry.favorite) {
                 R.drawable.ic_star_yellow_24dp
             } else {
                 R.drawable.ic_star_grey_ccc_24dp
@@ -178,7 +169,7 @@ class NoteListWidgetFactory internal constructor(private val context: Context, i
     }
 
     override fun getItemId(position: Int): Long {
-        return dbNotes[position].id
+        return entries[position].id
     }
 
     override fun hasStableIds(): Boolean {
@@ -40,7 +40,9 @@ class SingleNoteWidget : AppWidgetProvider() {
         val appWidgetIds = awm.getAppWidgetIds(provider)
 
         if (intent?.action == ACTION_DATA_CHANGED) {
-            appWidgetIds.forEach { appWidgetId ->
+            // Only the given widgets display changed data
+            val changedAppWidgetIds = intent.getIntArrayExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS) ?: appWidgetIds
+            changedAppWidgetIds.forEach { appWidgetId ->
                 awm.notifyAppWidgetViewDataChanged(appWidgetId, R.id.single_note_widget_lv)
             }
         } else {
@@ -123,9 +125,10 @@ class SingleNoteWidget : AppWidgetProvider() {
         private const val ACTION_DATA_CHANGED = "it.niedermann.owncloud.notes.ACTION_WIDGET_DATA_CHANGED"
 
         @JvmStatic
-        fun updateSingleNoteWidgets(context: Context) {
+        fun updateSingleNoteWidgets(context: Context, appWidgetIds: IntArray) {
             val intent = Intent(context, SingleNoteWidget::class.java).apply {
                 action = ACTION_DATA_CHANGED
+                putExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS, appWidgetIds)
             }
             context.sendBroadcast(intent)
         }
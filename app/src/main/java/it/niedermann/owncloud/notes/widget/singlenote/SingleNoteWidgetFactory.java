@@ -16,9 +16,6 @@ import android.widget.RemoteViewsService;
 
 import androidx.annotation.Nullable;
 
-import com.owncloud.android.lib.common.utils.Log_OC;
-
-import it.niedermann.android.markdown.MarkdownUtil;
 import it.niedermann.owncloud.notes.R;
 import it.niedermann.owncloud.notes.edit.EditNoteActivity;
 import it.niedermann.owncloud.notes.persistence.NotesRepository;
@@ -32,6 +29,11 @@ public class SingleNoteWidgetFactory implements RemoteViewsService.RemoteViewsFa
     private final NotesRepository repo;
     @Nullable
     private Note note;
+    /**
+     * Rendered content of the {@link #note}, prepared in {@link #onDataSetChanged()}
+     */
+    @Nullable
+    private CharSequence rendered;
 
     private static final String TAG = SingleNoteWidget.class.getSimpleName();
 
@@ -53,6 +55,8 @@ public class SingleNoteWidgetFactory implements RemoteViewsService.RemoteViewsFa
             final long noteId = data.getNoteId();
             Log.v(TAG, "Fetch note with id " + noteId);
             note = repo.getNoteById(noteId);
+            // The widget gets refreshed once the content of a stale note has been fetched
+            rendered = note == null || note.isContentStale() ? null : SingleNoteWidgetRenderCache.getInstance().render(context, note);
 
             final var views = new RemoteViews(context.getPackageName(), R.layout.widget_single_note);
             if (note == null) {
@@ -60,6 +64,10 @@ public class SingleNoteWidgetFactory implements RemoteViewsService.RemoteViewsFa
                 views.setViewVisibility(R.id.widget_single_note_placeholder_tv, View.VISIBLE);
                 views.setTextViewText(R.id.widget_single_note_placeholder_tv,
                         context.getString(R.string.widget_single_note_note_not_found));
+            } else if (note.isContentStale()) {
+                views.setViewVisibility(R.id.widget_single_note_placeholder_tv, View.VISIBLE);
+                views.setTextViewText(R.id.widget_single_note_placeholder_tv,
+                        context.getString(R.string.widget_single_note_loading));
             } else {
                 views.setViewVisibility(R.id.widget_single_note_placeholder_tv, View.GONE);
             }
@@ -80,7 +88,7 @@ public class SingleNoteWidgetFactory implements RemoteViewsService.RemoteViewsFa
      */
     @Override
     public int getCount() {
-        return (note != null) ? 1 : 0;
+        return (rendered != null) ? 1 : 0;
     }
 
     /**
@@ -92,7 +100,7 @@ public class SingleNoteWidgetFactory implements RemoteViewsService.RemoteViewsFa
      */
     @Override
     public RemoteViews getViewAt(int position) {
-        if (note == null) {
+        if (note == null || rendered == null) {
             return null;
         }
 
@@ -103,17 +111,7 @@ public class SingleNoteWidgetFactory implements RemoteViewsService.RemoteViewsFa
         final var noteContent = new RemoteViews(context.getPackageName(), R.layout.widget_single_note_content);
         noteContent.setOnClickFillInIntent(R.id.single_note_content_tv, fillInIntent);
 
-        CharSequence rendered;
-        try {
-            rendered = MarkdownUtil.renderForRemoteView(context, note.getContent());
-            if (rendered == null) {
-                rendered = "";
-            }
-        } catch (Exception e) {
-            Log_OC.e(TAG, "Markdown rendering failed", e);
-            rendered = note.getContent();
-        }
-        noteContent.setTextViewText(R.id.single_note_content_tv, rendered);
+        noteContent.setTextViewText(R.id.single_note_content_tv, rendered == null ? "" : rendered);
         return noteContent;
     }
 
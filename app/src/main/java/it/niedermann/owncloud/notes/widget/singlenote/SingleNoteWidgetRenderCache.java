@@ -0,0 +1,121 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.widget.singlenote;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.owncloud.android.lib.common.utils.Log_OC;
+
+import it.niedermann.android.markdown.MarkdownUtil;
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+
+/**
+ * Keeps the rendered Markdown of the {@link Note}s displayed by {@link SingleNoteWidget}s, so refreshing a widget does not need to parse an unchanged {@link Note} again.
+ * An entry is reused as long as the content of the {@link Note} and the {@link Configuration} which affects the rendering (night mode, density and font scale) are the same.
+ */
+public class SingleNoteWidgetRenderCache {
+
+    private static final String TAG = SingleNoteWidgetRenderCache.class.getSimpleName();
+
+    /**
+     * Maximum number of cached characters, counting both the content and its rendered form
+     */
+    private static final int MAX_SIZE = 1024 * 1024;
+
+    private static SingleNoteWidgetRenderCache instance;
+
+    interface Renderer {
+        @Nullable
+        CharSequence render(@NonNull Context context, @NonNull String content) throws Exception;
+    }
+
+    @NonNull
+    private final Renderer renderer;
+    @NonNull
+    private final LruCache<Long, Entry> entries;
+
+    public static synchronized SingleNoteWidgetRenderCache getInstance() {
+        if (instance == null) {
+            instance = new SingleNoteWidgetRenderCache(MAX_SIZE, MarkdownUtil::renderForRemoteView);
+        }
+        return instance;
+    }
+
+    @VisibleForTesting
+    SingleNoteWidgetRenderCache(int maxSize, @NonNull Renderer renderer) {
+        this.renderer = renderer;
+        this.entries = new LruCache<>(maxSize) {
+            @Override
+            protected int sizeOf(Long key, Entry value) {
+                return Math.max(1, value.content.length() + value.rendered.length());
+            }
+        };
+    }
+
+    /**
+     * @return the rendered content of the given {@param note}, which is only rendered if it has not been cached yet
+     */
+    @NonNull
+    @WorkerThread
+    public CharSequence render(@NonNull Context context, @NonNull Note note) {
+        final String content = note.getContent() == null ? "" : note.getContent();
+        final var configuration = context.getResources().getConfiguration();
+        final var cached = entries.get(note.getId());
+        if (cached != null && cached.matches(content, configuration)) {
+            return cached.rendered;
+        }
+        CharSequence rendered;
+        try {
+            rendered = renderer.render(context, content);
+            if (rendered == null) {
+                rendered = "";
+            }
+        } catch (Exception e) {
+            Log_OC.e(TAG, "Markdown rendering failed", e);
+            // Not cached, so rendering will be tried again next time
+            return content;
+        }
+        entries.put(note.getId(), new Entry(content, configuration, rendered));
+        return rendered;
+    }
+
+    private static class Entry {
+        @NonNull
+        private final String content;
+        private final int contentHash;
+        private final int nightMode;
+        private final int densityDpi;
+        private final float fontScale;
+        @NonNull
+        private final CharSequence rendered;
+
+        private Entry(@NonNull String content, @NonNull Configuration configuration, @NonNull CharSequence rendered) {
+            this.content = content;
+            this.contentHash = content.hashCode();
+            this.nightMode = configuration.uiMode & Configuration.UI_MODE_NIGHT_MASK;
+            this.densityDpi = configuration.densityDpi;
+            this.fontScale = configuration.fontScale;
+            this.rendered = rendered;
+        }
+
+        private boolean matches(@NonNull String content, @NonNull Configuration configuration) {
+            // Comparing the hash first avoids comparing changed contents char by char
+            return contentHash == content.hashCode()
+                    && this.content.equals(content)
+                    && nightMode == (configuration.uiMode & Configuration.UI_MODE_NIGHT_MASK)
+                    && densityDpi == configuration.densityDpi
+                    && fontScale == configuration.fontScale;
+        }
+    }
+}
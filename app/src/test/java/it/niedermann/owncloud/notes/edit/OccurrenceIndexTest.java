@@ -0,0 +1,111 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.edit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class OccurrenceIndexTest {
+
+    @Test
+    public void findsCaseInsensitiveLiteralOccurrences() {
+        final var index = OccurrenceIndex.of("Foo foo f.o FOO", "foo");
+        assertArrayEquals(new int[]{0, 4, 12}, toArray(index));
+
+        assertEquals("Query must be matched literally", 1, OccurrenceIndex.of("Foo foo f.o FOO", "f.o").size());
+        assertEquals("Occurrences must not overlap", 2, OccurrenceIndex.of("aaaaa", "aa").size());
+        assertSame(OccurrenceIndex.EMPTY, OccurrenceIndex.of("Foo", ""));
+    }
+
+    @Test
+    public void countsOccurrencesInLongContents() {
+        for (int count = 0; count <= 15; ++count) {
+            final var sb = new StringBuilder("Mike Chester Wang");
+            for (int i = 0; i < count; ++i) {
+                sb.append(sb);
+            }
+            assertEquals((int) Math.pow(2, count), OccurrenceIndex.of(sb, "Chester").size());
+        }
+    }
+
+    @Test
+    public void emptyContentOrQueryHasNoOccurrences() {
+        assertEquals(0, OccurrenceIndex.of("", "Hi").size());
+        assertEquals(0, OccurrenceIndex.of("Hi my name is Mike Chester Wang", "").size());
+    }
+
+    @Test
+    public void appliesEdits() {
+        final var content = new StringBuilder("foo bar foo bar foo");
+        var index = OccurrenceIndex.of(content, "foo");
+
+        content.insert(4, "foo ");
+        index = index.applyEdit(content, 4, 0, 4);
+        assertArrayEquals(new int[]{0, 4, 12, 20}, toArray(index));
+
+        content.delete(0, 2);
+        index = index.applyEdit(content, 0, 2, 0);
+        assertArrayEquals(new int[]{2, 10, 18}, toArray(index));
+
+        assertSame(OccurrenceIndex.EMPTY, OccurrenceIndex.EMPTY.applyEdit(content, 0, 0, 0));
+    }
+
+    @Test
+    public void appliesEditsWhichShiftOverlappingOccurrencesBehindThem() {
+        final var content = new StringBuilder("aaa");
+        var index = OccurrenceIndex.of(content, "aa");
+
+        content.insert(0, "a");
+        index = index.applyEdit(content, 0, 0, 1);
+        assertArrayEquals(new int[]{0, 2}, toArray(index));
+    }
+
+    @Test
+    public void appliedEditsEqualNewIndex() {
+        final var random = new Random(42);
+        final String[] queries = {"a", "aa", "ab", "aba", "AAA"};
+        for (int run = 0; run < 10_000; run++) {
+            final var content = randomText(random, random.nextInt(30));
+            final var query = queries[random.nextInt(queries.length)];
+            final var index = OccurrenceIndex.of(content, query);
+
+            final int start = random.nextInt(content.length() + 1);
+            final int before = random.nextInt(content.length() - start + 1);
+            final var replacement = randomText(random, random.nextInt(5));
+            content.replace(start, start + before, replacement.toString());
+
+            assertArrayEquals(content + " / " + query,
+                    toArray(OccurrenceIndex.of(content, query)),
+                    toArray(index.applyEdit(content, start, before, replacement.length())));
+        }
+    }
+
+    @NonNull
+    private static StringBuilder randomText(@NonNull Random random, int length) {
+        final var text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append("aAb".charAt(random.nextInt(3)));
+        }
+        return text;
+    }
+
+    @NonNull
+    private static int[] toArray(@NonNull OccurrenceIndex index) {
+        final var offsets = new int[index.size()];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = index.get(i);
+        }
+        return offsets;
+    }
+}
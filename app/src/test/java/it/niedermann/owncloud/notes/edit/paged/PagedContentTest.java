@@ -0,0 +1,81 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.edit.paged;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PagedContentTest {
+
+    @Test
+    public void pagesEndAfterLineBreaks() {
+        final var content = "Foo\nBar\nBaz\n";
+        final var paged = PagedContent.of(content, 9);
+
+        assertEquals(2, paged.getPageCount());
+        assertEquals("Foo\nBar\n", paged.getPage(0));
+        assertEquals("Baz\n", paged.getPage(1));
+        assertSame("Initial snapshot must reuse the original content", content, paged.snapshot().get());
+    }
+
+    @Test
+    public void longLinesAreSplit() {
+        final var content = "x".repeat(25);
+        final var paged = PagedContent.of(content, 10);
+
+        assertEquals(3, paged.getPageCount());
+        assertEquals(10, paged.getPage(0).length());
+        assertEquals(5, paged.getPage(2).length());
+    }
+
+    @Test
+    public void surrogatePairsAreNotSplit() {
+        final var content = "xxxx" + "\uD83D\uDE00" + "xxxx";
+        final var paged = PagedContent.of(content, 5);
+
+        assertEquals("xxxx", paged.getPage(0));
+        assertEquals(content, paged.snapshot().get());
+    }
+
+    @Test
+    public void emptyContentHasOnePage() {
+        final var paged = PagedContent.of("", 10);
+
+        assertEquals(1, paged.getPageCount());
+        assertEquals("", paged.snapshot().get());
+    }
+
+    @Test
+    public void dirtyRangeIsTracked() {
+        final var paged = PagedContent.of("a\nb\nc\nd\n", 2);
+        assertEquals(4, paged.getPageCount());
+        assertFalse(paged.isDirty());
+
+        paged.setPage(2, "C\n");
+        paged.setPage(1, "b\n");
+        assertEquals("Unchanged pages must not be marked as dirty", 2, paged.getDirtyFrom());
+        paged.setPage(0, "A\n");
+        assertEquals(0, paged.getDirtyFrom());
+        assertEquals(2, paged.getDirtyTo());
+
+        final var snapshot = paged.snapshot();
+        assertFalse("Taking a snapshot must reset the dirty range", paged.isDirty());
+        assertEquals(-1, paged.getDirtyFrom());
+        assertEquals(8, snapshot.length());
+        assertEquals("A\nb\nC\nd\n", snapshot.get());
+        assertSame("Unchanged content must reuse the last snapshot", snapshot, paged.snapshot());
+
+        paged.setPage(3, "D\n");
+        assertTrue(paged.isDirty());
+        assertEquals("Older snapshots must not change", "A\nb\nC\nd\n", snapshot.get());
+        assertEquals("A\nb\nC\nD\n", paged.snapshot().get());
+    }
+}
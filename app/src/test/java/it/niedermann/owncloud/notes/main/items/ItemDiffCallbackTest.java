@@ -0,0 +1,78 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.main.items;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static it.niedermann.owncloud.notes.shared.model.DBStatus.LOCAL_EDITED;
+import static it.niedermann.owncloud.notes.shared.model.DBStatus.VOID;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Calendar;
+
+import it.niedermann.owncloud.notes.main.items.section.SectionItem;
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.shared.model.SearchHighlights;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 36)
+public class ItemDiffCallbackTest {
+
+    private final ItemDiffCallback callback = new ItemDiffCallback();
+    private final Calendar modified = Calendar.getInstance();
+
+    @Test
+    public void areItemsTheSame() {
+        assertTrue(callback.areItemsTheSame(new SectionItem("Today"), new SectionItem("Today")));
+        assertFalse(callback.areItemsTheSame(new SectionItem("Today"), new SectionItem("Yesterday")));
+
+        assertTrue(callback.areItemsTheSame(note(1, "Foo", "Bar"), note(1, "Baz", "Qux")));
+        assertFalse(callback.areItemsTheSame(note(1, "Foo", "Bar"), note(2, "Foo", "Bar")));
+
+        assertFalse(callback.areItemsTheSame(new SectionItem("Foo"), note(1, "Foo", "Bar")));
+    }
+
+    @Test
+    public void areContentsTheSame() {
+        assertTrue(callback.areContentsTheSame(new SectionItem("Today"), new SectionItem("Today")));
+
+        final var note = note(1, "Foo", "Bar");
+        assertTrue(callback.areContentsTheSame(note, note(1, "Foo", "Bar")));
+
+        final var otherContent = note(1, "Foo", "Bar");
+        otherContent.setContent("Changed but not displayed");
+        otherContent.setScrollY(100);
+        assertTrue(callback.areContentsTheSame(note, otherContent));
+
+        assertFalse(callback.areContentsTheSame(note, note(1, "Changed", "Bar")));
+        assertFalse(callback.areContentsTheSame(note, note(1, "Foo", "Changed")));
+
+        final var otherStatus = note(1, "Foo", "Bar");
+        otherStatus.setStatus(LOCAL_EDITED);
+        assertFalse(callback.areContentsTheSame(note, otherStatus));
+
+        final var otherFavorite = note(1, "Foo", "Bar");
+        otherFavorite.setFavorite(true);
+        assertFalse(callback.areContentsTheSame(note, otherFavorite));
+
+        final var stale = note(1, "Foo", "Bar");
+        stale.setContentStale(true);
+        assertFalse("Fetched content must replace the loading excerpt", callback.areContentsTheSame(stale, note));
+
+        final var otherHighlights = note(1, "Foo", "Bar");
+        otherHighlights.setSearchHighlights(SearchHighlights.of(otherHighlights, "Fo"));
+        assertFalse("Changed search term must rebind the item", callback.areContentsTheSame(note, otherHighlights));
+    }
+
+    private Note note(long id, String title, String excerpt) {
+        return new Note(id, 1L, modified, title, "", "", false, "1", VOID, 0, excerpt, 0);
+    }
+}
@@ -7,6 +7,8 @@
 package it.niedermann.owncloud.notes.main.slots;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 import androidx.test.core.app.ApplicationProvider;
 
@@ -51,4 +53,34 @@ public class SlotterUtilTest {
 
         final var items = SlotterUtil.fillListByInitials(ApplicationProvider.getApplicationContext(), notes);
     }
+
+    @Test
+    public void getSectionByCategory_shouldMatchFillListByCategory() {
+        final var notes = List.of(
+                new Note(1L, Calendar.getInstance(), "Foo", "", "Work", false, ""),
+                new Note(2L, Calendar.getInstance(), "Bar", "", "Work/Project", false, ""),
+                new Note(3L, Calendar.getInstance(), "Baz", "", "Work/Project", false, "")
+        );
+
+        assertNull(SlotterUtil.getSectionByCategory(null, notes.get(0), "Work"));
+        assertEquals("Work", SlotterUtil.getSectionByCategory(null, notes.get(0), "Other").getTitle());
+        assertNotNull(SlotterUtil.getSectionByCategory(notes.get(0), notes.get(1), "Work"));
+        assertNull(SlotterUtil.getSectionByCategory(notes.get(1), notes.get(2), "Work"));
+        assertNull(SlotterUtil.getSectionByCategory(notes.get(2), null, "Work"));
+
+        final var items = SlotterUtil.fillListByCategory(notes, "Work");
+        assertEquals(4, items.size());
+        assertEquals(SectionItem.class, items.get(1).getClass());
+    }
+
+    @Test
+    public void getSectionByInitials_shouldNotAddSectionBeforeFirstNote() {
+        final var context = ApplicationProvider.getApplicationContext();
+        final var first = new Note(1L, Calendar.getInstance(), "Aaa", "", "", false, "");
+        final var second = new Note(2L, Calendar.getInstance(), "Bbb", "", "", false, "");
+
+        assertNull(SlotterUtil.getSectionByInitials(context, null, first));
+        assertEquals("B", SlotterUtil.getSectionByInitials(context, first, second).getTitle());
+        assertNull(SlotterUtil.getSectionByInitials(context, second, null));
+    }
 }
@@ -12,6 +12,7 @@ import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
 import androidx.test.core.app.ApplicationProvider;
 
 import com.nextcloud.android.sso.api.ParsedResponse;
+import com.nextcloud.android.sso.exceptions.NextcloudHttpRequestFailedException;
 import com.nextcloud.android.sso.model.SingleSignOnAccount;
 
 import org.junit.Before;
@@ -20,8 +21,10 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowSystemClock;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Map;
 
 import io.reactivex.Observable;
@@ -32,11 +35,15 @@ import it.niedermann.owncloud.notes.shared.model.OcsUser;
 import retrofit2.Call;
 import retrofit2.Response;
 
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(RobolectricTestRunner.class)
@@ -81,6 +88,47 @@ public class CapabilitiesClientTest {
         assertThrows("Should unwrap exception cause if possible", NetworkErrorException.class, () -> CapabilitiesClient.getCapabilities(ApplicationProvider.getApplicationContext(), ssoAccount, null, apiProvider));
     }
 
+    @Test
+    public void testGetCapabilitiesIfModified() throws Throwable {
+        final var context = ApplicationProvider.getApplicationContext();
+        final var cachedAccount = new SingleSignOnAccount("cached@example.com", "cached", "", "https://example.com", "");
+        //noinspection unchecked
+        final ParsedResponse<OcsResponse<Capabilities>> responseMock = mock(ParsedResponse.class);
+        final OcsResponse<Capabilities> mockOcs = new OcsResponse<>();
+        mockOcs.ocs = new OcsResponse.OcsWrapper<>();
+        mockOcs.ocs.data = new Capabilities();
+        when(responseMock.getResponse()).thenReturn(mockOcs);
+        when(responseMock.getHeaders()).thenReturn(Map.of("ETag", "5678"));
+        when(ocsAPI.getCapabilities(any())).thenReturn(Observable.just(responseMock));
+
+        assertNotNull(CapabilitiesClient.getCapabilitiesIfModified(context, cachedAccount, null, apiProvider));
+        assertNull("Capabilities with the known ETag should not be returned", CapabilitiesClient.getCapabilitiesIfModified(context, cachedAccount, "5678", apiProvider));
+        assertNotNull("Capabilities with a different ETag should be returned", CapabilitiesClient.getCapabilitiesIfModified(context, cachedAccount, "1234", apiProvider));
+        verify(ocsAPI, times(1)).getCapabilities(any());
+
+        final var otherCapabilities = new Capabilities();
+        otherCapabilities.setETag("9012");
+        NotesRepository.getInstance(context).insertCapabilities(otherCapabilities);
+        assertNull(CapabilitiesClient.getCapabilitiesIfModified(context, cachedAccount, "5678", apiProvider));
+        assertEquals("Cached capabilities should be stored again after the capabilities of another account", "5678", NotesRepository.getInstance(context).getCapabilities().getETag());
+
+        ShadowSystemClock.advanceBy(Duration.ofMillis(CapabilitiesClient.CACHE_TTL_MILLIS));
+        final var notModified = mock(NextcloudHttpRequestFailedException.class);
+        when(notModified.getStatusCode()).thenReturn(HTTP_NOT_MODIFIED);
+        when(ocsAPI.getCapabilities(any())).thenReturn(Observable.error(new RuntimeException(notModified)));
+
+        NotesRepository.getInstance(context).insertCapabilities(otherCapabilities);
+        assertNull(CapabilitiesClient.getCapabilitiesIfModified(context, cachedAccount, "5678", apiProvider));
+        verify(ocsAPI).getCapabilities("5678");
+        assertEquals("Not modified capabilities should be stored again", "5678", NotesRepository.getInstance(context).getCapabilities().getETag());
+        assertNotNull("Not modified capabilities should still be returned from the cache", CapabilitiesClient.getCapabilitiesIfModified(context, cachedAccount, "1234", apiProvider));
+
+        CapabilitiesClient.invalidateCache(cachedAccount.name);
+        assertNull("Stored capabilities should be used if nothing is cached and the server did not modify them", CapabilitiesClient.getCapabilitiesIfModified(context, cachedAccount, "5678", apiProvider));
+        verify(ocsAPI, times(2)).getCapabilities("5678");
+        verify(ocsAPI, times(1)).getCapabilities(null);
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void testGetDisplayName() throws IOException {
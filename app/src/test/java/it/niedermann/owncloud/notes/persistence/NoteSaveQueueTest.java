@@ -0,0 +1,187 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import it.niedermann.owncloud.notes.persistence.entity.Account;
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.shared.model.ISyncCallback;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 36)
+public class NoteSaveQueueTest {
+
+    private final Queue<Runnable> writerThread = new ArrayDeque<>();
+    private final List<String> writtenContents = new ArrayList<>();
+    private final List<String> writtenTitles = new ArrayList<>();
+    private final List<Integer> writtenScrollYs = new ArrayList<>();
+    private final List<Note> savedNotes = new ArrayList<>();
+    private final Account account = new Account();
+    private final Note note = new Note(1L, null, "Title", "Foo", "", false, null);
+
+    private NoteSaveQueue queue;
+    @Nullable
+    private Runnable whileWriting;
+
+    @Before
+    public void setup() {
+        note.setId(1);
+        queue = new NoteSaveQueue(writerThread::add, MoreExecutors.directExecutor(), new NoteSaveQueue.Writer() {
+            @Override
+            public Note updateNoteAndSync(@NonNull Account account, @NonNull Note note, @NonNull String content, @Nullable String title, @Nullable ISyncCallback callback) {
+                writtenContents.add(content);
+                writtenTitles.add(title);
+                if (whileWriting != null) {
+                    final var runnable = whileWriting;
+                    whileWriting = null;
+                    runnable.run();
+                }
+                if (callback != null) {
+                    callback.onScheduled();
+                }
+                return new Note(note.getRemoteId(), null, title == null ? note.getTitle() : title, content, "", false, null);
+            }
+
+            @Override
+            public void updateScrollY(long noteId, int scrollY) {
+                writtenScrollYs.add(scrollY);
+            }
+        });
+        queue.setSaved(note);
+        runWriterThread();
+    }
+
+    @Test
+    public void unchangedContentIsNotWritten() {
+        final var callback = new CountingCallback();
+        queue.save(account, note, "Foo", null, callback, savedNotes::add);
+        runWriterThread();
+
+        assertTrue(writtenContents.isEmpty());
+        assertTrue(writtenScrollYs.isEmpty());
+        assertEquals(1, callback.finished);
+        assertEquals(List.of(note), savedNotes);
+    }
+
+    @Test
+    public void onlyScrollStateIsWrittenIfContentDidNotChange() {
+        note.setScrollY(42);
+        queue.save(account, note, "Foo", null, null, savedNotes::add);
+        runWriterThread();
+
+        assertTrue(writtenContents.isEmpty());
+        assertEquals(List.of(42), writtenScrollYs);
+
+        queue.save(account, note, "Foo", null, null, savedNotes::add);
+        runWriterThread();
+        assertEquals("Unchanged scroll state must not be written again", List.of(42), writtenScrollYs);
+    }
+
+    @Test
+    public void snapshotsAreMergedWhileWriting() {
+        final var first = new CountingCallback();
+        final var second = new CountingCallback();
+        queue.save(account, note, "Foo Bar", null, first, savedNotes::add);
+        queue.save(account, note, "Foo Bar Baz", null, second, savedNotes::add);
+        assertEquals("Only one drain must be scheduled", 1, writerThread.size());
+        runWriterThread();
+
+        assertEquals(List.of("Foo Bar Baz"), writtenContents);
+        assertEquals(1, first.scheduled);
+        assertEquals(1, second.scheduled);
+        assertEquals(1, savedNotes.size());
+        assertEquals("Foo Bar Baz", savedNotes.get(0).getContent());
+
+        queue.save(account, note, "Foo Bar Baz", null, null, savedNotes::add);
+        runWriterThread();
+        assertEquals("Written content must be remembered", 1, writtenContents.size());
+    }
+
+    @Test
+    public void titleIsKeptWhenMerged() {
+        queue.save(account, note, "Foo", "New title", null, savedNotes::add);
+        queue.save(account, note, "Foo", null, null, savedNotes::add);
+        runWriterThread();
+
+        assertEquals(List.of("Foo"), writtenContents);
+        assertEquals("New title", writtenTitles.get(0));
+        assertEquals("New title", savedNotes.get(0).getTitle());
+    }
+
+    @Test
+    public void onlyLatestSnapshotIsReported() {
+        whileWriting = () -> queue.save(account, note, "Foo Bar Baz", null, null, savedNotes::add);
+        queue.save(account, note, "Foo Bar", null, null, savedNotes::add);
+        runWriterThread();
+
+        assertEquals(List.of("Foo Bar", "Foo Bar Baz"), writtenContents);
+        assertEquals(1, savedNotes.size());
+        assertEquals("Foo Bar Baz", savedNotes.get(0).getContent());
+    }
+
+    @Test
+    public void mergedSuppliersAreNotResolved() {
+        queue.save(account, note, () -> {
+            throw new AssertionError("Merged snapshot must not be resolved");
+        }, null, null, savedNotes::add);
+        queue.save(account, note, () -> "Foo Bar", null, null, savedNotes::add);
+        runWriterThread();
+
+        assertEquals(List.of("Foo Bar"), writtenContents);
+    }
+
+    @Test
+    public void afterPendingSavesRunsAfterWriting() {
+        final List<String> order = new ArrayList<>();
+        queue.save(account, note, "Foo Bar", null, null, saved -> order.add("saved"));
+        queue.afterPendingSaves(() -> order.add("deleted"));
+        runWriterThread();
+
+        assertEquals(List.of("saved", "deleted"), order);
+        assertEquals(1, writtenContents.size());
+    }
+
+    private void runWriterThread() {
+        Runnable runnable;
+        while ((runnable = writerThread.poll()) != null) {
+            runnable.run();
+        }
+    }
+
+    private static class CountingCallback implements ISyncCallback {
+        private int finished = 0;
+        private int scheduled = 0;
+
+        @Override
+        public void onFinish() {
+            finished++;
+        }
+
+        @Override
+        public void onScheduled() {
+            scheduled++;
+        }
+    }
+}
@@ -6,11 +6,13 @@
  */
 package it.niedermann.owncloud.notes.persistence;
 
+import android.database.SQLException;
 import android.database.sqlite.SQLiteConstraintException;
 
 import androidx.annotation.NonNull;
 import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
 import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.test.core.app.ApplicationProvider;
 
 import org.junit.After;
@@ -22,13 +24,23 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
 import java.util.Calendar;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
+import it.niedermann.owncloud.notes.persistence.dao.NoteDao;
+import it.niedermann.owncloud.notes.persistence.dao.WidgetNotesListDao;
 import it.niedermann.owncloud.notes.persistence.entity.Account;
+import it.niedermann.owncloud.notes.persistence.entity.CategoryOptions;
 import it.niedermann.owncloud.notes.persistence.entity.CategoryWithNotesCount;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.persistence.entity.NotesListWidgetEntry;
+import it.niedermann.owncloud.notes.persistence.migration.Migration_33_34;
 import it.niedermann.owncloud.notes.shared.model.Capabilities;
+import it.niedermann.owncloud.notes.shared.model.CategorySortingMethod;
 import it.niedermann.owncloud.notes.shared.model.DBStatus;
+import it.niedermann.owncloud.notes.shared.model.NavigationCounts;
 
 import static it.niedermann.owncloud.notes.shared.model.DBStatus.LOCAL_DELETED;
 import static it.niedermann.owncloud.notes.shared.model.DBStatus.LOCAL_EDITED;
@@ -36,8 +48,10 @@ import static it.niedermann.owncloud.notes.shared.model.DBStatus.VOID;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 @RunWith(RobolectricTestRunner.class)
 @Config(sdk = 36)
@@ -174,6 +188,100 @@ public class NotesDaoTest {
         assertEquals(Integer.valueOf(5), NotesTestingUtil.getOrAwaitValue(db.getNoteDao().count$(secondAccount.getId())));
     }
 
+    @Test
+    public void getNavigationCounts() throws InterruptedException {
+        final var secondAccount = setupSecondAccountAndTestNotes();
+        db.getNoteDao().addNote(new Note(100, 100L, Calendar.getInstance(), "T", "C", "", true, null, VOID, account.getId(), "", 0));
+
+        final var counts = new NavigationCounts(NotesTestingUtil.getOrAwaitValue(db.getNoteDao().getCategoriesWithFavorites$(account.getId())));
+        assertEquals(8, counts.getTotal());
+        assertEquals(2, counts.getFavorites());
+        assertEquals(1, counts.getUncategorized());
+        assertEquals(5, counts.getCategories().size());
+        assertTrue(counts.getCategories().stream().anyMatch(cat -> "Movies".equals(cat.getCategory()) && Integer.valueOf(3).equals(cat.getTotalNotes())));
+
+        final var secondCounts = new NavigationCounts(NotesTestingUtil.getOrAwaitValue(db.getNoteDao().getCategoriesWithFavorites$(secondAccount.getId())));
+        assertEquals(Integer.valueOf(secondCounts.getTotal()), db.getNoteDao().count(secondAccount.getId()));
+        assertEquals(Integer.valueOf(secondCounts.getFavorites()), db.getNoteDao().countFavorites(secondAccount.getId()));
+        assertEquals(0, secondCounts.getUncategorized());
+    }
+
+    @Test
+    public void bulkOperations() {
+        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "Movies", false, null, VOID, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(2, 2L, Calendar.getInstance(), "T", "C", "Music", true, null, VOID, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(3, 3L, Calendar.getInstance(), "T", "C", "Movies", false, null, VOID, account.getId(), "", 0));
+
+        db.getNoteDao().moveToCategory(List.of(1L, 2L), "Music");
+        assertEquals("Music", db.getNoteDao().getNoteById(1).getCategory());
+        assertEquals(LOCAL_EDITED, db.getNoteDao().getNoteById(1).getStatus());
+        assertEquals("Notes already in the category must stay untouched", VOID, db.getNoteDao().getNoteById(2).getStatus());
+        assertEquals("Movies", db.getNoteDao().getNoteById(3).getCategory());
+
+        assertFalse(db.getNoteDao().areFavorites(List.of(2L, 3L)));
+        db.getNoteDao().setFavorite(List.of(2L, 3L), true);
+        assertTrue(db.getNoteDao().areFavorites(List.of(2L, 3L)));
+        assertEquals(VOID, db.getNoteDao().getNoteById(2).getStatus());
+        assertTrue(db.getNoteDao().getNoteById(3).getFavorite());
+        assertEquals(LOCAL_EDITED, db.getNoteDao().getNoteById(3).getStatus());
+
+        final var deleted = List.of(db.getNoteDao().getNoteById(1), db.getNoteDao().getNoteById(2));
+        db.getNoteDao().markDeleted(List.of(1L, 2L));
+        assertEquals(LOCAL_DELETED, db.getNoteDao().getNoteById(1).getStatus());
+        assertEquals(LOCAL_DELETED, db.getNoteDao().getNoteById(2).getStatus());
+        assertEquals(Integer.valueOf(1), db.getNoteDao().count(account.getId()));
+
+        // Simulate a synchronization which already removed the second note
+        db.getNoteDao().deleteByNoteId(2, LOCAL_DELETED);
+        final var restoredIds = db.getNoteDao().restoreDeleted(deleted);
+        assertEquals(2, restoredIds.size());
+        assertEquals(Long.valueOf(1), restoredIds.get(0));
+        assertEquals(LOCAL_EDITED, db.getNoteDao().getNoteById(1).getStatus());
+        final var recreated = db.getNoteDao().getNoteById(restoredIds.get(1));
+        assertNull(recreated.getRemoteId());
+        assertEquals(LOCAL_EDITED, recreated.getStatus());
+        assertEquals("Music", recreated.getCategory());
+        assertEquals(Integer.valueOf(3), db.getNoteDao().count(account.getId()));
+    }
+
+    @Test
+    public void getNoteListWidgetEntries() {
+        final var notes = new Note[]{
+                new Note(1, 1L, modifiedAt(1), "A", "C", "Movies", false, null, VOID, account.getId(), "", 0),
+                new Note(2, 2L, modifiedAt(2), "B", "C", "Movies/Comedy", true, null, VOID, account.getId(), "", 0),
+                new Note(3, 3L, modifiedAt(3), "C", "C", "", false, null, LOCAL_EDITED, account.getId(), "", 0),
+                new Note(4, 4L, modifiedAt(4), "D", "C", "Music", true, null, VOID, account.getId(), "", 0),
+                new Note(5, 5L, modifiedAt(5), "E", "C", "Movies", false, null, LOCAL_DELETED, account.getId(), "", 0),
+                new Note(6, 6L, modifiedAt(6), "F", "C", "", false, null, VOID, account.getId(), "", 0)
+        };
+        for (final var note : notes) {
+            db.getNoteDao().addNote(note);
+        }
+        final var dao = db.getWidgetNotesListDao();
+
+        assertEquals(List.of(4L, 2L, 6L, 3L, 1L), getIds(dao.getRecentEntries(account.getId(), 100)));
+        assertEquals(List.of(4L, 2L), getIds(dao.getRecentEntries(account.getId(), 2)));
+        assertEquals(List.of(4L, 2L), getIds(dao.getFavoriteEntries(account.getId(), 100)));
+        assertEquals(List.of(6L), getIds(dao.getUncategorizedEntries(account.getId(), 1)));
+        assertEquals(List.of(1L, 2L), getIds(dao.getCategoryEntries(account.getId(), "Movies", 100)));
+
+        final var entry = dao.getRecentEntries(account.getId(), 1).get(0);
+        assertEquals("D", entry.getTitle());
+        assertEquals("Music", entry.getCategory());
+        assertTrue(entry.getFavorite());
+        assertEquals(notes[3].getModified().getTimeInMillis(), entry.getModified().getTimeInMillis());
+    }
+
+    private static Calendar modifiedAt(long seconds) {
+        final var modified = Calendar.getInstance();
+        modified.setTimeInMillis(seconds * 1000);
+        return modified;
+    }
+
+    private static List<Long> getIds(List<NotesListWidgetEntry> entries) {
+        return entries.stream().map(NotesListWidgetEntry::getId).collect(Collectors.toList());
+    }
+
     @Test
     public void getLocalModifiedNotes() {
         final var secondAccount = setupSecondAccountAndTestNotes();
@@ -257,6 +365,37 @@ public class NotesDaoTest {
         assertEquals(0, db.getNoteDao().updateIfNotModifiedLocallyDuringSync(localNote.getId(), targetNote.getModified().getTimeInMillis(), targetNote.getTitle(), targetNote.getFavorite(), targetNote.getETag(), targetNote.getContent(), targetNote.getExcerpt(), localNote.getContent(), localNote.getCategory(), localNote.getFavorite()));
     }
 
+    @Test
+    public void updateStatusIfUnchangedSinceLastSync() {
+        final var note = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, LOCAL_EDITED, account.getId(), "", 0);
+        db.getNoteDao().addNote(note);
+
+        assertEquals("Unknown synchronized state", 0, db.getNoteDao().updateStatusIfUnchangedSinceLastSync(note.getId(), "hash", note.getTitle(), note.getContent(), note.getCategory(), note.getFavorite()));
+
+        db.getNoteDao().updateSyncedHash(note.getId(), "hash");
+        assertEquals("Modified during synchronization", 0, db.getNoteDao().updateStatusIfUnchangedSinceLastSync(note.getId(), "hash", note.getTitle(), "My-Old-Content", note.getCategory(), note.getFavorite()));
+        assertEquals(LOCAL_EDITED, db.getNoteDao().getNoteById(note.getId()).getStatus());
+
+        assertEquals(1, db.getNoteDao().updateStatusIfUnchangedSinceLastSync(note.getId(), "hash", note.getTitle(), note.getContent(), note.getCategory(), note.getFavorite()));
+        assertEquals(VOID, db.getNoteDao().getNoteById(note.getId()).getStatus());
+    }
+
+    @Test
+    public void applyRemoteChangesKeepsSyncedHashOfLocallyModifiedNotes() {
+        final var localNote = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, null, LOCAL_EDITED, account.getId(), "", 0);
+        localNote.setSyncedHash("local");
+        db.getNoteDao().addNote(localNote);
+        final var remoteNote = new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Remote-Content", "", false, null, VOID, account.getId(), "", 0);
+        remoteNote.setSyncedHash("remote");
+
+        db.getNoteDao().applyRemoteChanges(List.of(), List.of(remoteNote), List.of());
+        assertEquals("local", db.getNoteDao().getNoteById(1).getSyncedHash());
+
+        db.getNoteDao().updateStatus(1, VOID);
+        db.getNoteDao().applyRemoteChanges(List.of(), List.of(remoteNote), List.of());
+        assertEquals("remote", db.getNoteDao().getNoteById(1).getSyncedHash());
+    }
+
     @Test
     public void updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged_Nothing() {
         final var localNote = db.getNoteDao().getNoteById(db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "My-Title", "My-Content", "", false, "1", VOID, account.getId(), "", 0)));
@@ -341,6 +480,94 @@ public class NotesDaoTest {
                 localNote.getId(), localNote.getModified().getTimeInMillis(), localNote.getTitle(), localNote.getFavorite(), localNote.getCategory(), localNote.getETag(), localNote.getContent() + " ", localNote.getExcerpt()));
     }
 
+    @Test
+    public void applyRemoteChanges() {
+        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "", false, "1", VOID, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(2, 2L, Calendar.getInstance(), "T", "C", "", false, "1", VOID, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(3, 3L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_EDITED, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(4, 4L, Calendar.getInstance(), "T", "C", "", false, "1", LOCAL_EDITED, account.getId(), "", 0));
+
+        db.getNoteDao().applyRemoteChanges(
+                List.of(new Note(0, 5L, Calendar.getInstance(), "New", "C", "", false, "1", VOID, account.getId(), "", 0)),
+                List.of(new Note(1, 1L, Calendar.getInstance(), "Updated", "C", "", false, "2", VOID, account.getId(), "", 0),
+                        new Note(3, 3L, Calendar.getInstance(), "Updated", "C", "", false, "2", VOID, account.getId(), "", 0)),
+                List.of(2L, 4L));
+
+        assertEquals("New", db.getNoteDao().getNoteByRemoteId(5).getTitle());
+        assertEquals("Updated", db.getNoteDao().getNoteById(1).getTitle());
+        assertEquals("Local changes must not be overridden", "T", db.getNoteDao().getNoteById(3).getTitle());
+        assertNull(db.getNoteDao().getNoteById(2));
+        assertNotNull("Local changes must not be deleted", db.getNoteDao().getNoteById(4));
+    }
+
+    @Test
+    public void staleContent() {
+        final var stale = new Note(1, 1L, Calendar.getInstance(), "T", "", "", false, "1", VOID, account.getId(), "", 0);
+        stale.setContentStale(true);
+        db.getNoteDao().addNote(stale);
+        final var pulledLater = new Note(2, 2L, Calendar.getInstance(), "T", "", "", false, "1", VOID, account.getId(), "", 0);
+        pulledLater.setContentStale(true);
+        db.getNoteDao().addNote(pulledLater);
+        db.getNoteDao().addNote(new Note(3, 3L, Calendar.getInstance(), "T", "C", "", false, "1", VOID, account.getId(), "", 0));
+
+        assertEquals(List.of(1L, 2L), db.getNoteDao().getNoteIdsWithStaleContent(account.getId()).stream().sorted().toList());
+        assertTrue(db.getNoteDao().isContentStale(1));
+        assertFalse(db.getNoteDao().isContentStale(3));
+        assertEquals("List items must know whether the content is stale", List.of(true, true, false), db.getNoteDao().searchRecentByModified(account.getId(), null).stream()
+                .sorted(Comparator.comparingLong(Note::getId))
+                .map(Note::isContentStale)
+                .toList());
+
+        assertEquals(1, db.getNoteDao().updateStaleContent(1, "Fetched", "Fetched"));
+        assertEquals("Fetched", db.getNoteDao().getNoteById(1).getContent());
+        assertFalse(db.getNoteDao().getNoteById(1).isContentStale());
+        assertEquals("Content must only be set once", 0, db.getNoteDao().updateStaleContent(1, "Other", "Other"));
+
+        db.getNoteDao().updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(2, Calendar.getInstance().getTimeInMillis(), "T", false, "", "2", "Pulled", "Pulled");
+        assertFalse("A pull delivers the whole content", db.getNoteDao().getNoteById(2).isContentStale());
+        assertEquals(0, db.getNoteDao().updateStaleContent(2, "Outdated", "Outdated"));
+        assertEquals("Pulled", db.getNoteDao().getNoteById(2).getContent());
+
+        assertTrue(db.getNoteDao().getNoteIdsWithStaleContent(account.getId()).isEmpty());
+    }
+
+    @Test
+    public void staleContent_fullText() {
+        final var stale = new Note(1, 1L, Calendar.getInstance(), "Groceries", "", "", false, "1", VOID, account.getId(), "", 0);
+        stale.setContentStale(true);
+        db.getNoteDao().addNote(stale);
+
+        assertEquals("The title must be searchable before the content has been fetched", 1, db.getNoteDao().searchRecentByModified(account.getId(), "\"groc*\"").size());
+        assertEquals(0, db.getNoteDao().searchRecentByModified(account.getId(), "\"brea*\"").size());
+
+        db.getNoteDao().updateStaleContent(1, "Bread", "Bread");
+        assertEquals("The fetched content must be indexed", 1, db.getNoteDao().searchRecentByModified(account.getId(), "\"brea*\"").size());
+        assertEquals(1, db.getNoteDao().searchRecentByModified(account.getId(), "\"groc*\"").size());
+    }
+
+    @Test
+    public void cleanupCategoryOptions() {
+        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "Movies", false, "1", VOID, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(2, 2L, Calendar.getInstance(), "T", "C", "Music", false, "1", VOID, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(3, 3L, Calendar.getInstance(), "T", "C", "Music", false, "1", VOID, account.getId(), "", 0));
+        final var categoryOptions = new CategoryOptions();
+        categoryOptions.setAccountId(account.getId());
+        for (final var category : List.of("Movies", "Music")) {
+            categoryOptions.setCategory(category);
+            categoryOptions.setSortingMethod(CategorySortingMethod.SORT_LEXICOGRAPHICAL_ASC);
+            db.getCategoryOptionsDao().addCategoryOptions(categoryOptions);
+        }
+
+        db.getNoteDao().updateCategory(1, "Books");
+        assertEquals(0, db.getCategoryOptionsDao().modifyCategoryOrder(account.getId(), "Movies", CategorySortingMethod.SORT_MODIFIED_DESC));
+
+        db.getNoteDao().deleteByNoteId(2, VOID);
+        assertEquals("Category is still used by another note", 1, db.getCategoryOptionsDao().modifyCategoryOrder(account.getId(), "Music", CategorySortingMethod.SORT_MODIFIED_DESC));
+
+        db.getNoteDao().deleteByNoteId(3, VOID);
+        assertEquals(0, db.getCategoryOptionsDao().modifyCategoryOrder(account.getId(), "Music", CategorySortingMethod.SORT_MODIFIED_DESC));
+    }
+
     @Test
     public void getCategoriesLiveData() throws InterruptedException {
         final var secondAccount = setupSecondAccountAndTestNotes();
@@ -394,6 +621,33 @@ public class NotesDaoTest {
         }
     }
 
+    @Test
+    public void searchRecentByModified_fullText() {
+        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "Groceries", "Milk and bread", "", false, null, VOID, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(2, 2L, Calendar.getInstance(), "Holidays", "Buy bread for the trip", "", false, null, VOID, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(3, 3L, Calendar.getInstance(), "Recipes", "Pancakes", "", false, null, LOCAL_DELETED, account.getId(), "", 0));
+
+        assertEquals("Prefix should match the title", 1, db.getNoteDao().searchRecentByModified(account.getId(), "\"groc*\"").size());
+        assertEquals("Prefix should match the content", 2, db.getNoteDao().searchRecentByModified(account.getId(), "\"brea*\"").size());
+        assertEquals("All words must match", 1, db.getNoteDao().searchRecentByModified(account.getId(), "\"brea*\" \"tri*\"").size());
+        assertEquals("Deleted notes must not be found", 0, db.getNoteDao().searchRecentByModified(account.getId(), "\"pan*\"").size());
+        assertEquals("null must not filter", 2, db.getNoteDao().searchRecentByModified(account.getId(), null).size());
+
+        db.getNoteDao().updateNote(new Note(1, 1L, Calendar.getInstance(), "Groceries", "Apples", "", false, null, VOID, account.getId(), "", 0));
+        assertEquals("Index must follow updates", 1, db.getNoteDao().searchRecentByModified(account.getId(), "\"brea*\"").size());
+
+        db.getNoteDao().deleteByNoteId(2, VOID);
+        assertEquals("Index must follow deletions", 0, db.getNoteDao().searchRecentByModified(account.getId(), "\"brea*\"").size());
+    }
+
+    @Test
+    public void getExistingNoteIds() {
+        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "", false, null, VOID, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(2, 2L, Calendar.getInstance(), "T", "C", "", false, null, LOCAL_DELETED, account.getId(), "", 0));
+
+        assertEquals(List.of(1L), db.getNoteDao().getExistingNoteIds(List.of(1L, 2L, 3L)));
+    }
+
     private static boolean isSortedByFavorite(List<Note> notes) {
         for (int i = 0; i < notes.size() - 1; ++i) {
             if (Boolean.compare(notes.get(i).getFavorite(), notes.get(i + 1).getFavorite()) < 0)
@@ -402,6 +656,59 @@ public class NotesDaoTest {
         return true;
     }
 
+    @Test
+    public void queriesUseIndices() {
+        final var sqlite = db.getOpenHelper().getWritableDatabase();
+        assumeTrue("LOCALIZED collation is not available", isCollationAvailable(sqlite, "LOCALIZED"));
+        Migration_33_34.createCollatedAndPartialIndices(sqlite);
+        setupSecondAccountAndTestNotes();
+
+        final Object[] accountArgs = {account.getId()};
+        final Object[] searchArgs = {account.getId(), null};
+        final Object[] categoryArgs = {account.getId(), null, "Movies"};
+        final Object[] widgetArgs = {account.getId(), 100};
+        final Object[] widgetCategoryArgs = {account.getId(), "Movies", 100};
+        final var queries = Map.ofEntries(
+                Map.entry(NoteDao.searchRecentByModified, searchArgs),
+                Map.entry(NoteDao.searchRecentLexicographically, searchArgs),
+                Map.entry(NoteDao.searchRecentLexicographicallyDesc, searchArgs),
+                Map.entry(NoteDao.searchFavoritesByModified, searchArgs),
+                Map.entry(NoteDao.searchFavoritesLexicographically, searchArgs),
+                Map.entry(NoteDao.searchFavoritesLexicographicallyDesc, searchArgs),
+                Map.entry(NoteDao.searchUncategorizedByModified, searchArgs),
+                Map.entry(NoteDao.searchUncategorizedLexicographically, searchArgs),
+                Map.entry(NoteDao.searchUncategorizedLexicographicallyDesc, searchArgs),
+                Map.entry(NoteDao.searchCategoryByModified, categoryArgs),
+                Map.entry(NoteDao.searchCategoryLexicographically, categoryArgs),
+                Map.entry(NoteDao.searchCategoryLexicographicallyDesc, categoryArgs),
+                Map.entry(WidgetNotesListDao.getRecentEntries, widgetArgs),
+                Map.entry(WidgetNotesListDao.getFavoriteEntries, widgetArgs),
+                Map.entry(WidgetNotesListDao.getUncategorizedEntries, widgetArgs),
+                Map.entry(WidgetNotesListDao.getCategoryEntries, widgetCategoryArgs),
+                Map.entry(NoteDao.getLocalModifiedNotes, accountArgs),
+                Map.entry(NoteDao.countUnsynchronizedNotes, accountArgs)
+        );
+
+        for (final var query : queries.entrySet()) {
+            try (final var cursor = sqlite.query("EXPLAIN QUERY PLAN " + query.getKey(), query.getValue())) {
+                final int detailIndex = cursor.getColumnIndexOrThrow("detail");
+                while (cursor.moveToNext()) {
+                    final String detail = cursor.getString(detailIndex);
+                    assertFalse(detail + " in " + query.getKey(), detail.matches("(?i)SCAN NOTE\\b.*"));
+                    assertFalse(detail + " in " + query.getKey(), detail.contains("TEMP B-TREE FOR ORDER BY"));
+                }
+            }
+        }
+    }
+
+    private static boolean isCollationAvailable(@NonNull SupportSQLiteDatabase sqlite, @NonNull String collation) {
+        try (final var cursor = sqlite.query("SELECT 'a' COLLATE " + collation)) {
+            return cursor.moveToFirst();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
     private Account setupSecondAccount() {
         db.getAccountDao().insert(new Account("https://example.org", "test", "test@example.org", null, new Capabilities()));
         return db.getAccountDao().getAccountByName("test@example.org");
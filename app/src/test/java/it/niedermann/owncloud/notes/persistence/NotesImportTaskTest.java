@@ -0,0 +1,148 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static it.niedermann.owncloud.notes.shared.model.DBStatus.VOID;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.nextcloud.android.sso.api.ParsedResponse;
+import com.nextcloud.android.sso.exceptions.NextcloudFilesAppAccountNotFoundException;
+import com.nextcloud.android.sso.model.SingleSignOnAccount;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import io.reactivex.Observable;
+import it.niedermann.owncloud.notes.persistence.entity.Account;
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.persistence.sync.NotesAPI;
+import it.niedermann.owncloud.notes.shared.model.IResponseCallback;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 36)
+public class NotesImportTaskTest {
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private NotesImportTask task;
+
+    private final Account account = mock(Account.class);
+    private final NotesRepository repo = mock(NotesRepository.class);
+    private final NotesAPI notesAPI = mock(NotesAPI.class);
+    private final ApiProvider apiProvider = mock(ApiProvider.class);
+    private final List<Throwable> errors = new ArrayList<>();
+    private final IResponseCallback<Void> callback = new IResponseCallback<>() {
+        @Override
+        public void onSuccess(Void result) {
+
+        }
+
+        @Override
+        public void onError(@NonNull Throwable t) {
+            errors.add(t);
+        }
+    };
+
+    @Before
+    public void setup() throws NextcloudFilesAppAccountNotFoundException, IOException {
+        when(apiProvider.getNotesAPI(any(), any(), any())).thenReturn(notesAPI);
+        NotesTestingUtil.mockSingleSignOn(new SingleSignOnAccount(account.getAccountName(), account.getUserName(), "", account.getUrl(), ""));
+        task = new NotesImportTask(mock(Context.class), repo, account, MoreExecutors.newDirectExecutorService(), apiProvider);
+    }
+
+    @Test
+    public void testImportNotes() throws InterruptedException {
+        final var remoteNotes = LongStream.rangeClosed(1, 250)
+                .mapToObj(id -> new Note(0, id, Calendar.getInstance(), "Title " + id, "", "", false, "1", VOID, 0, "", 0))
+                .collect(Collectors.toList());
+        when(notesAPI.getNotesMetadata(anyInt(), any())).thenReturn(Observable.just(ParsedResponse.of(remoteNotes)));
+
+        final var status = NotesTestingUtil.getOrAwaitValue(task.importNotes(callback));
+
+        assertTrue(errors.isEmpty());
+        assertEquals(250, status.count);
+        assertEquals(250, status.total);
+        verify(repo, times(3)).applyRemoteChanges(anyLong(), argThat(page -> page.size() <= 100 && page.stream().allMatch(Note::isContentStale)), any(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testImportNotesInChunks() throws InterruptedException {
+        final ParsedResponse<List<Note>> firstChunk = mock(ParsedResponse.class);
+        when(firstChunk.getResponse()).thenReturn(LongStream.rangeClosed(1, 100)
+                .mapToObj(id -> new Note(0, id, Calendar.getInstance(), "Title " + id, "", "", false, "1", VOID, 0, "", 0))
+                .collect(Collectors.toList()));
+        when(firstChunk.getHeaders()).thenReturn(Map.of(NotesAPI.HEADER_KEY_X_NOTES_CHUNK_CURSOR, "next"));
+        final ParsedResponse<List<Note>> lastChunk = mock(ParsedResponse.class);
+        when(lastChunk.getResponse()).thenReturn(LongStream.rangeClosed(101, 150)
+                .mapToObj(id -> new Note(0, id, Calendar.getInstance(), "Title " + id, "", "", false, "1", VOID, 0, "", 0))
+                .collect(Collectors.toList()));
+        when(lastChunk.getHeaders()).thenReturn(Map.of());
+        when(notesAPI.getNotesMetadata(100, null)).thenReturn(Observable.just(firstChunk));
+        when(notesAPI.getNotesMetadata(100, "next")).thenReturn(Observable.just(lastChunk));
+
+        final var status = NotesTestingUtil.getOrAwaitValue(task.importNotes(callback));
+
+        assertTrue(errors.isEmpty());
+        assertEquals(150, status.count);
+        assertEquals(150, status.total);
+        verify(repo).applyRemoteChanges(anyLong(), argThat(page -> page.size() == 100), any(), any());
+        verify(repo).applyRemoteChanges(anyLong(), argThat(page -> page.size() == 50), any(), any());
+    }
+
+    @Test
+    public void testImportContents() throws InterruptedException {
+        when(repo.isSyncPossible()).thenReturn(true);
+        when(repo.getNoteIdsWithStaleContent(anyLong())).thenReturn(LongStream.rangeClosed(1, 30).boxed().collect(Collectors.toList()));
+        for (long id = 1; id <= 30; id++) {
+            final var note = new Note(id, id * 1000, Calendar.getInstance(), "Title " + id, "", "", false, "1", VOID, 0, "", 0);
+            note.setContentStale(true);
+            when(repo.getNoteById(id)).thenReturn(note);
+            if (id == 30) {
+                when(notesAPI.getNote(id * 1000)).thenReturn(Observable.error(new IOException("Note " + id)));
+            } else {
+                when(notesAPI.getNote(id * 1000)).thenReturn(Observable.just(ParsedResponse.of(new Note(0, id * 1000, Calendar.getInstance(), "Title " + id, "Content " + id, "", false, "1", VOID, 0, "", 0))));
+            }
+        }
+
+        final var status = NotesTestingUtil.getOrAwaitValue(task.importContents(callback));
+
+        assertTrue(errors.isEmpty());
+        assertEquals(30, status.count);
+        assertEquals(1, status.warnings.size());
+        verify(repo).updateStaleContents(argThat(page -> page.size() == 20 && page.stream().allMatch(note -> note.getContent().equals("Content " + note.getId()))));
+        verify(repo).updateStaleContents(argThat(page -> page.size() == 9));
+    }
+}
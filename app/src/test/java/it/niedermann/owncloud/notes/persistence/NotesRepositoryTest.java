@@ -16,10 +16,13 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -28,6 +31,7 @@ import static it.niedermann.owncloud.notes.persistence.NotesTestingUtil.getOrAwa
 import static it.niedermann.owncloud.notes.shared.model.DBStatus.LOCAL_DELETED;
 import static it.niedermann.owncloud.notes.shared.model.DBStatus.LOCAL_EDITED;
 import static it.niedermann.owncloud.notes.shared.model.DBStatus.VOID;
+import static it.niedermann.owncloud.notes.shared.util.NoteUtil.generateSyncHash;
 
 import android.content.Context;
 
@@ -38,6 +42,7 @@ import androidx.test.core.app.ApplicationProvider;
 
 import com.google.common.util.concurrent.MoreExecutors;
 import com.nextcloud.android.sso.api.ParsedResponse;
+import com.nextcloud.android.sso.exceptions.NextcloudFilesAppAccountNotFoundException;
 import com.nextcloud.android.sso.model.SingleSignOnAccount;
 
 import org.junit.After;
@@ -52,9 +57,11 @@ import org.robolectric.annotation.Config;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.ExecutorService;
 
@@ -64,6 +71,7 @@ import it.niedermann.owncloud.notes.persistence.entity.Note;
 import it.niedermann.owncloud.notes.persistence.sync.NotesAPI;
 import it.niedermann.owncloud.notes.shared.model.Capabilities;
 import it.niedermann.owncloud.notes.shared.model.IResponseCallback;
+import it.niedermann.owncloud.notes.shared.model.SyncResultStatus;
 
 @RunWith(RobolectricTestRunner.class)
 @Config(sdk = 36)
@@ -93,7 +101,7 @@ public class NotesRepositoryTest {
         repo = constructor.newInstance(context, db, executor, executor, executor, apiProviderSpy);
 
         doReturn(notesApiSpy).when(apiProviderSpy).getNotesAPI(any(), any(), any());
-        when(notesApiSpy.getNotesIDs()).thenReturn(Observable.just(Collections.emptyList()));
+        when(notesApiSpy.getNotesMetadata(anyInt(), any())).thenReturn(Observable.just(ParsedResponse.of(Collections.emptyList())));
         when(notesApiSpy.getNote(anyLong())).thenReturn(Observable.just(ParsedResponse.of(new Note())));
 
         NotesTestingUtil.mockSingleSignOn(new SingleSignOnAccount("彼得@äöüß.example.com", "彼得", "1337", "https://äöüß.example.com", ""));
@@ -186,9 +194,22 @@ public class NotesRepositoryTest {
 
         assertNotNull(repo.getAccountById(account.getId()));
 
+        repo.setPushConcurrency(account.getId(), 1);
         repo.deleteAccount(account);
 
         assertNull(repo.getAccountById(account.getId()));
+        assertEquals(NotesRepository.DEFAULT_PUSH_CONCURRENCY, repo.getPushConcurrency(account.getId()));
+    }
+
+    @Test
+    public void testPushConcurrency() {
+        assertEquals(NotesRepository.DEFAULT_PUSH_CONCURRENCY, repo.getPushConcurrency(account.getId()));
+
+        repo.setPushConcurrency(account.getId(), 2);
+        assertEquals(2, repo.getPushConcurrency(account.getId()));
+        assertEquals(NotesRepository.DEFAULT_PUSH_CONCURRENCY, repo.getPushConcurrency(account.getId() + 1));
+
+        assertThrows(IllegalArgumentException.class, () -> repo.setPushConcurrency(account.getId(), 0));
     }
 
     @Test
@@ -255,6 +276,92 @@ public class NotesRepositoryTest {
         verify(repoSpy, times(1)).addNoteAndSync(any(), any());
     }
 
+    @Test
+    public void setFavoriteAndSync() {
+        final var repoSpy = spy(repo);
+        doNothing().when(repoSpy).scheduleSync(any(), anyBoolean());
+
+        final var note = repoSpy.getNoteById(1);
+        assertFalse(note.getFavorite());
+        assertEquals(VOID, note.getStatus());
+
+        repoSpy.setFavoriteAndSync(account, note.getId(), true);
+
+        final var toggledNote = repoSpy.getNoteById(1);
+        assertTrue(toggledNote.getFavorite());
+        assertEquals(LOCAL_EDITED, toggledNote.getStatus());
+        assertEquals(Long.valueOf(1001L), toggledNote.getRemoteId());
+        verify(repoSpy, times(1)).scheduleSync(account, true);
+        verify(repoSpy, times(0)).scheduleSync(account, false);
+
+        repoSpy.setFavoriteAndSync(account, note.getId(), true);
+        assertTrue("Setting the same state again must not toggle it", repoSpy.getNoteById(1).getFavorite());
+    }
+
+    @Test
+    public void updateNoteAndSyncRefusesNotesWithStaleContent() {
+        final var repoSpy = spy(repo);
+        doNothing().when(repoSpy).scheduleSync(any(), anyBoolean());
+
+        final var note = new Note(10, 1010L, Calendar.getInstance(), "T", "", "", false, "1", VOID, account.getId(), "", 0);
+        note.setContentStale(true);
+        db.getNoteDao().addNote(note);
+
+        assertSame(note, repoSpy.updateNoteAndSync(account, note, "", null, null));
+
+        final var storedNote = repoSpy.getNoteById(10);
+        assertTrue(storedNote.isContentStale());
+        assertEquals(VOID, storedNote.getStatus());
+        verify(repoSpy, times(0)).scheduleSync(any(), anyBoolean());
+    }
+
+    @Test
+    public void revertedEditsAreNotUploaded() throws NextcloudFilesAppAccountNotFoundException {
+        final var repoSpy = spy(repo);
+        doNothing().when(repoSpy).scheduleSync(any(), anyBoolean());
+        final var pulledNote = repoSpy.getNoteById(1);
+        db.getNoteDao().updateSyncedHash(1, generateSyncHash(pulledNote.getTitle(), pulledNote.getCategory(), pulledNote.getFavorite(), pulledNote.getContent()));
+
+        final var editedNote = repoSpy.updateNoteAndSync(account, pulledNote, "Edited", null, null);
+        repoSpy.updateNoteAndSync(account, editedNote, pulledNote.getContent(), null, null);
+        assertEquals(LOCAL_EDITED, repoSpy.getNoteById(1).getStatus());
+        assertNotNull("Saving must keep the synced hash", repoSpy.getNoteById(1).getSyncedHash());
+
+        final var notesAPI = mock(NotesAPI.class);
+        final var apiProvider = mock(ApiProvider.class);
+        doReturn(notesAPI).when(apiProvider).getNotesAPI(any(), any(), any());
+        NotesTestingUtil.mockSingleSignOn(new SingleSignOnAccount(account.getAccountName(), account.getUserName(), "1337", account.getUrl(), ""));
+        new NotesServerSyncTask(ApplicationProvider.getApplicationContext(), repoSpy, account, true, apiProvider) {
+            @Override
+            void onPreExecute() {
+
+            }
+
+            @Override
+            void onPostExecute(SyncResultStatus status) {
+
+            }
+        }.run();
+
+        verify(notesAPI, never()).editNote(argThat(note -> note.getId() == 1));
+        assertEquals(VOID, repoSpy.getNoteById(1).getStatus());
+    }
+
+    @Test
+    public void pushAndPullCallbacksAreNotifiedAfterFullSync() {
+        NotesTestingUtil.mockSingleSignOn(new SingleSignOnAccount(account.getAccountName(), account.getUserName(), "1337", account.getUrl(), ""));
+        final var repoSpy = spy(repo);
+        doNothing().when(repoSpy).scheduleSync(any(), anyBoolean());
+        final var finished = new ArrayList<String>();
+
+        repoSpy.updateNoteAndSync(account, repoSpy.getNoteById(1), "Edited", null, () -> finished.add("push"));
+        repoSpy.addCallbackPull(account, () -> finished.add("pull"));
+
+        repoSpy.sync(account, false);
+
+        assertEquals(List.of("push", "pull"), finished);
+    }
+
     @Test
     public void testSyncStatusLiveData() throws InterruptedException, IOException {
         NotesTestingUtil.mockSingleSignOn(new SingleSignOnAccount(account.getAccountName(), account.getUserName(), "1337", account.getUrl(), ""));
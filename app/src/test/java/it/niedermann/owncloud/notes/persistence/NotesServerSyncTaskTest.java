@@ -6,22 +6,22 @@
  */
 package it.niedermann.owncloud.notes.persistence;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static it.niedermann.owncloud.notes.shared.model.DBStatus.LOCAL_EDITED;
-import static it.niedermann.owncloud.notes.shared.model.DBStatus.VOID;
 
 import android.content.Context;
 
 import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
 
-import com.nextcloud.android.sso.api.ParsedResponse;
 import com.nextcloud.android.sso.exceptions.NextcloudFilesAppAccountNotFoundException;
 import com.nextcloud.android.sso.model.SingleSignOnAccount;
 
@@ -32,18 +32,26 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
-import io.reactivex.Observable;
 import it.niedermann.owncloud.notes.persistence.entity.Account;
 import it.niedermann.owncloud.notes.persistence.entity.Note;
 import it.niedermann.owncloud.notes.persistence.sync.NotesAPI;
+import it.niedermann.owncloud.notes.persistence.sync.NotesStream;
 import it.niedermann.owncloud.notes.shared.model.SyncResultStatus;
+import retrofit2.Call;
+import retrofit2.Response;
 
-@SuppressWarnings("CallToThreadRun")
+@SuppressWarnings({"CallToThreadRun", "unchecked"})
 @RunWith(RobolectricTestRunner.class)
 @Config(sdk = 36)
 public class NotesServerSyncTaskTest {
@@ -89,19 +97,84 @@ public class NotesServerSyncTaskTest {
     }
 
     @Test
-    public void testPullRemoteChanges() {
+    public void testPushLocalChangesSkipsNotesUnchangedSinceLastSync() {
+        final var unchangedNote = new Note(1, 2L, Calendar.getInstance(), "Equals the server state, therefore", "This note should not be uploaded", "", false, "1", LOCAL_EDITED, 0, "", 0);
+        when(repo.getLocalModifiedNotes(anyLong())).thenReturn(List.of(unchangedNote));
+        when(repo.updateStatusIfUnchangedSinceLastSync(unchangedNote)).thenReturn(true);
+
+        this.task.run();
+
+        verify(notesAPI, never()).editNote(any());
+        verify(repo, never()).updateIfNotModifiedLocallyDuringSync(anyLong(), anyLong(), any(), anyBoolean(), any(), any(), any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    public void testPushLocalChangesConcurrently() throws Exception {
+        final var pushConcurrency = 3;
+        final var parallelTask = new NotesServerSyncTask(mock(Context.class), repo, account, true, apiProvider, pushConcurrency) {
+            @Override
+            void onPreExecute() {
+
+            }
+
+            @Override
+            void onPostExecute(SyncResultStatus status) {
+
+            }
+        };
+        // Each edit request only returns after all edit requests have been started
+        final var allRequestsStarted = new CountDownLatch(pushConcurrency);
+        final var notes = new ArrayList<Note>();
+        for (long i = 1; i <= pushConcurrency; i++) {
+            final var note = new Note(i, i * 1000, Calendar.getInstance(), "Note " + i, "Content " + i, "", false, "1", LOCAL_EDITED, 0, "", 0);
+            final Call<Note> call = mock(Call.class);
+            when(call.execute()).thenAnswer(invocation -> {
+                allRequestsStarted.countDown();
+                if (!allRequestsStarted.await(5, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Requests have not been sent concurrently");
+                }
+                return Response.success(note);
+            });
+            when(notesAPI.editNote(note)).thenReturn(call);
+            notes.add(note);
+        }
+        notes.add(new Note(pushConcurrency + 1, null, Calendar.getInstance(), "Failing note", "Content", "", false, "1", LOCAL_EDITED, 0, "", 0));
+        when(repo.getLocalModifiedNotes(anyLong())).thenReturn(notes);
+
+        final Call<Note> failingCall = mock(Call.class);
+        when(failingCall.execute()).thenThrow(new IOException("Failing note"));
+        when(notesAPI.createNote(any())).thenReturn(failingCall);
+
+        parallelTask.run();
+
+        for (long i = 1; i <= pushConcurrency; i++) {
+            verify(repo).updateIfNotModifiedLocallyDuringSync(eq(i), anyLong(), any(), anyBoolean(), any(), any(), any(), any(), any(), anyBoolean());
+        }
+        assertEquals(1, parallelTask.exceptions.size());
+        assertEquals("Failing note", parallelTask.exceptions.get(0).getMessage());
+    }
+
+    @Test
+    public void testPullRemoteChanges() throws Exception {
         when(account.getModified()).thenReturn(Calendar.getInstance());
         when(repo.getAccountById(anyLong())).thenReturn(account);
         when(repo.getIdMap(anyLong())).thenReturn(Map.of(1000L, 1L, 2000L, 2L));
-        when(repo.updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(anyLong(), anyLong(), anyString(), anyBoolean(), anyString(), anyString(), anyString(), anyString())).thenReturn(1);
-        when(notesAPI.getNotes(any(), any())).thenReturn(Observable.just(ParsedResponse.of(Arrays.asList(
-                new Note(0, 1000L, Calendar.getInstance(), "RemoteId is in the idMap, therefore", "This note should be updated locally", "", false, "1", VOID, 0, "", 0),
-                new Note(0, 3000L, Calendar.getInstance(), "Is a new RemoteId, therefore", "This note should be created locally", "", false, "1", VOID, 0, "", 0)
-        ))));
+        final var modified = Calendar.getInstance().getTimeInMillis() / 1_000;
+        final var body = "[" +
+                "{\"id\": 1000, \"modified\": " + modified + ", \"title\": \"RemoteId is in the idMap, therefore\", \"content\": \"This note should be updated locally\", \"category\": \"\", \"favorite\": false, \"etag\": \"1\"}," +
+                "{\"id\": 3000, \"modified\": " + modified + ", \"title\": \"Is a new RemoteId, therefore\", \"content\": \"This note should be created locally\", \"category\": \"\", \"favorite\": false, \"etag\": \"1\"}" +
+                "]";
+        when(notesAPI.getNotesStreamed(any(), any())).thenReturn(new NotesStream(ApiProvider.GSON, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), Map.of()));
 
         this.task.run();
 
-        verify(repo).addNote(anyLong(), argThat(argument -> "This note should be created locally".equals(argument.getContent())));
-        verify(repo).updateIfNotModifiedLocallyAndAnyRemoteColumnHasChanged(anyLong(), anyLong(), anyString(), anyBoolean(), anyString(), anyString(), argThat("This note should be updated locally"::equals), anyString());
+        verify(repo).applyRemoteChanges(anyLong(),
+                argThat(added -> added.size() == 1 && "This note should be created locally".equals(added.get(0).getContent())),
+                argThat(updated -> updated.size() == 1 && updated.get(0).getId() == 1L && "This note should be updated locally".equals(updated.get(0).getContent())),
+                argThat(List::isEmpty));
+        verify(repo).applyRemoteChanges(anyLong(),
+                argThat(List::isEmpty),
+                argThat(List::isEmpty),
+                argThat(deletedIds -> deletedIds.size() == 1 && deletedIds.contains(2L)));
     }
 }
@@ -0,0 +1,117 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import it.niedermann.owncloud.notes.persistence.entity.Account;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 36)
+public class SyncSchedulerTest {
+
+    private final ScheduledExecutorService timer = mock(ScheduledExecutorService.class);
+    private final ScheduledFuture<?> debounce = mock(ScheduledFuture.class);
+    private final List<Runnable> debounced = new ArrayList<>();
+    private final List<Boolean> runs = new ArrayList<>();
+    private final Account account = new Account();
+    private final Account secondAccount = new Account();
+
+    private SyncScheduler scheduler;
+
+    @Before
+    public void setup() {
+        account.setId(1);
+        secondAccount.setId(2);
+        when(timer.schedule(any(Runnable.class), anyLong(), any())).then(invocation -> {
+            debounced.add(invocation.getArgument(0));
+            return debounce;
+        });
+        scheduler = new SyncScheduler(MoreExecutors.directExecutor(), timer, 500, (account, onlyLocalChanges) -> runs.add(onlyLocalChanges));
+    }
+
+    @Test
+    public void pushRequestsAreDebounced() {
+        assertFalse(scheduler.request(account, true));
+        assertFalse(scheduler.request(account, true));
+        assertFalse(scheduler.request(account, true));
+
+        assertTrue(runs.isEmpty());
+        assertEquals(3, scheduler.getQueueDepth(account.getId()));
+        verify(timer, times(1)).schedule(any(Runnable.class), eq(500L), eq(TimeUnit.MILLISECONDS));
+
+        debounced.get(0).run();
+        assertEquals(List.of(true), runs);
+        assertEquals(0, scheduler.getQueueDepth(account.getId()));
+        assertTrue(scheduler.getLastLatencyMillis(account.getId()) >= 0);
+    }
+
+    @Test
+    public void fullSyncIncludesPendingPush() {
+        assertFalse(scheduler.request(account, true));
+        assertTrue(scheduler.request(account, false));
+
+        assertEquals(List.of(false), runs);
+        verify(debounce).cancel(false);
+
+        debounced.get(0).run();
+        assertEquals("Debounced push must not run again after it has been merged", 1, runs.size());
+    }
+
+    @Test
+    public void requestsWhileRunningAreMerged() {
+        final var nested = new ArrayList<Boolean>();
+        scheduler = new SyncScheduler(MoreExecutors.directExecutor(), timer, 500, (account, onlyLocalChanges) -> {
+            runs.add(onlyLocalChanges);
+            if (runs.size() == 1) {
+                nested.add(scheduler.request(account, true));
+                nested.add(scheduler.request(account, false));
+                nested.add(scheduler.request(account, true));
+            }
+        });
+
+        assertTrue(scheduler.request(account, false));
+
+        assertEquals(List.of(false, false, false), nested);
+        assertEquals("All requests made during the first run must be merged into one full sync", List.of(false, false), runs);
+    }
+
+    @Test
+    public void suspendedAccountsDoNotBlockOthers() {
+        scheduler.suspend(account);
+
+        assertFalse(scheduler.request(account, false));
+        assertTrue(scheduler.request(secondAccount, false));
+        assertEquals(List.of(false), runs);
+
+        scheduler.resume(account.getId());
+        assertEquals(List.of(false, false), runs);
+    }
+}
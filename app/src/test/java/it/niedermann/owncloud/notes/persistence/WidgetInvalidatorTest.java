@@ -0,0 +1,171 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.persistence;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
+import static it.niedermann.owncloud.notes.shared.model.DBStatus.VOID;
+
+import android.app.Application;
+import android.appwidget.AppWidgetManager;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import it.niedermann.owncloud.notes.persistence.entity.Account;
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+import it.niedermann.owncloud.notes.persistence.entity.NotesListWidgetData;
+import it.niedermann.owncloud.notes.persistence.entity.SingleNoteWidgetData;
+import it.niedermann.owncloud.notes.shared.model.Capabilities;
+import it.niedermann.owncloud.notes.widget.notelist.NoteListWidget;
+import it.niedermann.owncloud.notes.widget.singlenote.SingleNoteWidget;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 36)
+public class WidgetInvalidatorTest {
+
+    private final ScheduledExecutorService timer = mock(ScheduledExecutorService.class);
+    private final List<Runnable> flushes = new ArrayList<>();
+
+    private Application context;
+    private NotesDatabase db;
+    private Account account;
+    private Account secondAccount;
+    private WidgetInvalidator invalidator;
+
+    @Before
+    public void setup() {
+        context = ApplicationProvider.getApplicationContext();
+        db = Room
+                .inMemoryDatabaseBuilder(context, NotesDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        db.getAccountDao().insert(new Account("https://example.com", "foo", "foo@example.com", null, new Capabilities()));
+        db.getAccountDao().insert(new Account("https://example.org", "bar", "bar@example.org", null, new Capabilities()));
+        account = db.getAccountDao().getAccountByName("foo@example.com");
+        secondAccount = db.getAccountDao().getAccountByName("bar@example.org");
+
+        db.getNoteDao().addNote(new Note(1, 1L, Calendar.getInstance(), "T", "C", "", false, "1", VOID, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(2, 2L, Calendar.getInstance(), "T", "C", "", false, "1", VOID, account.getId(), "", 0));
+        db.getNoteDao().addNote(new Note(3, 3L, Calendar.getInstance(), "T", "C", "", false, "1", VOID, secondAccount.getId(), "", 0));
+
+        db.getWidgetSingleNoteDao().createOrUpdateSingleNoteWidgetData(new SingleNoteWidgetData(11, account.getId(), 1, 0));
+        db.getWidgetSingleNoteDao().createOrUpdateSingleNoteWidgetData(new SingleNoteWidgetData(12, account.getId(), 2, 0));
+        db.getWidgetSingleNoteDao().createOrUpdateSingleNoteWidgetData(new SingleNoteWidgetData(13, secondAccount.getId(), 3, 0));
+        db.getWidgetNotesListDao().createOrUpdateNoteListWidgetData(createNoteListWidgetData(21, account.getId()));
+        db.getWidgetNotesListDao().createOrUpdateNoteListWidgetData(createNoteListWidgetData(23, secondAccount.getId()));
+
+        when(timer.schedule(any(Runnable.class), anyLong(), any())).then(invocation -> {
+            flushes.add(invocation.getArgument(0));
+            return mock(ScheduledFuture.class);
+        });
+        invalidator = new WidgetInvalidator(context, db, timer, 500);
+    }
+
+    @After
+    public void closeDb() {
+        db.close();
+    }
+
+    @Test
+    public void onlyAffectedWidgetsAreUpdated() {
+        invalidator.invalidateNotes(account.getId(), List.of(2L));
+        flushAll();
+
+        assertArrayEquals(new int[]{12}, getUpdatedWidgetIds(SingleNoteWidget.class));
+        assertArrayEquals(new int[]{21}, getUpdatedWidgetIds(NoteListWidget.class));
+    }
+
+    @Test
+    public void invalidateNoteResolvesAccount() {
+        invalidator.invalidateNote(3);
+        flushAll();
+
+        assertArrayEquals(new int[]{13}, getUpdatedWidgetIds(SingleNoteWidget.class));
+        assertArrayEquals(new int[]{23}, getUpdatedWidgetIds(NoteListWidget.class));
+    }
+
+    @Test
+    public void burstsAreMergedIntoOneUpdate() {
+        invalidator.invalidateNotes(account.getId(), List.of(1L));
+        invalidator.invalidateNotes(account.getId(), List.of(2L));
+        invalidator.invalidateAccount(secondAccount.getId());
+
+        assertEquals(1, flushes.size());
+        flushAll();
+
+        assertArrayEquals(new int[]{11, 12, 13}, getUpdatedWidgetIds(SingleNoteWidget.class));
+        assertArrayEquals(new int[]{21, 23}, getUpdatedWidgetIds(NoteListWidget.class));
+        assertEquals(2, shadowOf(context).getBroadcastIntents().size());
+    }
+
+    @Test
+    public void updatesAreHeldBackUntilReleased() {
+        invalidator.hold();
+        invalidator.invalidateNotes(account.getId(), List.of(1L));
+        invalidator.invalidateNotes(account.getId(), List.of(2L));
+
+        assertTrue(flushes.isEmpty());
+
+        invalidator.release();
+        assertEquals(1, flushes.size());
+        flushAll();
+
+        assertArrayEquals(new int[]{11, 12}, getUpdatedWidgetIds(SingleNoteWidget.class));
+    }
+
+    @Test
+    public void nothingToUpdate() {
+        db.getWidgetNotesListDao().removeNoteListWidget(21);
+        invalidator.invalidateNotes(account.getId(), List.of());
+
+        assertTrue(flushes.isEmpty());
+    }
+
+    private void flushAll() {
+        for (int i = 0; i < flushes.size(); i++) {
+            flushes.get(i).run();
+        }
+    }
+
+    private int[] getUpdatedWidgetIds(Class<?> provider) {
+        return shadowOf(context).getBroadcastIntents().stream()
+                .filter(intent -> intent.getComponent() != null && provider.getName().equals(intent.getComponent().getClassName()))
+                .map(intent -> intent.getIntArrayExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS))
+                .flatMapToInt(Arrays::stream)
+                .sorted()
+                .toArray();
+    }
+
+    private static NotesListWidgetData createNoteListWidgetData(int id, long accountId) {
+        final var data = new NotesListWidgetData();
+        data.setId(id);
+        data.setAccountId(accountId);
+        data.setMode(NotesListWidgetData.MODE_DISPLAY_ALL);
+        return data;
+    }
+}
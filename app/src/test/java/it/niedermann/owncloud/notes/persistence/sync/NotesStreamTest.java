@@ -0,0 +1,60 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.persistence.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.Gson;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 36)
+public class NotesStreamTest {
+
+    @Test
+    public void testReadBatch() throws IOException {
+        //language=json
+        final String response = "" +
+                "[" +
+                "    {\"id\": 1, \"title\": \"One\", \"content\": \"Foo\"}," +
+                "    {\"id\": 2, \"title\": \"Two\", \"content\": \"Bar\"}," +
+                "    {\"id\": 3, \"title\": \"Three\", \"content\": \"Baz\"}" +
+                "]";
+        try (final var stream = new NotesStream(new Gson(), new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)), Map.of("ETag", "abc"))) {
+            assertEquals("abc", stream.getHeaders().get("ETag"));
+
+            final var firstBatch = stream.readBatch(2);
+            assertEquals(2, firstBatch.size());
+            assertEquals(Long.valueOf(1), firstBatch.get(0).getRemoteId());
+            assertEquals("Two", firstBatch.get(1).getTitle());
+
+            final var secondBatch = stream.readBatch(2);
+            assertEquals(1, secondBatch.size());
+            assertEquals("Baz", secondBatch.get(0).getContent());
+
+            assertTrue(stream.readBatch(2).isEmpty());
+            assertTrue(stream.readBatch(2).isEmpty());
+        }
+    }
+
+    @Test
+    public void testReadBatchEmptyArray() throws IOException {
+        try (final var stream = new NotesStream(new Gson(), new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8)), Map.of())) {
+            assertTrue(stream.readBatch(10).isEmpty());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.shared.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+
+public class SearchHighlightsTest {
+
+    @Test
+    public void find() {
+        assertArrayEquals(new int[]{0, 3}, SearchHighlights.find("Foo bar", "foo"));
+        assertArrayEquals(new int[]{0, 3, 8, 11}, SearchHighlights.find("FOO bar foo", "Foo"));
+        assertArrayEquals("Matches must not overlap", new int[]{0, 2, 2, 4}, SearchHighlights.find("aaaaa", "aa"));
+        assertArrayEquals(new int[0], SearchHighlights.find("Foo", "Bar"));
+        assertArrayEquals(new int[0], SearchHighlights.find("Fo", "Foo"));
+        assertArrayEquals(new int[0], SearchHighlights.find("Foo", ""));
+    }
+
+    @Test
+    public void of() {
+        final var note = new Note(null, null, "Shopping list", "", "", false, null);
+        note.setExcerpt("Milk   Shopping bag");
+
+        assertSame(SearchHighlights.NONE, SearchHighlights.of(note, null));
+        assertSame(SearchHighlights.NONE, SearchHighlights.of(note, ""));
+
+        final var highlights = SearchHighlights.of(note, "shopping");
+        assertArrayEquals(new int[]{0, 8}, highlights.getTitle());
+        assertArrayEquals(new int[]{7, 15}, highlights.getExcerpt());
+        assertArrayEquals("Offsets must match the excerpt with line breaks", new int[]{5, 13}, highlights.getMultilineExcerpt());
+
+        assertEquals(highlights, SearchHighlights.of(note, "SHOPPING"));
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.shared.util;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 36)
+public class DebouncedLiveDataTest {
+
+    private final MutableLiveData<Integer> source = new MutableLiveData<>();
+    private final DebouncedLiveData<Integer> debounced = new DebouncedLiveData<>(source, 100);
+    private final List<Integer> values = new ArrayList<>();
+    private final Observer<Integer> observer = values::add;
+
+    @Test
+    public void burstsAreDebounced() {
+        debounced.observeForever(observer);
+        source.setValue(1);
+        source.setValue(2);
+        source.setValue(3);
+        assertEquals(List.of(1), values);
+
+        ShadowLooper.idleMainLooper(100, TimeUnit.MILLISECONDS);
+        assertEquals(List.of(1, 3), values);
+    }
+
+    @Test
+    public void pendingValueIsDeliveredWhenBecomingActiveAgain() {
+        debounced.observeForever(observer);
+        source.setValue(1);
+        source.setValue(2);
+        debounced.removeObserver(observer);
+        ShadowLooper.idleMainLooper(100, TimeUnit.MILLISECONDS);
+
+        debounced.observeForever(observer);
+        assertEquals(List.of(1, 2), values);
+    }
+}
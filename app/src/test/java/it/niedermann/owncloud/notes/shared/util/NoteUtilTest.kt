@@ -48,6 +48,18 @@ class NoteUtilTest : TestCase() {
         assertEquals("Foo", NoteUtil.getLineWithoutMarkdown("# Foo", 0))
     }
 
+    @Test
+    fun testToFtsMatchQuery() {
+        assertNull(NoteUtil.toFtsMatchQuery(null))
+        assertNull(NoteUtil.toFtsMatchQuery(""))
+        assertNull(NoteUtil.toFtsMatchQuery(" \n "))
+        assertNull(NoteUtil.toFtsMatchQuery("\""))
+        assertEquals("\"foo*\"", NoteUtil.toFtsMatchQuery("foo"))
+        assertEquals("\"foo*\" \"bar*\"", NoteUtil.toFtsMatchQuery(" foo  bar "))
+        assertEquals("\"foo*\" \"bar*\"", NoteUtil.toFtsMatchQuery("foo\"bar"))
+        assertEquals("\"日记*\"", NoteUtil.toFtsMatchQuery("日记"))
+    }
+
     @Test
     fun testGenerateNoteTitle() {
         assertEquals("Test", NoteUtil.generateNoteTitle("Test"))
@@ -268,6 +280,19 @@ class NoteUtilTest : TestCase() {
         assertTrue(travelExcerpt.contains("Narita Airport"))
     }
 
+    @Test
+    fun testGenerateSyncHash() {
+        val hash = NoteUtil.generateSyncHash("Title", "Category", false, "Content")
+        assertEquals(64, hash.length)
+        assertEquals(hash, NoteUtil.generateSyncHash("Title", "Category", false, "Content"))
+        assertFalse(hash == NoteUtil.generateSyncHash("Title", "Category", true, "Content"))
+        assertFalse(hash == NoteUtil.generateSyncHash("Title", "Category", false, "Content "))
+        assertFalse(
+            "Properties must not be confused with each other",
+            NoteUtil.generateSyncHash("TitleCategory", "", false, "Content") == NoteUtil.generateSyncHash("Title", "Category", false, "Content")
+        )
+    }
+
     /**
      * Has known issues on [Build.VERSION_CODES.LOLLIPOP_MR1] and
      * [Build.VERSION_CODES.M] due to incompatibilities of
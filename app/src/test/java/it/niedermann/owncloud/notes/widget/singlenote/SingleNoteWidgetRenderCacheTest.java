@@ -0,0 +1,97 @@
+/*
+ * Nextcloud Notes - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package it.niedermann.owncloud.notes.widget.singlenote;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.content.res.Configuration;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import it.niedermann.owncloud.notes.persistence.entity.Note;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 36)
+public class SingleNoteWidgetRenderCacheTest {
+
+    private final List<String> rendered = new ArrayList<>();
+    private Context context;
+    private SingleNoteWidgetRenderCache cache;
+
+    @Before
+    public void setup() {
+        context = ApplicationProvider.getApplicationContext();
+        cache = new SingleNoteWidgetRenderCache(1024, (context, content) -> {
+            rendered.add(content);
+            return "<" + content + ">";
+        });
+    }
+
+    @Test
+    public void unchangedNotesAreNotRenderedAgain() {
+        final var note = createNote(1, "# Foo");
+        assertEquals("<# Foo>", cache.render(context, note).toString());
+        assertEquals("<# Foo>", cache.render(context, createNote(1, "# Foo")).toString());
+        assertEquals(1, rendered.size());
+
+        assertEquals("<# Bar>", cache.render(context, createNote(1, "# Bar")).toString());
+        assertEquals("<# Foo>", cache.render(context, createNote(2, "# Foo")).toString());
+        assertEquals(List.of("# Foo", "# Bar", "# Foo"), rendered);
+    }
+
+    @Test
+    public void contentsWithTheSameHashAreRenderedAgain() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertEquals("<Aa>", cache.render(context, createNote(1, "Aa")).toString());
+        assertEquals("<BB>", cache.render(context, createNote(1, "BB")).toString());
+        assertEquals(List.of("Aa", "BB"), rendered);
+    }
+
+    @Test
+    public void configurationChangesRenderAgain() {
+        final var note = createNote(1, "# Foo");
+        cache.render(context, note);
+
+        final var configuration = new Configuration(context.getResources().getConfiguration());
+        configuration.uiMode = (configuration.uiMode & ~Configuration.UI_MODE_NIGHT_MASK)
+                | ((configuration.uiMode & Configuration.UI_MODE_NIGHT_MASK) == Configuration.UI_MODE_NIGHT_YES ? Configuration.UI_MODE_NIGHT_NO : Configuration.UI_MODE_NIGHT_YES);
+        final var nightContext = context.createConfigurationContext(configuration);
+        cache.render(nightContext, note);
+        cache.render(nightContext, note);
+
+        assertEquals(2, rendered.size());
+    }
+
+    @Test
+    public void failedRenderingFallsBackToContent() {
+        final var failing = new SingleNoteWidgetRenderCache(1024, (context, content) -> {
+            rendered.add(content);
+            throw new IllegalStateException();
+        });
+        final var note = createNote(1, "# Foo");
+        assertEquals("# Foo", failing.render(context, note).toString());
+        assertEquals("# Foo", failing.render(context, note).toString());
+        assertEquals(2, rendered.size());
+    }
+
+    private static Note createNote(long id, String content) {
+        final var note = new Note();
+        note.setId(id);
+        note.setContent(content);
+        return note;
+    }
+}